@@ -22,6 +22,9 @@ CREATE TABLE inventories (
                              reserved_quantity INTEGER NOT NULL DEFAULT 0 CHECK (reserved_quantity >= 0),
                              available_quantity INTEGER GENERATED ALWAYS AS (total_quantity - reserved_quantity) STORED,
                              min_stock_level INTEGER NOT NULL DEFAULT 10,
+                             shard_count INTEGER NOT NULL DEFAULT 1 CHECK (shard_count >= 1),
+                             -- Ürünün warehouse_stocks satırı varsa TRUE; depo toplamları sadece o zaman okunur
+                             warehouse_stocked BOOLEAN NOT NULL DEFAULT FALSE,
                              is_active BOOLEAN NOT NULL DEFAULT TRUE,
                              created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                              updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
@@ -29,6 +32,54 @@ CREATE TABLE inventories (
                              CONSTRAINT chk_reserved_not_exceed CHECK (reserved_quantity <= total_quantity)
 );
 
+-- =====================================================
+-- INVENTORY_STOCK_SHARDS Tablosu (çok talep gören ürünler için bölünmüş stok)
+-- Sharded üründe gerçek miktar = inventories satırı + shard satırlarının toplamı
+-- =====================================================
+CREATE TABLE inventory_stock_shards (
+                                        product_id UUID NOT NULL REFERENCES inventories(product_id) ON DELETE CASCADE,
+                                        shard_no SMALLINT NOT NULL,
+                                        total_quantity INTEGER NOT NULL DEFAULT 0 CHECK (total_quantity >= 0),
+                                        reserved_quantity INTEGER NOT NULL DEFAULT 0 CHECK (reserved_quantity >= 0),
+                                        PRIMARY KEY (product_id, shard_no),
+                                        CONSTRAINT chk_shard_reserved_not_exceed CHECK (reserved_quantity <= total_quantity)
+);
+
+-- =====================================================
+-- WAREHOUSES Tablosu
+-- =====================================================
+CREATE TABLE warehouses (
+                            id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                            code VARCHAR(50) NOT NULL UNIQUE,
+                            name VARCHAR(255) NOT NULL,
+                            city VARCHAR(100) NOT NULL,
+                            latitude DOUBLE PRECISION NOT NULL,
+                            longitude DOUBLE PRECISION NOT NULL,
+                            is_active BOOLEAN NOT NULL DEFAULT TRUE,
+                            created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+                            updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Teslimat şehirlerinin konumu; depo yakınlığı için. name küçük harf ve Türkçe karaktersiz tutulur
+CREATE TABLE city_locations (
+                                name VARCHAR(100) PRIMARY KEY,
+                                latitude DOUBLE PRECISION NOT NULL,
+                                longitude DOUBLE PRECISION NOT NULL
+);
+
+-- =====================================================
+-- WAREHOUSE_STOCKS Tablosu (ürünün depolardaki stoğu)
+-- Ürünün toplam miktarı = inventories satırı + shard'lar + depo satırlarının toplamı
+-- =====================================================
+CREATE TABLE warehouse_stocks (
+                                  product_id UUID NOT NULL REFERENCES inventories(product_id) ON DELETE CASCADE,
+                                  warehouse_id UUID NOT NULL REFERENCES warehouses(id),
+                                  total_quantity INTEGER NOT NULL DEFAULT 0 CHECK (total_quantity >= 0),
+                                  reserved_quantity INTEGER NOT NULL DEFAULT 0 CHECK (reserved_quantity >= 0),
+                                  PRIMARY KEY (product_id, warehouse_id),
+                                  CONSTRAINT chk_warehouse_reserved_not_exceed CHECK (reserved_quantity <= total_quantity)
+);
+
 -- =====================================================
 -- RESERVATIONS Tablosu
 -- =====================================================
@@ -51,6 +102,8 @@ CREATE TABLE reservation_items (
                                    id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
                                    reservation_id UUID NOT NULL REFERENCES reservations(id) ON DELETE CASCADE,
                                    product_id UUID NOT NULL,
+                                   -- NULL: ana stoktan (inventories + shard'lar) ayrıldı
+                                   warehouse_id UUID REFERENCES warehouses(id),
                                    quantity INTEGER NOT NULL CHECK (quantity > 0),
                                    created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
@@ -67,15 +120,55 @@ CREATE TYPE movement_type AS ENUM (
     'ADJUSTMENT'
 );
 
+-- Yalnızca ekleme yapılır; aylık range partition'lar (MovementJournalServiceImpl ileriye dönük oluşturur)
 CREATE TABLE inventory_movements (
-                                     id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                                     id UUID NOT NULL DEFAULT gen_random_uuid(),
+                                     -- Mutabakat snapshot'larının sırası; stok satırı kilitliyken atanır
+                                     seq BIGSERIAL NOT NULL,
                                      product_id UUID NOT NULL,
                                      movement_type movement_type NOT NULL,
                                      quantity INTEGER NOT NULL,
                                      reference_id UUID,
                                      reference_type VARCHAR(50),
                                      notes TEXT,
-                                     created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+                                     created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                                     PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Önceden oluşturulmamış bir aya düşen kayıtlar için
+CREATE TABLE inventory_movements_default PARTITION OF inventory_movements DEFAULT;
+
+-- Verilen tarihin ayı (UTC) için partition yoksa oluşturur
+CREATE OR REPLACE FUNCTION ensure_movement_partition(p_day DATE)
+RETURNS TEXT AS $$
+DECLARE
+    month_start DATE := DATE_TRUNC('month', p_day)::DATE;
+    partition_name TEXT := 'inventory_movements_p' || TO_CHAR(p_day, 'YYYYMM');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF inventory_movements FOR VALUES FROM (%L) TO (%L)',
+            partition_name,
+            (month_start::TIMESTAMP AT TIME ZONE 'UTC'),
+            ((month_start + INTERVAL '1 month')::TIMESTAMP AT TIME ZONE 'UTC'));
+    END IF;
+RETURN partition_name;
+END;
+$$ language 'plpgsql';
+
+SELECT ensure_movement_partition(((CURRENT_TIMESTAMP AT TIME ZONE 'UTC')::DATE + (m || ' month')::INTERVAL)::DATE)
+FROM generate_series(0, 2) AS m;
+
+-- =====================================================
+-- INVENTORY_STOCK_SNAPSHOTS Tablosu
+-- =====================================================
+-- Ürünün movement_seq'e kadarki hareketlerden hesaplanan miktarı; mutabakat sadece sonrasını okur
+CREATE TABLE inventory_stock_snapshots (
+                                           product_id UUID PRIMARY KEY REFERENCES inventories(product_id) ON DELETE CASCADE,
+                                           movement_seq BIGINT NOT NULL,
+                                           total_quantity INTEGER NOT NULL,
+                                           reserved_quantity INTEGER NOT NULL,
+                                           taken_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP
 );
 
 -- =====================================================
@@ -96,13 +189,20 @@ CREATE TABLE outbox_events (
 -- INDEXES
 -- =====================================================
 CREATE INDEX idx_inventories_product ON inventories(product_id);
-CREATE INDEX idx_inventories_sku ON inventories(sku);
+-- Keyset listeleme: (sku, id) sırası ve updated_at delta modu
+CREATE INDEX idx_inventories_sku ON inventories(sku, id);
+CREATE INDEX idx_inventories_updated ON inventories(updated_at, id);
 CREATE INDEX idx_inventories_low_stock ON inventories(available_quantity) WHERE available_quantity <= min_stock_level;
 CREATE INDEX idx_reservations_order ON reservations(order_id);
 CREATE INDEX idx_reservations_status ON reservations(status);
-CREATE INDEX idx_reservations_expires ON reservations(expires_at) WHERE status = 'PENDING';
+CREATE INDEX idx_reservations_expires ON reservations(expires_at, id) WHERE status = 'PENDING';
 CREATE INDEX idx_reservation_items_reservation ON reservation_items(reservation_id);
-CREATE INDEX idx_inventory_movements_product ON inventory_movements(product_id);
+CREATE INDEX idx_warehouse_stocks_warehouse ON warehouse_stocks(warehouse_id);
+-- Ürün geçmişi keyset okuması: (created_at, id) < cursor ORDER BY created_at DESC, id DESC
+CREATE INDEX idx_inventory_movements_product ON inventory_movements(product_id, created_at DESC, id DESC);
+CREATE INDEX idx_inventory_movements_seq ON inventory_movements(product_id, seq);
+CREATE INDEX idx_stock_snapshots_taken ON inventory_stock_snapshots(taken_at);
+CREATE INDEX idx_inventory_movements_reference ON inventory_movements(reference_id) WHERE reference_id IS NOT NULL;
 CREATE INDEX idx_outbox_unpublished ON outbox_events(published, created_at) WHERE published = FALSE;
 
 -- =====================================================
@@ -121,6 +221,11 @@ CREATE TRIGGER update_inventories_updated_at
     FOR EACH ROW
     EXECUTE FUNCTION update_updated_at_column();
 
+CREATE TRIGGER update_warehouses_updated_at
+    BEFORE UPDATE ON warehouses
+    FOR EACH ROW
+    EXECUTE FUNCTION update_updated_at_column();
+
 CREATE TRIGGER update_reservations_updated_at
     BEFORE UPDATE ON reservations
     FOR EACH ROW
@@ -134,4 +239,46 @@ INSERT INTO inventories (product_id, product_name, sku, total_quantity, min_stoc
                                                                                              ('22222222-2222-2222-2222-222222222222', 'Samsung Galaxy S24', 'SAMSUNG-S24', 150, 15),
                                                                                              ('33333333-3333-3333-3333-333333333333', 'MacBook Pro 14"', 'MACBOOK-PRO-14', 50, 5),
                                                                                              ('44444444-4444-4444-4444-444444444444', 'Dell XPS 15', 'DELL-XPS-15', 75, 10),
-                                                                                             ('55555555-5555-5555-5555-555555555555', 'AirPods Pro', 'AIRPODS-PRO', 200, 20);
\ No newline at end of file
+                                                                                             ('55555555-5555-5555-5555-555555555555', 'AirPods Pro', 'AIRPODS-PRO', 200, 20);
+
+-- Örnek stokların açılış hareketleri (createInventory ile aynı); mutabakat defteri bunlardan başlar
+INSERT INTO inventory_movements (product_id, movement_type, quantity, notes)
+SELECT product_id, 'STOCK_IN', total_quantity, 'İlk stok girişi' FROM inventories WHERE total_quantity > 0;
+
+INSERT INTO warehouses (code, name, city, latitude, longitude) VALUES
+                                                                   ('IST-01', 'İstanbul Tuzla Deposu', 'İstanbul', 40.8160, 29.3030),
+                                                                   ('ANK-01', 'Ankara Sincan Deposu', 'Ankara', 39.9680, 32.5810),
+                                                                   ('IZM-01', 'İzmir Kemalpaşa Deposu', 'İzmir', 38.4270, 27.4170);
+
+INSERT INTO city_locations (name, latitude, longitude) VALUES
+                                                           ('istanbul', 41.0082, 28.9784),
+                                                           ('ankara', 39.9334, 32.8597),
+                                                           ('izmir', 38.4237, 27.1428),
+                                                           ('bursa', 40.1885, 29.0610),
+                                                           ('antalya', 36.8969, 30.7133),
+                                                           ('adana', 37.0000, 35.3213),
+                                                           ('konya', 37.8746, 32.4932),
+                                                           ('gaziantep', 37.0662, 37.3833),
+                                                           ('kayseri', 38.7312, 35.4787),
+                                                           ('mersin', 36.8121, 34.6415),
+                                                           ('eskisehir', 39.7767, 30.5206),
+                                                           ('diyarbakir', 37.9144, 40.2306),
+                                                           ('samsun', 41.2928, 36.3313),
+                                                           ('trabzon', 41.0027, 39.7168),
+                                                           ('erzurum', 39.9055, 41.2658),
+                                                           ('kocaeli', 40.8533, 29.8815),
+                                                           ('sakarya', 40.7569, 30.3781),
+                                                           ('denizli', 37.7765, 29.0864),
+                                                           ('malatya', 38.3552, 38.3095),
+                                                           ('van', 38.5012, 43.3730);
+
+-- =====================================================
+-- İŞLENMİŞ KAFKA MESAJLARI (idempotent consumer)
+-- =====================================================
+CREATE TABLE processed_messages (
+                                    message_key VARCHAR(200) PRIMARY KEY,
+                                    topic VARCHAR(100) NOT NULL,
+                                    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages(processed_at);
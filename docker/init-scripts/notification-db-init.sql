@@ -132,4 +132,15 @@ INSERT INTO notification_templates (type, channel, subject, content) VALUES
                                                                          ('ORDER_COMPLETED', 'SMS', NULL, 'Siparişiniz tamamlandı. Sipariş No: #{orderNumber}'),
                                                                          ('ORDER_CANCELLED', 'EMAIL', 'Siparişiniz İptal Edildi - #{orderNumber}', 'Sayın #{customerName}, #{orderNumber} numaralı siparişiniz iptal edilmiştir. İptal nedeni: #{reason}'),
                                                                          ('PAYMENT_SUCCESS', 'EMAIL', 'Ödemeniz Alındı - #{orderNumber}', 'Sayın #{customerName}, #{amount} TL tutarındaki ödemeniz başarıyla alınmıştır.'),
-                                                                         ('PAYMENT_FAILED', 'EMAIL', 'Ödeme Başarısız - #{orderNumber}', 'Sayın #{customerName}, ödemeniz gerçekleştirilemedi. Lütfen tekrar deneyiniz.');
\ No newline at end of file
+                                                                         ('PAYMENT_FAILED', 'EMAIL', 'Ödeme Başarısız - #{orderNumber}', 'Sayın #{customerName}, ödemeniz gerçekleştirilemedi. Lütfen tekrar deneyiniz.');
+
+-- =====================================================
+-- İŞLENMİŞ KAFKA MESAJLARI (idempotent consumer)
+-- =====================================================
+CREATE TABLE processed_messages (
+                                    message_key VARCHAR(200) PRIMARY KEY,
+                                    topic VARCHAR(100) NOT NULL,
+                                    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages(processed_at);
@@ -98,23 +98,66 @@ CREATE TABLE saga_states (
                              status saga_status NOT NULL DEFAULT 'STARTED',
                              current_step VARCHAR(50) NOT NULL,
                              payload JSONB,
+                             retry_count INTEGER NOT NULL DEFAULT 0,
                              started_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                              completed_at TIMESTAMP WITH TIME ZONE,
-                             updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
+                             updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+                             version BIGINT NOT NULL DEFAULT 0
 );
 
 -- =====================================================
 -- OUTBOX_EVENTS Tablosu (Transactional Outbox)
 -- =====================================================
+-- Günlük range partition'lar: yayınlanmış eski günler DELETE yerine DROP/DETACH ile temizlenir
 CREATE TABLE outbox_events (
-                               id UUID PRIMARY KEY DEFAULT gen_random_uuid(),
+                               id UUID NOT NULL DEFAULT gen_random_uuid(),
                                aggregate_type VARCHAR(100) NOT NULL,
                                aggregate_id UUID NOT NULL,
                                event_type VARCHAR(100) NOT NULL,
                                payload JSONB NOT NULL,
-                               created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
+                               created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
                                published_at TIMESTAMP WITH TIME ZONE,
-                               published BOOLEAN NOT NULL DEFAULT FALSE
+                               published BOOLEAN NOT NULL DEFAULT FALSE,
+                               PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+-- Önceden oluşturulmamış bir güne düşen kayıtlar için
+CREATE TABLE outbox_events_default PARTITION OF outbox_events DEFAULT;
+
+-- Arşivlenen (detach edilen) partition'lar buraya taşınır
+CREATE SCHEMA outbox_archive;
+
+-- Verilen gün (UTC) için partition yoksa oluşturur; OutboxPartitionServiceImpl de bunu kullanır
+CREATE OR REPLACE FUNCTION ensure_outbox_partition(p_day DATE)
+RETURNS TEXT AS $$
+DECLARE
+    partition_name TEXT := 'outbox_events_p' || TO_CHAR(p_day, 'YYYYMMDD');
+BEGIN
+    IF to_regclass(partition_name) IS NULL THEN
+        EXECUTE format(
+            'CREATE TABLE %I PARTITION OF outbox_events FOR VALUES FROM (%L) TO (%L)',
+            partition_name,
+            (p_day::TIMESTAMP AT TIME ZONE 'UTC'),
+            ((p_day + 1)::TIMESTAMP AT TIME ZONE 'UTC'));
+    END IF;
+RETURN partition_name;
+END;
+$$ language 'plpgsql';
+
+SELECT ensure_outbox_partition((CURRENT_TIMESTAMP AT TIME ZONE 'UTC')::DATE + d) FROM generate_series(0, 3) AS d;
+
+-- =====================================================
+-- OUTBOX CDC (outbox.relay.mode=cdc)
+-- =====================================================
+-- Sadece INSERT'ler yayınlanır; published işaretlemesi WAL stream'ine düşmez.
+-- Partition'lara yazılan satırlar kök tablo (outbox_events) adıyla gelir.
+CREATE PUBLICATION outbox_publication FOR TABLE outbox_events
+    WITH (publish = 'insert', publish_via_partition_root = true);
+
+CREATE TABLE outbox_cdc_offsets (
+                                    slot_name VARCHAR(100) PRIMARY KEY,
+                                    restart_lsn BIGINT NOT NULL,
+                                    updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP
 );
 
 -- =====================================================
@@ -128,7 +171,11 @@ CREATE INDEX idx_order_items_order ON order_items(order_id);
 CREATE INDEX idx_order_status_history_order ON order_status_history(order_id);
 CREATE INDEX idx_saga_states_order ON saga_states(order_id);
 CREATE INDEX idx_saga_states_status ON saga_states(status);
+CREATE INDEX idx_saga_states_stuck ON saga_states(status, updated_at) WHERE status IN ('INVENTORY_PENDING', 'PAYMENT_PENDING');
 CREATE INDEX idx_outbox_unpublished ON outbox_events(published, created_at) WHERE published = FALSE;
+-- Relay'in shard sorgusu için; modül OutboxEventRepository.SHARD_COUNT ile aynı yazılır
+CREATE INDEX idx_outbox_unpublished_shard ON outbox_events(((hashtext(aggregate_id::text) & 2147483647) % 8), created_at)
+    WHERE published = FALSE;
 
 -- =====================================================
 -- TRIGGERS
@@ -167,4 +214,15 @@ $$ language 'plpgsql';
 CREATE TRIGGER set_order_number
     BEFORE INSERT ON orders
     FOR EACH ROW
-    EXECUTE FUNCTION generate_order_number();
\ No newline at end of file
+    EXECUTE FUNCTION generate_order_number();
+
+-- =====================================================
+-- İŞLENMİŞ KAFKA MESAJLARI (idempotent consumer)
+-- =====================================================
+CREATE TABLE processed_messages (
+                                    message_key VARCHAR(200) PRIMARY KEY,
+                                    topic VARCHAR(100) NOT NULL,
+                                    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages(processed_at);
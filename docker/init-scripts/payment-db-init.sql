@@ -8,7 +8,8 @@ CREATE TYPE payment_status AS ENUM (
     'PROCESSING',
     'COMPLETED',
     'FAILED',
-    'REFUNDED'
+    'REFUNDED',
+    'CANCELLED'
 );
 
 -- Ödeme yöntemleri için enum
@@ -26,7 +27,8 @@ CREATE TYPE failure_reason AS ENUM (
     'EXPIRED_CARD',
     'TIMEOUT',
     'TECHNICAL_ERROR',
-    'FRAUD_SUSPECTED'
+    'FRAUD_SUSPECTED',
+    'COMPENSATED'
 );
 
 -- =====================================================
@@ -144,4 +146,15 @@ CREATE TRIGGER update_payments_updated_at
 CREATE TRIGGER update_refunds_updated_at
     BEFORE UPDATE ON refunds
     FOR EACH ROW
-    EXECUTE FUNCTION update_updated_at_column();
\ No newline at end of file
+    EXECUTE FUNCTION update_updated_at_column();
+
+-- =====================================================
+-- İŞLENMİŞ KAFKA MESAJLARI (idempotent consumer)
+-- =====================================================
+CREATE TABLE processed_messages (
+                                    message_key VARCHAR(200) PRIMARY KEY,
+                                    topic VARCHAR(100) NOT NULL,
+                                    processed_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_processed_messages_processed_at ON processed_messages(processed_at);
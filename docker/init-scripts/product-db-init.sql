@@ -52,6 +52,13 @@ CREATE TABLE products (
                           created_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                           updated_at TIMESTAMP WITH TIME ZONE DEFAULT CURRENT_TIMESTAMP,
                           version BIGINT NOT NULL DEFAULT 0,
+                          -- Tam metin arama: SKU ve ad (A), kısa açıklama (B), açıklama (C) ağırlıklarıyla
+                          search_vector TSVECTOR GENERATED ALWAYS AS (
+                              setweight(to_tsvector('simple', coalesce(sku, '')), 'A') ||
+                              setweight(to_tsvector('turkish', coalesce(name, '')), 'A') ||
+                              setweight(to_tsvector('turkish', coalesce(short_description, '')), 'B') ||
+                              setweight(to_tsvector('turkish', coalesce(description, '')), 'C')
+                          ) STORED,
                           CONSTRAINT chk_price_valid CHECK (list_price IS NULL OR list_price >= price)
 );
 
@@ -77,6 +84,17 @@ CREATE INDEX idx_products_sku ON products(sku);
 CREATE INDEX idx_products_slug ON products(slug);
 CREATE INDEX idx_products_status ON products(status);
 CREATE INDEX idx_products_category ON products(category_id);
+CREATE INDEX idx_products_search ON products USING GIN (search_vector);
+-- Liste ve kategori sayfalarının keyset sayfalaması: izin verilen her sıralama alanı için
+-- (sıralama alanı, id) sırasında okunabilen bir index (varsayılan sıralama: created_at, id)
+CREATE INDEX idx_products_status_created ON products(status, created_at, id);
+CREATE INDEX idx_products_status_updated ON products(status, updated_at, id);
+CREATE INDEX idx_products_status_price ON products(status, price, id);
+CREATE INDEX idx_products_status_name ON products(status, name, id);
+CREATE INDEX idx_products_category_status_created ON products(category_id, status, created_at, id);
+CREATE INDEX idx_products_category_status_updated ON products(category_id, status, updated_at, id);
+CREATE INDEX idx_products_category_status_price ON products(category_id, status, price, id);
+CREATE INDEX idx_products_category_status_name ON products(category_id, status, name, id);
 CREATE INDEX idx_product_images_product ON product_images(product_id);
 
 -- =====================================================
@@ -0,0 +1,31 @@
+package com.ecommerce.inventory.alert;
+
+import com.ecommerce.inventory.event.StockAlertEvent;
+import com.ecommerce.inventory.kafka.InventoryKafkaProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+// Her node kendi consumer group'uyla tüm seviye değişimlerini alır ve düşük stok kümesini günceller
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockAlertKafkaConsumer {
+
+    private final StockLevelTracker stockLevelTracker;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = InventoryKafkaProducer.TOPIC_STOCK_ALERTS,
+            groupId = "inventory-stock-alerts-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void handleStockAlert(ConsumerRecord<String, String> record) {
+        try {
+            stockLevelTracker.apply(objectMapper.readValue(record.value(), StockAlertEvent.class));
+        } catch (Exception e) {
+            log.warn("Stok uyarı event'i işlenemedi: key={}, error={}", record.key(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.ecommerce.inventory.alert;
+
+import com.ecommerce.inventory.dto.response.InventoryResponse;
+import com.ecommerce.inventory.event.InventoryChangedEvent;
+import com.ecommerce.inventory.event.StockAlertEvent;
+import com.ecommerce.inventory.event.StockLevel;
+import com.ecommerce.inventory.kafka.InventoryKafkaProducer;
+import com.ecommerce.inventory.mapper.InventoryMapper;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Düşük / tükenmiş stoktaki ürünleri bellekte tutar ve seviye değişimlerini yayınlar.
+ *
+ * Açılışta bir kez findLowStockItems ile doldurulur; sonrasında sadece commit edilen stok
+ * değişikliklerindeki ürünler (InventoryChangedEvent) tek IN sorgusuyla yeniden değerlendirilir.
+ * Değerlendirme tek bir arka plan thread'inde yapılır, bekleyen ürünler birleştirilir; istek
+ * thread'ine ek sorgu binmez. Seviyesi değişen ürün için inventory-stock-alerts'e event gönderilir,
+ * diğer node'lar bu event'lerle kendi kümelerini günceller.
+ *
+ * Her değerlendirme okumadan önce veritabanı saatini alır ve event'e version olarak koyar. Node'lar
+ * aynı ürünü farklı anlarda okuyup event'leri farklı sırayla yayınlayabilir; ürün için daha yeni bir
+ * version uygulanmışsa eski okuma (yerel ya da uzak) atlanır.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StockLevelTracker {
+
+    private static final String READ_VERSION_SQL =
+            "SELECT (EXTRACT(EPOCH FROM statement_timestamp()) * 1000000)::bigint";
+
+    private final InventoryRepository inventoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final InventoryMapper inventoryMapper;
+    private final InventoryKafkaProducer kafkaProducer;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<UUID, InventoryResponse> lowStockItems = new ConcurrentHashMap<>();
+    // Ürün başına son uygulanan version; lowStockItems bu map'in compute'u içinde değişir
+    private final Map<UUID, Long> versions = new ConcurrentHashMap<>();
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private ExecutorService executor;
+    private volatile boolean loaded;
+
+    @PostConstruct
+    void init() {
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-level-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Gauge.builder("inventory.stock.low", lowStockItems, Map::size)
+                .description("Düşük ya da tükenmiş stoktaki ürün sayısı")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        executor.execute(() -> {
+            long version = readVersion();
+            inventoryRepository.findLowStockItems().forEach(inventory -> {
+                InventoryResponse response = inventoryMapper.toResponse(inventory);
+                update(inventory.getProductId(), version, levelOf(response), response);
+            });
+            loaded = true;
+            log.info("Düşük stok takibi başladı: {} ürün", lowStockItems.size());
+        });
+    }
+
+    @EventListener
+    public void onInventoryChanged(InventoryChangedEvent event) {
+        pending.addAll(event.productIds());
+        executor.execute(this::evaluatePending);
+    }
+
+    // Açılış yüklemesi bitmediyse null; çağıran veritabanına düşer
+    public List<InventoryResponse> getLowStockItems() {
+        return loaded ? new ArrayList<>(lowStockItems.values()) : null;
+    }
+
+    // Diğer node'ların (ve bu node'un) yayınladığı seviye değişimleri
+    public void apply(StockAlertEvent event) {
+        // version'sız (eski sürüm node'undan gelen) event en eski okuma sayılır
+        long version = event.getVersion() != null ? event.getVersion() : 0L;
+        if (!update(event.getProductId(), version, event.getLevel(), event.getInventory())) {
+            log.debug("Eski stok seviyesi event'i atlandı: productId={}, version={}", event.getProductId(), version);
+        }
+    }
+
+    private void evaluatePending() {
+        Set<UUID> productIds = new HashSet<>();
+        for (UUID productId : pending) {
+            pending.remove(productId);
+            productIds.add(productId);
+        }
+        if (productIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            // Okumadan önce alınır: okunan durum en az bu an kadar yenidir
+            long version = readVersion();
+            Map<UUID, InventoryResponse> current = new HashMap<>();
+            inventoryRepository.findByProductIdIn(productIds)
+                    .forEach(inventory -> current.put(inventory.getProductId(), inventoryMapper.toResponse(inventory)));
+
+            for (UUID productId : productIds) {
+                InventoryResponse inventory = current.get(productId);
+                StockLevel level = levelOf(inventory);
+                StockLevel previous = levelOf(lowStockItems.get(productId));
+
+                // Başka bir node daha yeni bir okuma yayınladıysa bu okuma eskidir
+                if (!update(productId, version, level, inventory)) {
+                    continue;
+                }
+                if (level != previous) {
+                    kafkaProducer.sendStockAlertEvent(StockAlertEvent.builder()
+                            .productId(productId)
+                            .level(level)
+                            .previousLevel(previous)
+                            .inventory(inventory)
+                            .version(version)
+                            .timestamp(LocalDateTime.now())
+                            .build());
+                }
+            }
+        } catch (Exception e) {
+            // Bir sonraki değişiklikte yeniden değerlendirilir
+            log.error("Stok seviyesi değerlendirilemedi: {} ürün, error={}", productIds.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ürünün durumunu version en az son uygulanan kadar yeniyse değiştirir.
+     *
+     * @return uygulandıysa true
+     */
+    private boolean update(UUID productId, long version, StockLevel level, InventoryResponse inventory) {
+        boolean[] applied = {false};
+        versions.compute(productId, (id, current) -> {
+            if (current != null && current > version) {
+                return current;
+            }
+            if (level == StockLevel.IN_STOCK) {
+                lowStockItems.remove(id);
+            } else {
+                lowStockItems.put(id, inventory);
+            }
+            applied[0] = true;
+            return version;
+        });
+        return applied[0];
+    }
+
+    private long readVersion() {
+        return jdbcTemplate.queryForObject(READ_VERSION_SQL, Long.class);
+    }
+
+    private StockLevel levelOf(InventoryResponse inventory) {
+        if (inventory == null || !Boolean.TRUE.equals(inventory.getIsActive())) {
+            return StockLevel.IN_STOCK;
+        }
+        if (inventory.getAvailableQuantity() <= 0) {
+            return StockLevel.OUT_OF_STOCK;
+        }
+        return inventory.getAvailableQuantity() <= inventory.getMinStockLevel() ? StockLevel.LOW_STOCK : StockLevel.IN_STOCK;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ecommerce.inventory.cache;
+
+import com.ecommerce.inventory.dto.response.InventoryResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * getByProductId / getBySku için bellek içi, boyutu sınırlı read-through cache.
+ *
+ * Yanıtlar sadece productId ile tutulur; SKU için ayrı bir sku → productId indeksi vardır.
+ * Böylece bir ürün değiştiğinde tek anahtarın silinmesi yeterlidir. Değişiklikler commit'ten sonra
+ * InventoryCacheInvalidator ile bu node'da silinir ve Kafka üzerinden diğer node'lara yayılır;
+ * kısa TTL kaçan bir mesajın etkisini sınırlar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryCache {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.cache.max-size:100000}")
+    private long maxSize;
+
+    @Value("${inventory.cache.ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${inventory.cache.sku-ttl-minutes:30}")
+    private long skuTtlMinutes;
+
+    private Cache<UUID, InventoryResponse> byProductId;
+    private Cache<String, UUID> skuIndex;
+
+    @PostConstruct
+    void init() {
+        byProductId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .recordStats()
+                .build();
+        // SKU → productId eşlemesi stok değişikliklerinden etkilenmez, daha uzun tutulur
+        skuIndex = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(skuTtlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byProductId, "inventory.by-product");
+        CaffeineCacheMetrics.monitor(meterRegistry, skuIndex, "inventory.sku-index");
+    }
+
+    // Loader exception fırlatırsa (ör. kayıt yok) cache'e bir şey yazılmaz
+    public InventoryResponse getByProductId(UUID productId, Function<UUID, InventoryResponse> loader) {
+        return byProductId.get(productId, loader);
+    }
+
+    // Eksik anahtarlar tek loader çağrısıyla yüklenir; loader'ın döndürmediği anahtarlar sonuçta yer almaz
+    public Map<UUID, InventoryResponse> getAllByProductId(Set<UUID> productIds,
+                                                         Function<Set<? extends UUID>, Map<UUID, InventoryResponse>> loader) {
+        return byProductId.getAll(productIds, loader);
+    }
+
+    public Map<String, UUID> getProductIdsBySku(Set<String> skus,
+                                                Function<Set<? extends String>, Map<String, UUID>> loader) {
+        return skuIndex.getAll(skus, loader);
+    }
+
+    public UUID getProductIdBySku(String sku, Function<String, UUID> loader) {
+        return skuIndex.get(sku, loader);
+    }
+
+    public void evict(UUID productId) {
+        byProductId.invalidate(productId);
+    }
+}
@@ -0,0 +1,29 @@
+package com.ecommerce.inventory.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+// Her node kendi consumer group'uyla tüm invalidation mesajlarını alır (broadcast)
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryCacheInvalidationListener {
+
+    private final InventoryCache inventoryCache;
+
+    @KafkaListener(topics = InventoryCacheInvalidator.TOPIC,
+            groupId = "inventory-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void handleInvalidation(ConsumerRecord<String, String> record) {
+        try {
+            inventoryCache.evict(UUID.fromString(record.key()));
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("Geçersiz cache invalidation mesajı: key={}", record.key());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.ecommerce.inventory.cache;
+
+import com.ecommerce.inventory.event.InventoryChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Değişen ürünleri transaction boyunca toplar; commit'ten sonra yerel cache'ten siler ve
+ * inventory-cache-invalidation topic'ine yayınlar. Rollback olursa hiçbir şey silinmez.
+ * Aynı noktada InventoryChangedEvent de yayınlanır (ör. düşük stok takibi için).
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryCacheInvalidator {
+
+    public static final String TOPIC = "inventory-cache-invalidation";
+
+    private final InventoryCache inventoryCache;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void markChanged(UUID productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidate(Set.of(productId));
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ChangedProducts changed) {
+                changed.productIds.add(productId);
+                return;
+            }
+        }
+        ChangedProducts changed = new ChangedProducts();
+        changed.productIds.add(productId);
+        TransactionSynchronizationManager.registerSynchronization(changed);
+    }
+
+    private void invalidate(Set<UUID> productIds) {
+        for (UUID productId : productIds) {
+            inventoryCache.evict(productId);
+            try {
+                // Compacted topic: ürün başına son mesaj yeterli, key = value = productId
+                kafkaTemplate.send(TOPIC, productId.toString(), productId.toString());
+            } catch (Exception e) {
+                // Diğer node'larda kayıt TTL dolunca yenilenir
+                log.warn("Cache invalidation yayınlanamadı: productId={}, error={}", productId, e.getMessage());
+            }
+        }
+        eventPublisher.publishEvent(new InventoryChangedEvent(Set.copyOf(productIds)));
+    }
+
+    private final class ChangedProducts implements TransactionSynchronization {
+
+        private final Set<UUID> productIds = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            invalidate(productIds);
+        }
+    }
+}
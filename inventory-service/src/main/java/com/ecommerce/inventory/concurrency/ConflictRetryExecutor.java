@@ -0,0 +1,111 @@
+package com.ecommerce.inventory.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Geçici kilit çakışmalarında (deadlock, lock timeout, optimistic lock) bir transaction'ı
+ * baştan çalıştırır. Bekleme süresi full jitter ile seçilir: aynı anda çakışan istekler
+ * aynı anda yeniden denemesin diye [0, min(max-delay, base-delay * 2^deneme)] aralığından rastgele.
+ *
+ * action transaction sınırının tamamını kapsamalıdır; açık bir transaction'ın içinden
+ * çağrılırsa geri alınmış transaction yeniden denenemez.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConflictRetryExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.lock-retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${inventory.lock-retry.base-delay-ms:20}")
+    private long baseDelayMs;
+
+    @Value("${inventory.lock-retry.max-delay-ms:500}")
+    private long maxDelayMs;
+
+    private Counter exhaustedCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        exhaustedCounter = Counter.builder("inventory.lock.retry.exhausted")
+                .description("Tüm denemeleri çakışmayla biten işlem sayısı")
+                .register(meterRegistry);
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException e) {
+                String reason = reason(e);
+                Counter.builder("inventory.lock.conflicts")
+                        .description("Yeniden denenen ya da vazgeçilen kilit çakışmaları")
+                        .tag("operation", operation)
+                        .tag("reason", reason)
+                        .register(meterRegistry)
+                        .increment();
+
+                if (attempt >= maxAttempts) {
+                    exhaustedCounter.increment();
+                    log.error("Kilit çakışması {} denemede çözülemedi: {} ({})", attempt, operation, reason);
+                    throw e;
+                }
+
+                long delay = backoff(attempt);
+                log.warn("Kilit çakışması, {} {} ms sonra yeniden denenecek ({}. deneme, {})",
+                        operation, delay, attempt + 1, reason);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private long backoff(int attempt) {
+        long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    // PostgreSQL SQLSTATE'e göre: 40P01 deadlock, 55P03 lock_not_available, 40001 serialization_failure
+    private String reason(ConcurrencyFailureException e) {
+        if (e instanceof OptimisticLockingFailureException) {
+            return "optimistic";
+        }
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException sqlException && sqlException.getSQLState() != null) {
+                return switch (sqlException.getSQLState()) {
+                    case "40P01" -> "deadlock";
+                    case "55P03" -> "lock_timeout";
+                    case "40001" -> "serialization";
+                    default -> "other";
+                };
+            }
+        }
+        return "other";
+    }
+}
@@ -0,0 +1,59 @@
+package com.ecommerce.inventory.config;
+
+import com.ecommerce.inventory.cache.InventoryCacheInvalidator;
+import com.ecommerce.inventory.kafka.InventoryKafkaProducer;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class KafkaConfig {
+
+    // Stok cache'i için ürün bazında son değişiklik; compaction ile her ürünün son mesajı kalır
+    @Bean
+    public NewTopic inventoryCacheInvalidationTopic() {
+        return TopicBuilder.name(InventoryCacheInvalidator.TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    // Düşük / tükenmiş stok seviye değişimleri
+    @Bean
+    public NewTopic stockAlertsTopic() {
+        return TopicBuilder.name(InventoryKafkaProducer.TOPIC_STOCK_ALERTS)
+                .partitions(3)
+                .replicas(1)
+                .build();
+    }
+
+    // inventory.reserve.batch.enabled=true iken rezervasyon istekleri poll başına toplu işlenir
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        return factory;
+    }
+
+    // inventory.ledger.enabled=true iken offset'ler journal veritabanına yazıldıktan sonra onaylanır
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> manualAckKafkaListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        return factory;
+    }
+}
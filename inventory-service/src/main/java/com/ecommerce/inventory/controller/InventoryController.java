@@ -2,13 +2,19 @@ package com.ecommerce.inventory.controller;
 
 import com.ecommerce.inventory.dto.request.*;
 import com.ecommerce.inventory.dto.response.*;
+import com.ecommerce.inventory.service.BulkStockService;
 import com.ecommerce.inventory.service.InventoryService;
+import com.ecommerce.inventory.service.StockReconciliationService;
+import com.ecommerce.inventory.service.WarehouseStockService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,6 +24,9 @@ import java.util.UUID;
 public class InventoryController {
 
     private final InventoryService inventoryService;
+    private final StockReconciliationService stockReconciliationService;
+    private final BulkStockService bulkStockService;
+    private final WarehouseStockService warehouseStockService;
 
     // ==================== INVENTORY CRUD ====================
 
@@ -42,9 +51,15 @@ public class InventoryController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // Sayfalı liste; updatedSince ile sadece değişenler (delta senkronizasyonu)
     @GetMapping
-    public ResponseEntity<ApiResponse<List<InventoryResponse>>> getAllInventories() {
-        List<InventoryResponse> response = inventoryService.getAllInventories();
+    public ResponseEntity<ApiResponse<CursorPageResponse<InventoryResponse>>> listInventories(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @RequestParam(defaultValue = "false") boolean lowStock,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime updatedSince) {
+        CursorPageResponse<InventoryResponse> response =
+                inventoryService.listInventories(cursor, size, lowStock, updatedSince);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
@@ -54,6 +69,14 @@ public class InventoryController {
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 
+    // Sepet / liste sayfaları için tek istekte çok ürünün satılabilir miktarı
+    @PostMapping("/availability")
+    public ResponseEntity<ApiResponse<AvailabilityResponse>> getAvailability(
+            @RequestBody AvailabilityRequest request) {
+        AvailabilityResponse response = inventoryService.getAvailability(request);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
     // ==================== STOCK OPERATIONS ====================
 
     @PostMapping("/product/{productId}/add")
@@ -81,6 +104,76 @@ public class InventoryController {
         return ResponseEntity.ok(ApiResponse.success("Stok düzeltildi", response));
     }
 
+    // Gövde satır satır okunur; hatalı satırlar raporlanır, diğerleri uygulanır
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    public ResponseEntity<ApiResponse<BulkStockResponse>> bulkUpdateCsv(InputStream body) {
+        BulkStockResponse response = bulkStockService.importCsv(body);
+        return ResponseEntity.ok(ApiResponse.success("Toplu stok güncellemesi tamamlandı", response));
+    }
+
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson")
+    public ResponseEntity<ApiResponse<BulkStockResponse>> bulkUpdateNdjson(InputStream body) {
+        BulkStockResponse response = bulkStockService.importNdjson(body);
+        return ResponseEntity.ok(ApiResponse.success("Toplu stok güncellemesi tamamlandı", response));
+    }
+
+    // Çok talep gören ürünlerde stoğu shard'lara böler (count=1 kapatır)
+    @PutMapping("/product/{productId}/shards")
+    public ResponseEntity<ApiResponse<InventoryResponse>> updateShardCount(
+            @PathVariable UUID productId,
+            @RequestParam Integer count) {
+        InventoryResponse response = inventoryService.updateShardCount(productId, count);
+        return ResponseEntity.ok(ApiResponse.success("Stok shard sayısı güncellendi", response));
+    }
+
+    // Stokları hareket defterine göre doğrular; rebuild=true ise farkları düzeltir
+    @PostMapping("/reconcile")
+    public ResponseEntity<ApiResponse<ReconciliationResponse>> reconcile(@RequestBody ReconciliationRequest request) {
+        ReconciliationResponse response = stockReconciliationService.reconcile(request);
+        return ResponseEntity.ok(ApiResponse.success("Stok mutabakatı tamamlandı", response));
+    }
+
+    // ==================== WAREHOUSES ====================
+
+    @PostMapping("/warehouses")
+    public ResponseEntity<ApiResponse<WarehouseResponse>> createWarehouse(
+            @Valid @RequestBody CreateWarehouseRequest request) {
+        WarehouseResponse response = warehouseStockService.createWarehouse(request);
+        return ResponseEntity
+                .status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Depo oluşturuldu", response));
+    }
+
+    @GetMapping("/warehouses")
+    public ResponseEntity<ApiResponse<List<WarehouseResponse>>> getWarehouses() {
+        List<WarehouseResponse> response = warehouseStockService.getWarehouses();
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @GetMapping("/product/{productId}/warehouses")
+    public ResponseEntity<ApiResponse<List<WarehouseStockResponse>>> getWarehouseStocks(@PathVariable UUID productId) {
+        List<WarehouseStockResponse> response = warehouseStockService.getStocks(productId);
+        return ResponseEntity.ok(ApiResponse.success(response));
+    }
+
+    @PostMapping("/warehouses/{warehouseId}/product/{productId}/add")
+    public ResponseEntity<ApiResponse<WarehouseStockResponse>> addWarehouseStock(
+            @PathVariable UUID warehouseId,
+            @PathVariable UUID productId,
+            @Valid @RequestBody StockUpdateRequest request) {
+        WarehouseStockResponse response = warehouseStockService.addStock(warehouseId, productId, request);
+        return ResponseEntity.ok(ApiResponse.success("Depoya stok eklendi", response));
+    }
+
+    @PostMapping("/warehouses/{warehouseId}/product/{productId}/remove")
+    public ResponseEntity<ApiResponse<WarehouseStockResponse>> removeWarehouseStock(
+            @PathVariable UUID warehouseId,
+            @PathVariable UUID productId,
+            @Valid @RequestBody StockUpdateRequest request) {
+        WarehouseStockResponse response = warehouseStockService.removeStock(warehouseId, productId, request);
+        return ResponseEntity.ok(ApiResponse.success("Depodan stok çıkışı yapıldı", response));
+    }
+
     // ==================== RESERVATIONS ====================
 
     @PostMapping("/reservations")
@@ -115,8 +208,12 @@ public class InventoryController {
     // ==================== STOCK MOVEMENTS ====================
 
     @GetMapping("/product/{productId}/movements")
-    public ResponseEntity<ApiResponse<List<StockMovementResponse>>> getMovements(@PathVariable UUID productId) {
-        List<StockMovementResponse> response = inventoryService.getMovementsByProductId(productId);
+    public ResponseEntity<ApiResponse<CursorPageResponse<StockMovementResponse>>> getMovements(
+            @PathVariable UUID productId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        CursorPageResponse<StockMovementResponse> response =
+                inventoryService.getMovementsByProductId(productId, cursor, size);
         return ResponseEntity.ok(ApiResponse.success(response));
     }
 }
\ No newline at end of file
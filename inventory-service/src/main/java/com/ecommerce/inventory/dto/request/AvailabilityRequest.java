@@ -0,0 +1,13 @@
+package com.ecommerce.inventory.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class AvailabilityRequest {
+
+    private List<UUID> productIds;
+    private List<String> skus;
+}
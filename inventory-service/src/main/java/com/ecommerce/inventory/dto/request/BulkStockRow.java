@@ -0,0 +1,27 @@
+package com.ecommerce.inventory.dto.request;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.UUID;
+
+// Toplu stok güncellemesinin bir satırı (CSV sütunları: product_id, sku, operation, quantity, notes)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkStockRow {
+
+    // productId ya da sku'dan biri yeterli
+    private UUID productId;
+    private String sku;
+    private Operation operation;
+    private Integer quantity;
+    private String notes;
+
+    public enum Operation {
+        ADD,
+        REMOVE,
+        SET
+    }
+}
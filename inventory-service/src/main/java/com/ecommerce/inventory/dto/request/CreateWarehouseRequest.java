@@ -0,0 +1,30 @@
+package com.ecommerce.inventory.dto.request;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class CreateWarehouseRequest {
+
+    @NotBlank(message = "Depo kodu boş olamaz")
+    private String code;
+
+    @NotBlank(message = "Depo adı boş olamaz")
+    private String name;
+
+    @NotBlank(message = "Şehir boş olamaz")
+    private String city;
+
+    @NotNull(message = "Enlem boş olamaz")
+    @DecimalMin(value = "-90", message = "Enlem -90 ile 90 arasında olmalı")
+    @DecimalMax(value = "90", message = "Enlem -90 ile 90 arasında olmalı")
+    private Double latitude;
+
+    @NotNull(message = "Boylam boş olamaz")
+    @DecimalMin(value = "-180", message = "Boylam -180 ile 180 arasında olmalı")
+    @DecimalMax(value = "180", message = "Boylam -180 ile 180 arasında olmalı")
+    private Double longitude;
+}
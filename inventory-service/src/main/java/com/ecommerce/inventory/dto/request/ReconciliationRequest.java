@@ -0,0 +1,16 @@
+package com.ecommerce.inventory.dto.request;
+
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class ReconciliationRequest {
+
+    // Boşsa tüm aktif ürünler kontrol edilir
+    private List<UUID> productIds;
+
+    // true: farklı çıkan ürünlerde stok hareketlerden hesaplanan değere çekilir
+    private boolean rebuild;
+}
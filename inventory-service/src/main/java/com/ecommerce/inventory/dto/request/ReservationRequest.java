@@ -17,4 +17,7 @@ public class ReservationRequest {
     private List<ReservationItemRequest> items;
 
     private Integer expirationMinutes = 15;
+
+    // Verilirse stok yakın depolardan ayrılır
+    private String shippingCity;
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+package com.ecommerce.inventory.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Anahtar → satılabilir miktar; bulunamayanlar notFound'da döner
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_EMPTY)
+public class AvailabilityResponse {
+
+    private Map<UUID, Integer> products;
+    private Map<String, Integer> skus;
+    private List<String> notFound;
+}
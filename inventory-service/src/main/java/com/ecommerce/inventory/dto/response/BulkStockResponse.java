@@ -0,0 +1,20 @@
+package com.ecommerce.inventory.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class BulkStockResponse {
+
+    private long processed;
+    private long applied;
+    private long failed;
+    private long durationMs;
+    private double rowsPerSecond;
+    private List<BulkStockRowError> errors;
+    // Hata listesi max-errors ile sınırlıdır; true ise sadece ilk hatalar döner
+    private boolean errorsTruncated;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.inventory.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkStockRowError {
+
+    private long line;
+    private UUID productId;
+    private String sku;
+    private String message;
+}
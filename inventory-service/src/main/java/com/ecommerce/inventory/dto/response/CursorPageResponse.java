@@ -0,0 +1,18 @@
+package com.ecommerce.inventory.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+    // Sonraki sayfa için ?cursor= ile gönderilir; son sayfada null
+    private String nextCursor;
+    private boolean hasMore;
+}
@@ -1,13 +1,17 @@
 package com.ecommerce.inventory.dto.response;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class InventoryResponse {
 
     private UUID id;
@@ -18,6 +22,7 @@ public class InventoryResponse {
     private Integer reservedQuantity;
     private Integer availableQuantity;
     private Integer minStockLevel;
+    private Integer shardCount;
     private Boolean isLowStock;
     private Boolean isActive;
     private LocalDateTime createdAt;
@@ -0,0 +1,20 @@
+package com.ecommerce.inventory.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class ProductReconciliationResponse {
+
+    private UUID productId;
+    private Integer expectedTotalQuantity;
+    private Integer actualTotalQuantity;
+    private Integer expectedReservedQuantity;
+    private Integer actualReservedQuantity;
+    private Long snapshotSeq;
+    private Long movementsReplayed;
+    private boolean rebuilt;
+}
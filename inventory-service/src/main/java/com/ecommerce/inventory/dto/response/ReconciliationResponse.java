@@ -0,0 +1,18 @@
+package com.ecommerce.inventory.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class ReconciliationResponse {
+
+    private int checked;
+    private int mismatched;
+    private int rebuilt;
+    private int failed;
+    private long movementsReplayed;
+    private List<ProductReconciliationResponse> mismatches;
+}
@@ -11,5 +11,6 @@ public class ReservationItemResponse {
 
     private UUID id;
     private UUID productId;
+    private UUID warehouseId;
     private Integer quantity;
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.ecommerce.inventory.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+public class WarehouseResponse {
+
+    private UUID id;
+    private String code;
+    private String name;
+    private String city;
+    private Double latitude;
+    private Double longitude;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,18 @@
+package com.ecommerce.inventory.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class WarehouseStockResponse {
+
+    private UUID productId;
+    private UUID warehouseId;
+    private String warehouseCode;
+    private Integer totalQuantity;
+    private Integer reservedQuantity;
+    private Integer availableQuantity;
+}
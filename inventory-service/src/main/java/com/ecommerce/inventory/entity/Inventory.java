@@ -3,6 +3,7 @@ package com.ecommerce.inventory.entity;
 import jakarta.persistence.*;
 import lombok.*;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Formula;
 import org.hibernate.annotations.UpdateTimestamp;
 
 import java.time.LocalDateTime;
@@ -38,6 +39,41 @@ public class Inventory {
     @Builder.Default
     private Integer reservedQuantity = 0;
 
+    // 1'den büyükse stok inventory_stock_shards satırlarına bölünmüştür
+    @Column(name = "shard_count", nullable = false)
+    @Builder.Default
+    private Integer shardCount = 1;
+
+    // Shard'lardaki miktarlar; sharded olmayan üründe alt sorgu çalışmaz
+    @Formula("(CASE WHEN shard_count > 1 THEN (SELECT COALESCE(SUM(s.total_quantity), 0) " +
+            "FROM inventory_stock_shards s WHERE s.product_id = product_id) ELSE 0 END)")
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private Integer shardTotalQuantity = 0;
+
+    @Formula("(CASE WHEN shard_count > 1 THEN (SELECT COALESCE(SUM(s.reserved_quantity), 0) " +
+            "FROM inventory_stock_shards s WHERE s.product_id = product_id) ELSE 0 END)")
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private Integer shardReservedQuantity = 0;
+
+    // Ürünün warehouse_stocks satırı varsa true; değilse depo alt sorguları çalışmaz
+    @Column(name = "warehouse_stocked", nullable = false)
+    @Builder.Default
+    private Boolean warehouseStocked = false;
+
+    @Formula("(CASE WHEN warehouse_stocked THEN (SELECT COALESCE(SUM(w.total_quantity), 0) " +
+            "FROM warehouse_stocks w WHERE w.product_id = product_id) ELSE 0 END)")
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private Integer warehouseTotalQuantity = 0;
+
+    @Formula("(CASE WHEN warehouse_stocked THEN (SELECT COALESCE(SUM(w.reserved_quantity), 0) " +
+            "FROM warehouse_stocks w WHERE w.product_id = product_id) ELSE 0 END)")
+    @Setter(AccessLevel.NONE)
+    @Builder.Default
+    private Integer warehouseReservedQuantity = 0;
+
     @Column(name = "min_stock_level", nullable = false)
     @Builder.Default
     private Integer minStockLevel = 10;
@@ -58,9 +94,34 @@ public class Inventory {
     @Builder.Default
     private Long version = 0L;
 
+    public boolean isSharded() {
+        return shardCount != null && shardCount > 1;
+    }
+
+    public boolean isWarehouseStocked() {
+        return Boolean.TRUE.equals(warehouseStocked);
+    }
+
+    // Ana satır + shard'lar + depolar
+    public Integer getTotalStock() {
+        return totalQuantity + (shardTotalQuantity != null ? shardTotalQuantity : 0)
+                + (warehouseTotalQuantity != null ? warehouseTotalQuantity : 0);
+    }
+
+    public Integer getReservedStock() {
+        return reservedQuantity + (shardReservedQuantity != null ? shardReservedQuantity : 0)
+                + (warehouseReservedQuantity != null ? warehouseReservedQuantity : 0);
+    }
+
+    // Depoya atanmamış stok (ana satır + shard'lar); ürün bazlı stok işlemleri buradan yapılır
+    public Integer getCentralAvailableQuantity() {
+        return totalQuantity + (shardTotalQuantity != null ? shardTotalQuantity : 0)
+                - reservedQuantity - (shardReservedQuantity != null ? shardReservedQuantity : 0);
+    }
+
     // Hesaplanmış alan - available = total - reserved
     public Integer getAvailableQuantity() {
-        return totalQuantity - reservedQuantity;
+        return getTotalStock() - getReservedStock();
     }
 
     public boolean isLowStock() {
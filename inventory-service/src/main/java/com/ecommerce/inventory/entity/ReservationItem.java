@@ -27,6 +27,10 @@ public class ReservationItem {
     @Column(name = "product_id", nullable = false)
     private UUID productId;
 
+    // null: ana stoktan ayrıldı
+    @Column(name = "warehouse_id")
+    private UUID warehouseId;
+
     @Column(nullable = false)
     private Integer quantity;
 
@@ -0,0 +1,8 @@
+package com.ecommerce.inventory.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Uygulama içi event: stok satırları değişen ürünler, commit'ten sonra yayınlanır
+public record InventoryChangedEvent(Set<UUID> productIds) {
+}
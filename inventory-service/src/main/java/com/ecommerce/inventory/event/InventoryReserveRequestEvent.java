@@ -16,6 +16,7 @@ public class InventoryReserveRequestEvent {
 
     private UUID orderId;
     private List<OrderItemEvent> items;
+    private String shippingCity;
 
     @Data
     @Builder
@@ -0,0 +1,26 @@
+package com.ecommerce.inventory.event;
+
+import com.ecommerce.inventory.dto.response.InventoryResponse;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Ürünün stok seviyesi değiştiğinde (ör. IN_STOCK -> LOW_STOCK) inventory-stock-alerts'e yayınlanır
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StockAlertEvent {
+
+    private UUID productId;
+    private StockLevel level;
+    private StockLevel previousLevel;
+    private InventoryResponse inventory;
+    // Stoğun okunduğu an (veritabanı saati, epoch mikrosaniye); node'lar eski okumayı yenisinin üzerine yazmaz
+    private Long version;
+    private LocalDateTime timestamp;
+}
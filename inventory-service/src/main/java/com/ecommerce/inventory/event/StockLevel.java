@@ -0,0 +1,7 @@
+package com.ecommerce.inventory.event;
+
+public enum StockLevel {
+    IN_STOCK,
+    LOW_STOCK,
+    OUT_OF_STOCK
+}
@@ -0,0 +1,274 @@
+package com.ecommerce.inventory.expiry;
+
+import com.ecommerce.inventory.entity.MovementType;
+import com.ecommerce.inventory.service.MovementJournalService;
+import com.ecommerce.inventory.service.StockShardService;
+import com.ecommerce.inventory.service.WarehouseStockService;
+import com.ecommerce.inventory.warehouse.AllocationPlan;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PENDING rezervasyonları süreleri dolduğunda EXPIRED yapıp stoklarını serbest bırakır.
+ *
+ * Açılışta bekleyen rezervasyonlar idx_reservations_expires üzerinden keyset ile okunup
+ * zamanlama çarkına konur; yeni rezervasyonlar commit'ten sonra schedule ile eklenir.
+ * Süresi dolanlar batch'ler halinde tek UPDATE ile işaretlenir. UPDATE status ve expires_at'i
+ * yeniden kontrol ettiği için onaylanmış/iptal edilmiş kayıtlar atlanır ve birden fazla
+ * instance aynı rezervasyonu iki kez serbest bırakamaz. İşlenemeyen batch çarka retry-delay-ms
+ * sonrası için geri konur.
+ *
+ * Çark epoch milisaniyesiyle çalışır. Veritabanından okunan süreler timestamptz olduğu için saat
+ * diliminden bağımsızdır; servisten gelen LocalDateTime'lar yazıldıkları saat dilimiyle (zone-id)
+ * çevrilir. Süre kontrolüne de çarkın saati offset'iyle birlikte verilir.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationExpiryScheduler implements SmartLifecycle {
+
+    private static final String EXPIRE_REASON = "Rezervasyon süresi doldu";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockShardService stockShardService;
+    private final WarehouseStockService warehouseStockService;
+    private final MovementJournalService movementJournalService;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.reservation-expiry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${inventory.reservation-expiry.tick-ms:100}")
+    private long tickMs;
+
+    @Value("${inventory.reservation-expiry.wheel-size:512}")
+    private int wheelSize;
+
+    // 100 ms * 512^3 ~ 155 gün; daha uzak süreler en üst seviyede döner
+    @Value("${inventory.reservation-expiry.levels:4}")
+    private int levelCount;
+
+    @Value("${inventory.reservation-expiry.batch-size:500}")
+    private int batchSize;
+
+    @Value("${inventory.reservation-expiry.load-page-size:10000}")
+    private int loadPageSize;
+
+    @Value("${inventory.reservation-expiry.retry-delay-ms:5000}")
+    private long retryDelayMs;
+
+    // Rezervasyon sürelerinin (LocalDateTime) üretilip yazıldığı saat dilimi; boşsa JVM'inki
+    @Value("${inventory.reservation-expiry.zone-id:}")
+    private String zoneId;
+
+    private Clock clock;
+
+    private TimingWheel wheel;
+    private final List<UUID> due = new ArrayList<>();
+    private ScheduledExecutorService executor;
+    private Counter expiredCounter;
+    private volatile boolean running;
+
+    // Commit sonrası çağrılır
+    public void schedule(UUID reservationId, LocalDateTime expiresAt) {
+        if (!running) {
+            return;
+        }
+        scheduleAt(reservationId, toEpochMs(expiresAt));
+    }
+
+    private synchronized void scheduleAt(UUID reservationId, long deadlineMs) {
+        if (!wheel.add(reservationId, deadlineMs)) {
+            due.add(reservationId);
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        clock = zoneId.isBlank() ? Clock.systemDefaultZone() : Clock.system(ZoneId.of(zoneId));
+        wheel = new TimingWheel(tickMs, wheelSize, levelCount, clock.millis());
+        expiredCounter = Counter.builder("inventory.reservations.expired")
+                .description("Süresi dolduğu için serbest bırakılan rezervasyon sayısı")
+                .register(meterRegistry);
+        Gauge.builder("inventory.reservations.scheduled", this, scheduler -> scheduler.scheduledCount())
+                .description("Zamanlama çarkında bekleyen rezervasyon sayısı")
+                .register(meterRegistry);
+
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        running = true;
+        executor.execute(this::loadPendingReservations);
+        executor.scheduleWithFixedDelay(this::tick, tickMs, tickMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void loadPendingReservations() {
+        Timestamp lastExpiresAt = new Timestamp(0);
+        UUID lastId = new UUID(0, 0);
+        long loaded = 0;
+
+        while (running) {
+            List<Map<String, Object>> page = namedParameterJdbcTemplate.queryForList(
+                    "SELECT id, expires_at FROM reservations " +
+                            "WHERE status = 'PENDING' AND (expires_at, id) > (:lastExpiresAt, :lastId) " +
+                            "ORDER BY expires_at, id LIMIT :limit",
+                    new MapSqlParameterSource()
+                            .addValue("lastExpiresAt", lastExpiresAt)
+                            .addValue("lastId", lastId)
+                            .addValue("limit", loadPageSize));
+            if (page.isEmpty()) {
+                break;
+            }
+            for (Map<String, Object> row : page) {
+                lastId = (UUID) row.get("id");
+                lastExpiresAt = (Timestamp) row.get("expires_at");
+                scheduleAt(lastId, lastExpiresAt.getTime());
+            }
+            loaded += page.size();
+        }
+        log.info("Bekleyen {} rezervasyon süre takibine alındı", loaded);
+    }
+
+    private void tick() {
+        try {
+            List<UUID> expired;
+            synchronized (this) {
+                wheel.advanceTo(clock.millis(), due::add);
+                if (due.isEmpty()) {
+                    return;
+                }
+                expired = new ArrayList<>(due);
+                due.clear();
+            }
+
+            for (int from = 0; from < expired.size(); from += batchSize) {
+                List<UUID> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+                try {
+                    Integer released = transactionTemplate.execute(status -> expireBatch(batch));
+                    expiredCounter.increment(released != null ? released : 0);
+                } catch (Exception e) {
+                    log.error("Süresi dolan {} rezervasyon işlenemedi, {} ms sonra yeniden denenecek: {}",
+                            batch.size(), retryDelayMs, e.getMessage(), e);
+                    retryLater(batch);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Rezervasyon süre kontrolü başarısız: {}", e.getMessage(), e);
+        }
+    }
+
+    // Çark bu kayıtları geçti; geri konmazlarsa ancak bir sonraki açılışta yeniden yüklenirlerdi
+    private synchronized void retryLater(List<UUID> reservationIds) {
+        long retryAt = clock.millis() + retryDelayMs;
+        reservationIds.forEach(reservationId -> scheduleAt(reservationId, retryAt));
+    }
+
+    private int expireBatch(List<UUID> reservationIds) {
+        List<UUID> expired = namedParameterJdbcTemplate.queryForList(
+                "UPDATE reservations SET status = 'EXPIRED', released_at = :now, release_reason = :reason " +
+                        "WHERE id IN (:ids) AND status = 'PENDING' AND expires_at <= :now RETURNING id",
+                new MapSqlParameterSource()
+                        .addValue("ids", reservationIds)
+                        .addValue("now", OffsetDateTime.now(clock))
+                        .addValue("reason", EXPIRE_REASON),
+                UUID.class);
+        if (expired.isEmpty()) {
+            return 0;
+        }
+
+        List<Map<String, Object>> items = namedParameterJdbcTemplate.queryForList(
+                "SELECT ri.reservation_id, ri.product_id, ri.warehouse_id, ri.quantity, i.shard_count " +
+                        "FROM reservation_items ri JOIN inventories i ON i.product_id = ri.product_id " +
+                        "WHERE ri.reservation_id IN (:ids)",
+                Map.of("ids", expired));
+
+        Map<UUID, Integer> released = new HashMap<>();
+        List<AllocationPlan.Allocation> releasedFromWarehouses = new ArrayList<>();
+        for (Map<String, Object> item : items) {
+            UUID productId = (UUID) item.get("product_id");
+            int quantity = ((Number) item.get("quantity")).intValue();
+            if (item.get("warehouse_id") != null) {
+                releasedFromWarehouses.add(new AllocationPlan.Allocation(productId, (UUID) item.get("warehouse_id"), quantity));
+            } else if (((Number) item.get("shard_count")).intValue() > 1) {
+                stockShardService.release(productId, quantity);
+            } else {
+                released.merge(productId, quantity, Integer::sum);
+            }
+            movementJournalService.append(productId, MovementType.RESERVATION_CANCEL, quantity,
+                    (UUID) item.get("reservation_id"), "RESERVATION", EXPIRE_REASON);
+        }
+
+        if (!released.isEmpty()) {
+            // Rezervasyon yollarıyla aynı kilit sırası
+            namedParameterJdbcTemplate.queryForList("SELECT id FROM inventories WHERE product_id IN (:productIds) " +
+                    "ORDER BY product_id FOR UPDATE", Map.of("productIds", released.keySet()), UUID.class);
+            namedParameterJdbcTemplate.batchUpdate("UPDATE inventories SET reserved_quantity = reserved_quantity - :quantity, " +
+                            "version = version + 1 WHERE product_id = :productId",
+                    released.entrySet().stream()
+                            .map(entry -> new MapSqlParameterSource()
+                                    .addValue("productId", entry.getKey())
+                                    .addValue("quantity", entry.getValue()))
+                            .toArray(MapSqlParameterSource[]::new));
+        }
+        // Depo satırları en son, (product_id, warehouse_id) sırasıyla
+        releasedFromWarehouses.stream()
+                .sorted(Comparator.comparing(AllocationPlan.Allocation::productId)
+                        .thenComparing(AllocationPlan.Allocation::warehouseId))
+                .forEach(allocation -> warehouseStockService.release(
+                        allocation.productId(), allocation.warehouseId(), allocation.quantity()));
+
+        log.info("Süresi dolan {} rezervasyon serbest bırakıldı", expired.size());
+        return expired.size();
+    }
+
+    private synchronized long scheduledCount() {
+        return wheel.size() + due.size();
+    }
+
+    private long toEpochMs(LocalDateTime time) {
+        return time.atZone(clock.getZone()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,123 @@
+package com.ecommerce.inventory.expiry;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Hiyerarşik zamanlama çarkı. Seviye i'nin bir adımı tickMs * wheelSize^i'dir; kayıtlar
+ * bitiş zamanlarına göre en alt uygun seviyeye konur, üst seviyenin yuvası geldiğinde
+ * bir alt seviyeye indirilir. Ekleme ve her adım O(1); tarama veya sıralama yoktur.
+ *
+ * Kimlikler nesne yerine iki long olarak saklanır, milyonlarca kayıt için bellek düşük kalır.
+ * Thread-safe değildir, çağıran taraf senkronize eder.
+ */
+final class TimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final Bucket[][] levels;
+    private long currentTime;
+    private long size;
+
+    TimingWheel(long tickMs, int wheelSize, int levelCount, long startMs) {
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = new Bucket[levelCount][wheelSize];
+        for (Bucket[] level : levels) {
+            for (int i = 0; i < wheelSize; i++) {
+                level[i] = new Bucket();
+            }
+        }
+        this.currentTime = startMs - (startMs % tickMs);
+    }
+
+    /**
+     * @return zamanı zaten geçmişse false (çağıran hemen işlemeli)
+     */
+    boolean add(UUID id, long deadlineMs) {
+        if (deadlineMs < currentTime) {
+            return false;
+        }
+        long levelTick = tickMs;
+        for (int level = 0; level < levels.length; level++) {
+            boolean lastLevel = level == levels.length - 1;
+            if (deadlineMs - currentTime < levelTick * wheelSize || lastLevel) {
+                // Çarkın kapsamından uzak kayıtlar en üst seviyede döner, her turda yeniden yerleşir
+                levels[level][(int) ((deadlineMs / levelTick) % wheelSize)]
+                        .add(id.getMostSignificantBits(), id.getLeastSignificantBits(), deadlineMs);
+                size++;
+                return true;
+            }
+            levelTick *= wheelSize;
+        }
+        return false;
+    }
+
+    /**
+     * Çarkı nowMs'e kadar ilerletir; süresi dolan kimlikleri expired'a verir.
+     */
+    void advanceTo(long nowMs, Consumer<UUID> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            // Biten [currentTime, currentTime + tickMs) aralığının kayıtları
+            drain(levels[0][(int) ((currentTime / tickMs) % wheelSize)], (id, deadline) -> expired.accept(id));
+            currentTime += tickMs;
+
+            // Sınırına gelinen üst seviye yuvaları bir alt seviyeye iner
+            long levelTick = tickMs * wheelSize;
+            for (int level = 1; level < levels.length && currentTime % levelTick == 0; level++) {
+                drain(levels[level][(int) ((currentTime / levelTick) % wheelSize)], (id, deadline) -> {
+                    if (!add(id, deadline)) {
+                        expired.accept(id);
+                    }
+                });
+                levelTick *= wheelSize;
+            }
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    private void drain(Bucket bucket, EntryConsumer consumer) {
+        if (bucket.count == 0) {
+            return;
+        }
+        long[] entries = bucket.entries;
+        int count = bucket.count;
+        bucket.clear();
+        size -= count;
+        for (int i = 0; i < count; i++) {
+            consumer.accept(new UUID(entries[i * 3], entries[i * 3 + 1]), entries[i * 3 + 2]);
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        void accept(UUID id, long deadlineMs);
+    }
+
+    // msb, lsb, deadline üçlüleri
+    private static final class Bucket {
+        private static final long[] EMPTY = new long[0];
+
+        private long[] entries = EMPTY;
+        private int count;
+
+        void add(long msb, long lsb, long deadlineMs) {
+            if ((count + 1) * 3 > entries.length) {
+                entries = Arrays.copyOf(entries, Math.max(12, entries.length * 2));
+            }
+            entries[count * 3] = msb;
+            entries[count * 3 + 1] = lsb;
+            entries[count * 3 + 2] = deadlineMs;
+            count++;
+        }
+
+        void clear() {
+            entries = EMPTY;
+            count = 0;
+        }
+    }
+}
@@ -1,14 +1,20 @@
 package com.ecommerce.inventory.kafka;
 
+import com.ecommerce.inventory.concurrency.ConflictRetryExecutor;
 import com.ecommerce.inventory.event.InventoryReleaseRequestEvent;
 import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
 import com.ecommerce.inventory.service.InventoryService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 @Slf4j
@@ -16,24 +22,78 @@ public class InventoryKafkaConsumer {
 
     private final InventoryService inventoryService;
     private final ObjectMapper objectMapper;
+    private final IdempotentMessageHandler idempotentMessageHandler;
+    private final ConflictRetryExecutor conflictRetryExecutor;
 
-    @KafkaListener(topics = "inventory-reserve-request", groupId = "inventory-service")
-    public void handleReserveRequest(String message) {
+    // Toplu mod ya da ledger modu açıkken bu listener başlamaz
+    @KafkaListener(topics = "inventory-reserve-request", groupId = "inventory-service",
+            autoStartup = "#{!${inventory.reserve.batch.enabled:false} && !${inventory.ledger.enabled:false}}")
+    public void handleReserveRequest(ConsumerRecord<String, String> record) {
+        InventoryReserveRequestEvent event;
         try {
-            log.info("Stok rezervasyon isteği alındı: {}", message);
-            InventoryReserveRequestEvent event = objectMapper.readValue(message, InventoryReserveRequestEvent.class);
-            inventoryService.reserveInventoryForOrder(event);
+            log.info("Stok rezervasyon isteği alındı: {}", record.value());
+            event = objectMapper.readValue(record.value(), InventoryReserveRequestEvent.class);
         } catch (Exception e) {
+            log.error("Stok rezervasyon isteği okunamadı: {}", e.getMessage(), e);
+            return;
+        }
+
+        try {
+            // Kilit çakışmasında işaretleme dahil tüm transaction yeniden denenir
+            conflictRetryExecutor.execute("reserveInventoryForOrder", () -> idempotentMessageHandler.handle(record,
+                    message -> inventoryService.reserveInventoryForOrder(event)));
+        } catch (ConcurrencyFailureException e) {
+            // Mesaj işaretlenmedi; tekrar geldiğinde yeniden denenir
             log.error("Stok rezervasyon isteği işlenemedi: {}", e.getMessage(), e);
+        } catch (Exception e) {
+            rejectReservation(record, event, e);
+        }
+    }
+
+    /**
+     * Rezervasyon transaction'ı geri alındıktan sonra mesaj işareti ve başarısızlık sonucu ayrı bir
+     * transaction'da yazılır: mesaj tekrar gelirse stok ayrılmaz, sipariş bir kez bilgilendirilir.
+     */
+    private void rejectReservation(ConsumerRecord<String, String> record, InventoryReserveRequestEvent event,
+                                   Exception failure) {
+        try {
+            idempotentMessageHandler.handle(record, message -> inventoryService.rejectReservation(
+                    event.getOrderId(), "Sistem hatası: " + failure.getMessage()));
+        } catch (Exception e) {
+            log.error("Rezervasyon başarısızlığı kaydedilemedi: orderId={}, error={}",
+                    event.getOrderId(), e.getMessage(), e);
+        }
+    }
+
+    @KafkaListener(topics = "inventory-reserve-request", groupId = "inventory-service",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "#{${inventory.reserve.batch.enabled:false} && !${inventory.ledger.enabled:false}}",
+            properties = "max.poll.records=${inventory.reserve.batch.max-size:200}")
+    public void handleReserveRequests(List<ConsumerRecord<String, String>> records) {
+        try {
+            log.info("Toplu stok rezervasyon isteği alındı: {} mesaj", records.size());
+            conflictRetryExecutor.run("reserveInventoryForOrders", () -> idempotentMessageHandler.handleBatch(records, messages -> {
+                List<InventoryReserveRequestEvent> events = new ArrayList<>(messages.size());
+                for (String message : messages) {
+                    events.add(objectMapper.readValue(message, InventoryReserveRequestEvent.class));
+                }
+                inventoryService.reserveInventoryForOrders(events);
+            }));
+        } catch (Exception e) {
+            // Batch geri alındı; hatalı mesajı ayırmak için istekler tek tek işlenir
+            log.error("Toplu stok rezervasyonu başarısız, mesajlar tek tek işlenecek: {}", e.getMessage(), e);
+            records.forEach(this::handleReserveRequest);
         }
     }
 
     @KafkaListener(topics = "inventory-release-request", groupId = "inventory-service")
-    public void handleReleaseRequest(String message) {
+    public void handleReleaseRequest(ConsumerRecord<String, String> record) {
         try {
-            log.info("Stok serbest bırakma isteği alındı: {}", message);
-            InventoryReleaseRequestEvent event = objectMapper.readValue(message, InventoryReleaseRequestEvent.class);
-            inventoryService.releaseInventoryForOrder(event.getOrderId(), event.getReason());
+            log.info("Stok serbest bırakma isteği alındı: {}", record.value());
+            conflictRetryExecutor.execute("releaseInventoryForOrder", () -> idempotentMessageHandler.handle(record, message -> {
+                InventoryReleaseRequestEvent event = objectMapper.readValue(message, InventoryReleaseRequestEvent.class);
+                inventoryService.releaseInventoryForOrder(event.getOrderId(), event.getReason());
+            }));
         } catch (Exception e) {
             log.error("Stok serbest bırakma isteği işlenemedi: {}", e.getMessage(), e);
         }
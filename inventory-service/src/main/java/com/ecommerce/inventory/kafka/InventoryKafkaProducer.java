@@ -1,6 +1,7 @@
 package com.ecommerce.inventory.kafka;
 
 import com.ecommerce.inventory.event.InventoryReservedEvent;
+import com.ecommerce.inventory.event.StockAlertEvent;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
@@ -17,6 +18,7 @@ public class InventoryKafkaProducer {
     private final ObjectMapper objectMapper;
 
     private static final String TOPIC_INVENTORY_RESERVED = "inventory-reserved";
+    public static final String TOPIC_STOCK_ALERTS = "inventory-stock-alerts";
 
     public void sendInventoryReservedEvent(InventoryReservedEvent event) {
         try {
@@ -28,4 +30,15 @@ public class InventoryKafkaProducer {
             log.error("Event JSON'a çevrilemedi: {}", e.getMessage());
         }
     }
+
+    public void sendStockAlertEvent(StockAlertEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            kafkaTemplate.send(TOPIC_STOCK_ALERTS, event.getProductId().toString(), payload);
+            log.info("Stok seviyesi değişti: productId={}, {} -> {}",
+                    event.getProductId(), event.getPreviousLevel(), event.getLevel());
+        } catch (JsonProcessingException e) {
+            log.error("Event JSON'a çevrilemedi: {}", e.getMessage());
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.ecommerce.inventory.ledger;
+
+import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
+import com.ecommerce.inventory.event.InventoryReservedEvent;
+import com.ecommerce.inventory.kafka.IdempotentMessageHandler;
+import com.ecommerce.inventory.kafka.InventoryKafkaProducer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * Ledger modunda rezervasyon istekleri: karar bellekte verilir, kabul edilenler journal'a
+ * eklenir. Yetersiz stok cevabı hemen gönderilir; başarılı cevap journal yazıldıktan sonra gider.
+ * Daha önce yazılmış ya da kuyrukta bekleyen bir isteğin tekrarı ledger'a dokunmadan onaylanır.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class LedgerKafkaConsumer {
+
+    private final StockLedger stockLedger;
+    private final ReservationJournal reservationJournal;
+    private final InventoryKafkaProducer kafkaProducer;
+    private final IdempotentMessageHandler idempotentMessageHandler;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = "inventory-reserve-request", groupId = "inventory-service",
+            containerFactory = "manualAckKafkaListenerContainerFactory")
+    public void handleReserveRequest(ConsumerRecord<String, String> record, Acknowledgment acknowledgment)
+            throws InterruptedException {
+        InventoryReserveRequestEvent event;
+        try {
+            event = objectMapper.readValue(record.value(), InventoryReserveRequestEvent.class);
+        } catch (Exception e) {
+            log.error("Stok rezervasyon isteği okunamadı: {}", e.getMessage());
+            reservationJournal.append(record.partition(), new ReservationJournal.Entry(record, null, acknowledgment));
+            return;
+        }
+
+        // Sonucu ilk teslimat yayınladı (ya da flush'ı yayınlayacak); stok ikinci kez ayrılmaz
+        String messageKey = idempotentMessageHandler.messageKey(record);
+        if (!reservationJournal.claim(messageKey)) {
+            log.info("Tekrar rezervasyon isteği atlandı (kuyrukta): orderId={}", event.getOrderId());
+            reservationJournal.append(record.partition(), new ReservationJournal.Entry(record, null, acknowledgment));
+            return;
+        }
+        if (idempotentMessageHandler.isProcessed(record)) {
+            reservationJournal.unclaim(messageKey);
+            log.info("Tekrar rezervasyon isteği atlandı: orderId={}", event.getOrderId());
+            reservationJournal.append(record.partition(), new ReservationJournal.Entry(record, null, acknowledgment));
+            return;
+        }
+
+        InventoryReserveRequestEvent.OrderItemEvent shortage = stockLedger.tryReserve(event);
+        if (shortage == null) {
+            reservationJournal.append(record.partition(), new ReservationJournal.Entry(record, event, acknowledgment));
+            return;
+        }
+        reservationJournal.unclaim(messageKey);
+
+        kafkaProducer.sendInventoryReservedEvent(InventoryReservedEvent.builder()
+                .orderId(event.getOrderId())
+                .success(false)
+                .failureReason("Yetersiz stok: " + shortage.getProductName() +
+                        " (Mevcut: " + stockLedger.available(shortage.getProductId()) +
+                        ", İstenen: " + shortage.getQuantity() + ")")
+                .timestamp(LocalDateTime.now())
+                .build());
+        reservationJournal.append(record.partition(), new ReservationJournal.Entry(record, null, acknowledgment));
+    }
+}
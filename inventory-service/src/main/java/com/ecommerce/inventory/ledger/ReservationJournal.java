@@ -0,0 +1,291 @@
+package com.ecommerce.inventory.ledger;
+
+import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
+import com.ecommerce.inventory.kafka.IdempotentMessageHandler;
+import com.ecommerce.inventory.service.InventoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ledger'ın write-behind journal'ı. inventory-reserve-request'in her partition'ı için ayrı,
+ * sıralı bir kuyruk tutulur; flush thread'i kuyrukları batch'ler halinde veritabanına yazar
+ * (InventoryService.reserveInventoryForOrders: sıralı kilit + JDBC batch) ve ancak commit'ten
+ * sonra Kafka offset'lerini onaylar.
+ *
+ * Dayanıklılık buradan gelir: yazılmadan kapanan bir instance'ta offset'ler onaylanmamıştır,
+ * mesajlar yeniden gelir ve ledger açılışta veritabanından tekrar yüklenir. Mesaj anahtarları
+ * rezervasyonlarla aynı transaction'da processed_messages'a yazılır; yazılmış bir isteğin tekrarı
+ * listener'da, henüz kuyrukta bekleyeninki claim ile ayıklanır.
+ *
+ * Ledger stoğu yalnızca kendi kararlarını anında görür; ikinci bir instance aynı stoğu ayrı bir
+ * kopyadan dağıtırdı. Bu yüzden journal açılışta bir session advisory lock alır, alamazsa
+ * uygulama başlamaz. Kilit bağlantıyla birlikte tutulur; instance düşerse Postgres bırakır.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class ReservationJournal implements SmartLifecycle {
+
+    private static final long INSTANCE_LOCK_KEY = 8_002;
+
+    private final StockLedger stockLedger;
+    private final InventoryService inventoryService;
+    private final IdempotentMessageHandler idempotentMessageHandler;
+    private final ObjectMapper objectMapper;
+    private final DataSource dataSource;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.ledger.flush-batch-size:500}")
+    private int flushBatchSize;
+
+    @Value("${inventory.ledger.flush-interval-ms:10}")
+    private long flushIntervalMs;
+
+    @Value("${inventory.ledger.refresh-interval-ms:1000}")
+    private long refreshIntervalMs;
+
+    @Value("${inventory.ledger.max-pending:10000}")
+    private int maxPending;
+
+    private final Map<Integer, BlockingQueue<Entry>> partitions = new ConcurrentHashMap<>();
+    // Kuyrukta bekleyen (henüz yazılmamış) mesajların anahtarları
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private volatile boolean running;
+    private Thread flushThread;
+    private Connection lockConnection;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        flushTimer = Timer.builder("inventory.ledger.flush")
+                .description("Bir journal batch'inin DB'ye yazılma süresi")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @param event ledger'ın kabul ettiği rezervasyon; reddedilenler için null (sadece offset sırası için)
+     */
+    public record Entry(ConsumerRecord<String, String> record, InventoryReserveRequestEvent event,
+                        Acknowledgment acknowledgment) {
+    }
+
+    /**
+     * Mesajı kuyruğa girecek olarak işaretler.
+     *
+     * @return aynı mesaj zaten kuyrukta bekliyorsa false
+     */
+    public boolean claim(String messageKey) {
+        return inFlight.add(messageKey);
+    }
+
+    public void unclaim(String messageKey) {
+        inFlight.remove(messageKey);
+    }
+
+    public void append(int partition, Entry entry) throws InterruptedException {
+        // Kuyruk doluysa listener thread'i bekler (backpressure)
+        partitions.computeIfAbsent(partition, p -> new LinkedBlockingQueue<>(maxPending)).put(entry);
+    }
+
+    @Override
+    public void start() {
+        acquireInstanceLock();
+        stockLedger.loadAll();
+        running = true;
+        flushThread = new Thread(this::run, "inventory-ledger-flush");
+        flushThread.setDaemon(true);
+        flushThread.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (flushThread != null) {
+            try {
+                // Bekleyenler yazılsın; yazılamayanların offset'i onaylanmadığı için yeniden gelir
+                flushThread.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        releaseInstanceLock();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Listener container'larından önce başlayıp sonra durur
+    @Override
+    public int getPhase() {
+        return Integer.MAX_VALUE - 200;
+    }
+
+    private void run() {
+        long lastRefresh = System.nanoTime();
+        while (running || hasPending()) {
+            int flushed = 0;
+            for (BlockingQueue<Entry> queue : partitions.values()) {
+                flushed += flush(queue);
+            }
+
+            if (System.nanoTime() - lastRefresh >= TimeUnit.MILLISECONDS.toNanos(refreshIntervalMs)) {
+                // Diğer yollardan (iade, stok girişi, başka instance) gelen değişiklikleri al
+                refreshQuietly(null);
+                lastRefresh = System.nanoTime();
+            }
+
+            if (flushed == 0) {
+                try {
+                    TimeUnit.MILLISECONDS.sleep(flushIntervalMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private int flush(BlockingQueue<Entry> queue) {
+        List<Entry> batch = new ArrayList<>(Math.min(queue.size(), flushBatchSize));
+        queue.drainTo(batch, flushBatchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<Entry> acceptedEntries = batch.stream()
+                .filter(entry -> entry.event() != null)
+                .toList();
+        List<InventoryReserveRequestEvent> accepted = acceptedEntries.stream()
+                .map(Entry::event)
+                .toList();
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        if (!accepted.isEmpty()) {
+            try {
+                // İşaretleme ve rezervasyonlar tek transaction'da: commit olan istek tekrar gelirse yazılmaz
+                idempotentMessageHandler.handleBatch(acceptedEntries.stream().map(Entry::record).toList(),
+                        messages -> {
+                            List<InventoryReserveRequestEvent> events = new ArrayList<>(messages.size());
+                            for (String message : messages) {
+                                events.add(objectMapper.readValue(message, InventoryReserveRequestEvent.class));
+                            }
+                            inventoryService.reserveInventoryForOrders(events);
+                        });
+            } catch (Exception e) {
+                log.error("Ledger journal batch yazılamadı, rezervasyonlar tek tek yazılacak: {}", e.getMessage(), e);
+                acceptedEntries.forEach(this::reserveSingle);
+            }
+            accepted.forEach(stockLedger::flushed);
+            acceptedEntries.forEach(entry -> inFlight.remove(idempotentMessageHandler.messageKey(entry.record())));
+        }
+
+        // Offset'ler sadece commit'ten sonra ve geliş sırasıyla onaylanır
+        batch.forEach(entry -> entry.acknowledgment().acknowledge());
+        sample.stop(flushTimer);
+
+        // DB'nin reddettikleri dahil, dokunulan ürünleri DB ile hizala
+        Set<UUID> touched = new HashSet<>();
+        accepted.forEach(event -> event.getItems().forEach(item -> touched.add(item.getProductId())));
+        refreshQuietly(touched);
+        return batch.size();
+    }
+
+    private void reserveSingle(Entry entry) {
+        try {
+            idempotentMessageHandler.handle(entry.record(),
+                    message -> inventoryService.reserveInventoryForOrder(entry.event()));
+        } catch (ConcurrencyFailureException e) {
+            log.error("Ledger rezervasyonu yazılamadı: orderId={}, error={}",
+                    entry.event().getOrderId(), e.getMessage());
+        } catch (Exception e) {
+            // Rezervasyon geri alındı; mesaj işareti ve başarısızlık ayrı transaction'da yazılır
+            try {
+                idempotentMessageHandler.handle(entry.record(), message -> inventoryService.rejectReservation(
+                        entry.event().getOrderId(), "Sistem hatası: " + e.getMessage()));
+            } catch (Exception rejectFailure) {
+                log.error("Rezervasyon başarısızlığı kaydedilemedi: orderId={}, error={}",
+                        entry.event().getOrderId(), rejectFailure.getMessage());
+            }
+        }
+    }
+
+    private void acquireInstanceLock() {
+        try {
+            Connection connection = dataSource.getConnection();
+            boolean locked;
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_lock(?)")) {
+                statement.setLong(1, INSTANCE_LOCK_KEY);
+                try (ResultSet rs = statement.executeQuery()) {
+                    locked = rs.next() && rs.getBoolean(1);
+                }
+            }
+            if (!locked) {
+                connection.close();
+                throw new IllegalStateException(
+                        "Stok ledger'ı başka bir instance'ta çalışıyor; ledger modu tek instance ile çalışabilir");
+            }
+            lockConnection = connection;
+            log.info("Stok ledger instance kilidi alındı");
+        } catch (SQLException e) {
+            throw new IllegalStateException("Stok ledger instance kilidi alınamadı: " + e.getMessage(), e);
+        }
+    }
+
+    private void releaseInstanceLock() {
+        if (lockConnection == null) {
+            return;
+        }
+        try (Connection connection = lockConnection;
+             PreparedStatement statement = connection.prepareStatement("SELECT pg_advisory_unlock(?)")) {
+            statement.setLong(1, INSTANCE_LOCK_KEY);
+            statement.execute();
+        } catch (SQLException e) {
+            // Bağlantı kapanınca kilit zaten bırakılır
+            log.warn("Stok ledger instance kilidi bırakılamadı: {}", e.getMessage());
+        } finally {
+            lockConnection = null;
+        }
+    }
+
+    private void refreshQuietly(Set<UUID> productIds) {
+        try {
+            stockLedger.refresh(productIds);
+        } catch (Exception e) {
+            log.warn("Stok ledger yenilenemedi: {}", e.getMessage());
+        }
+    }
+
+    private boolean hasPending() {
+        return partitions.values().stream().anyMatch(queue -> !queue.isEmpty());
+    }
+}
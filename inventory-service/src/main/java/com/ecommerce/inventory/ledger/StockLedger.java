@@ -0,0 +1,143 @@
+package com.ecommerce.inventory.ledger;
+
+import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ürün başına kullanılabilir stoğun bellek içi kopyası. Kullanılabilir miktar REST yoluyla aynı
+ * kurala göre ana satır, shard'lar ve depo satırlarının toplamıdır; depolara dağıtım flush'ta yapılır.
+ *
+ * Her ürünün durumu tek bir long'da tutulur: üst 32 bit kullanılabilir miktar, alt 32 bit
+ * henüz veritabanına yazılmamış (journal'da bekleyen) rezervasyon miktarı. Rezervasyon kararı
+ * kilitsiz bir CAS ile verilir; veritabanı değerleri yalnızca flush thread'inden yenilenir,
+ * bu sırada bekleyen miktar düşülerek DB'ye henüz yansımamış rezervasyonlar korunur.
+ */
+@Component
+@ConditionalOnProperty(name = "inventory.ledger.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class StockLedger {
+
+    private static final String AVAILABLE_SQL =
+            "SELECT i.product_id, i.total_quantity - i.reserved_quantity " +
+                    "    + COALESCE(SUM(s.total_quantity - s.reserved_quantity), 0) " +
+                    "    + CASE WHEN i.warehouse_stocked THEN (SELECT COALESCE(SUM(w.total_quantity - w.reserved_quantity), 0) " +
+                    "        FROM warehouse_stocks w WHERE w.product_id = i.product_id) ELSE 0 END AS available " +
+                    "FROM inventories i LEFT JOIN inventory_stock_shards s ON s.product_id = i.product_id ";
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final Map<UUID, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Siparişin tüm kalemlerini ayırır; biri yetmezse öncekiler geri alınır.
+     *
+     * @return yetersiz kalan kalem, hepsi ayrıldıysa null
+     */
+    public InventoryReserveRequestEvent.OrderItemEvent tryReserve(InventoryReserveRequestEvent event) {
+        Map<UUID, Integer> taken = new LinkedHashMap<>();
+        for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
+            if (!tryTake(counter(item.getProductId()), item.getQuantity())) {
+                taken.forEach((productId, quantity) -> cancel(counters.get(productId), quantity));
+                return item;
+            }
+            taken.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        return null;
+    }
+
+    public int available(UUID productId) {
+        return available(counter(productId).get());
+    }
+
+    // Journal'daki rezervasyon DB'ye yazıldı (ya da DB tarafından reddedildi): bekleyen miktardan düş
+    void flushed(InventoryReserveRequestEvent event) {
+        for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
+            AtomicLong counter = counters.get(item.getProductId());
+            long current;
+            do {
+                current = counter.get();
+            } while (!counter.compareAndSet(current,
+                    pack(available(current), pending(current) - item.getQuantity())));
+        }
+    }
+
+    // Var olan ürünler için sadece flush thread'inden çağrılır: o an yazılmakta olan batch yoktur
+    void refresh(Collection<UUID> productIds) {
+        String sql = AVAILABLE_SQL + (productIds == null ? "" : "WHERE i.product_id IN (:productIds) ")
+                + "GROUP BY i.product_id, i.total_quantity, i.reserved_quantity, i.warehouse_stocked";
+        if (productIds != null && productIds.isEmpty()) {
+            return;
+        }
+        namedParameterJdbcTemplate.query(sql, productIds == null ? Map.of() : Map.of("productIds", productIds), rs -> {
+            UUID productId = rs.getObject("product_id", UUID.class);
+            int dbAvailable = rs.getInt("available");
+            AtomicLong counter = counters.computeIfAbsent(productId, id -> new AtomicLong(pack(0, 0)));
+            long current;
+            do {
+                current = counter.get();
+            } while (!counter.compareAndSet(current, pack(dbAvailable - pending(current), pending(current))));
+        });
+    }
+
+    void loadAll() {
+        refresh(null);
+        log.info("Stok ledger yüklendi: {} ürün", counters.size());
+    }
+
+    Collection<UUID> productIds() {
+        return counters.keySet();
+    }
+
+    private AtomicLong counter(UUID productId) {
+        AtomicLong counter = counters.get(productId);
+        if (counter == null) {
+            // Ledger yüklendikten sonra oluşturulan ürün
+            refresh(List.of(productId));
+            counter = counters.computeIfAbsent(productId, id -> new AtomicLong(pack(0, 0)));
+        }
+        return counter;
+    }
+
+    private boolean tryTake(AtomicLong counter, int quantity) {
+        long current;
+        do {
+            current = counter.get();
+            if (available(current) < quantity) {
+                return false;
+            }
+        } while (!counter.compareAndSet(current, pack(available(current) - quantity, pending(current) + quantity)));
+        return true;
+    }
+
+    private void cancel(AtomicLong counter, int quantity) {
+        long current;
+        do {
+            current = counter.get();
+        } while (!counter.compareAndSet(current, pack(available(current) + quantity, pending(current) - quantity)));
+    }
+
+    private static long pack(int available, int pending) {
+        return ((long) available << 32) | (pending & 0xFFFFFFFFL);
+    }
+
+    private static int available(long state) {
+        return (int) (state >> 32);
+    }
+
+    private static int pending(long state) {
+        return (int) state;
+    }
+}
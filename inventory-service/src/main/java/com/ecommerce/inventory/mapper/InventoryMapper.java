@@ -4,10 +4,12 @@ import com.ecommerce.inventory.dto.response.InventoryResponse;
 import com.ecommerce.inventory.dto.response.ReservationItemResponse;
 import com.ecommerce.inventory.dto.response.ReservationResponse;
 import com.ecommerce.inventory.dto.response.StockMovementResponse;
+import com.ecommerce.inventory.dto.response.WarehouseResponse;
 import com.ecommerce.inventory.entity.Inventory;
 import com.ecommerce.inventory.entity.InventoryMovement;
 import com.ecommerce.inventory.entity.Reservation;
 import com.ecommerce.inventory.entity.ReservationItem;
+import com.ecommerce.inventory.entity.Warehouse;
 import org.springframework.stereotype.Component;
 
 import java.util.stream.Collectors;
@@ -21,10 +23,11 @@ public class InventoryMapper {
                 .productId(inventory.getProductId())
                 .productName(inventory.getProductName())
                 .sku(inventory.getSku())
-                .totalQuantity(inventory.getTotalQuantity())
-                .reservedQuantity(inventory.getReservedQuantity())
+                .totalQuantity(inventory.getTotalStock())
+                .reservedQuantity(inventory.getReservedStock())
                 .availableQuantity(inventory.getAvailableQuantity())
                 .minStockLevel(inventory.getMinStockLevel())
+                .shardCount(inventory.getShardCount())
                 .isLowStock(inventory.isLowStock())
                 .isActive(inventory.getIsActive())
                 .createdAt(inventory.getCreatedAt())
@@ -48,10 +51,24 @@ public class InventoryMapper {
                 .build();
     }
 
+    public WarehouseResponse toResponse(Warehouse warehouse) {
+        return WarehouseResponse.builder()
+                .id(warehouse.getId())
+                .code(warehouse.getCode())
+                .name(warehouse.getName())
+                .city(warehouse.getCity())
+                .latitude(warehouse.getLatitude())
+                .longitude(warehouse.getLongitude())
+                .isActive(warehouse.getIsActive())
+                .createdAt(warehouse.getCreatedAt())
+                .build();
+    }
+
     public ReservationItemResponse toResponse(ReservationItem item) {
         return ReservationItemResponse.builder()
                 .id(item.getId())
                 .productId(item.getProductId())
+                .warehouseId(item.getWarehouseId())
                 .quantity(item.getQuantity())
                 .build();
     }
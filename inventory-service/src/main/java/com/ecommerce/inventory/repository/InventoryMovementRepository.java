@@ -3,6 +3,8 @@ package com.ecommerce.inventory.repository;
 import com.ecommerce.inventory.entity.InventoryMovement;
 import com.ecommerce.inventory.entity.MovementType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
@@ -12,11 +14,22 @@ import java.util.UUID;
 @Repository
 public interface InventoryMovementRepository extends JpaRepository<InventoryMovement, UUID> {
 
-    List<InventoryMovement> findByProductIdOrderByCreatedAtDesc(UUID productId);
+    // idx_inventory_movements_product (product_id, created_at DESC, id DESC) üzerinden keyset okuma
+    @Query(value = "SELECT * FROM inventory_movements WHERE product_id = :productId " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<InventoryMovement> findLatestByProductId(@Param("productId") UUID productId, @Param("limit") int limit);
+
+    @Query(value = "SELECT * FROM inventory_movements WHERE product_id = :productId " +
+            "AND (created_at, id) < (:createdAt, :id) " +
+            "ORDER BY created_at DESC, id DESC LIMIT :limit", nativeQuery = true)
+    List<InventoryMovement> findByProductIdBefore(@Param("productId") UUID productId,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") UUID id,
+                                                  @Param("limit") int limit);
 
     List<InventoryMovement> findByMovementType(MovementType movementType);
 
     List<InventoryMovement> findByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
 
     List<InventoryMovement> findByReferenceId(UUID referenceId);
-}
\ No newline at end of file
+}
@@ -1,10 +1,14 @@
 package com.ecommerce.inventory.repository;
 
 import com.ecommerce.inventory.entity.Inventory;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -18,11 +22,19 @@ public interface InventoryRepository extends JpaRepository<Inventory, UUID> {
 
     boolean existsByProductId(UUID productId);
 
-    List<Inventory> findByIsActiveTrue();
+    List<Inventory> findByProductIdIn(Collection<UUID> productIds);
 
-    @Query("SELECT i FROM Inventory i WHERE i.isActive = true AND (i.totalQuantity - i.reservedQuantity) <= i.minStockLevel")
+    List<Inventory> findBySkuIn(Collection<String> skus);
+
+    // ORDER BY + FOR UPDATE: satırlar her transaction'da aynı sırayla kilitlenir, deadlock oluşmaz.
+    // Sharded ürünlerin ana satırı kilitlenmez; stokları shard satırlarında değişir.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM Inventory i WHERE i.productId IN :productIds AND i.shardCount = 1 ORDER BY i.productId")
+    List<Inventory> lockUnshardedByProductIdIn(@Param("productIds") Collection<UUID> productIds);
+
+    @Query("SELECT i FROM Inventory i WHERE i.isActive = true AND (i.totalQuantity + i.shardTotalQuantity + i.warehouseTotalQuantity - i.reservedQuantity - i.shardReservedQuantity - i.warehouseReservedQuantity) <= i.minStockLevel")
     List<Inventory> findLowStockItems();
 
-    @Query("SELECT i FROM Inventory i WHERE i.isActive = true AND (i.totalQuantity - i.reservedQuantity) = 0")
+    @Query("SELECT i FROM Inventory i WHERE i.isActive = true AND (i.totalQuantity + i.shardTotalQuantity + i.warehouseTotalQuantity - i.reservedQuantity - i.shardReservedQuantity - i.warehouseReservedQuantity) = 0")
     List<Inventory> findOutOfStockItems();
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -19,6 +20,8 @@ public interface ReservationRepository extends JpaRepository<Reservation, UUID>
 
     boolean existsByOrderId(UUID orderId);
 
+    List<Reservation> findByOrderIdIn(Collection<UUID> orderIds);
+
     List<Reservation> findByStatus(ReservationStatus status);
 
     @Query("SELECT r FROM Reservation r WHERE r.status = 'PENDING' AND r.expiresAt < :now")
@@ -0,0 +1,16 @@
+package com.ecommerce.inventory.repository;
+
+import com.ecommerce.inventory.entity.Warehouse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WarehouseRepository extends JpaRepository<Warehouse, UUID> {
+
+    boolean existsByCode(String code);
+
+    List<Warehouse> findByIsActiveTrueOrderByCode();
+}
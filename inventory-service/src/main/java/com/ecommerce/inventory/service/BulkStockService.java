@@ -0,0 +1,12 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.response.BulkStockResponse;
+
+import java.io.InputStream;
+
+public interface BulkStockService {
+
+    BulkStockResponse importCsv(InputStream body);
+
+    BulkStockResponse importNdjson(InputStream body);
+}
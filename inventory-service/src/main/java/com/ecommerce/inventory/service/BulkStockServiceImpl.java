@@ -0,0 +1,446 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.request.BulkStockRow;
+import com.ecommerce.inventory.dto.response.BulkStockResponse;
+import com.ecommerce.inventory.dto.response.BulkStockRowError;
+import com.ecommerce.inventory.entity.MovementType;
+import com.ecommerce.inventory.exception.BadRequestException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * CSV / NDJSON gövdesini satır satır okuyup chunk'lar halinde uygular; bellekte en fazla bir
+ * chunk ve sınırlı sayıda hata tutulur.
+ *
+ * Her chunk tek transaction'dır: ürünler product_id sırasıyla tek sorguda kilitlenir, satırlar
+ * bellekte sırayla uygulanır, sonuç tek batch UPDATE ile yazılır. Hatalı satırlar atlanıp rapora
+ * eklenir, chunk'ın geri kalanı uygulanır. Sharded ürünler StockShardService üzerinden güncellenir.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class BulkStockServiceImpl implements BulkStockService {
+
+    private static final String DEFAULT_NOTES = "Toplu stok güncellemesi";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final StockShardService stockShardService;
+    private final MovementJournalService movementJournalService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${inventory.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${inventory.bulk.max-errors:1000}")
+    private int maxErrors;
+
+    private Counter appliedCounter;
+    private Counter failedCounter;
+    private Timer chunkTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        appliedCounter = Counter.builder("inventory.bulk.rows")
+                .description("Toplu stok güncellemesinde işlenen satır sayısı")
+                .tag("result", "applied")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("inventory.bulk.rows")
+                .description("Toplu stok güncellemesinde işlenen satır sayısı")
+                .tag("result", "failed")
+                .register(meterRegistry);
+        chunkTimer = Timer.builder("inventory.bulk.chunk")
+                .description("Bir chunk'ın kilitlenme, uygulanma ve commit süresi")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public BulkStockResponse importCsv(InputStream body) {
+        BufferedReader reader = reader(body);
+        String header = readLine(reader);
+        if (header == null || header.isBlank()) {
+            throw new BadRequestException("CSV başlık satırı bulunamadı");
+        }
+        Map<String, Integer> columns = parseHeader(header);
+        return process(reader, 1, line -> parseCsvRow(line, columns));
+    }
+
+    @Override
+    public BulkStockResponse importNdjson(InputStream body) {
+        return process(reader(body), 0, line -> objectMapper.readValue(line, BulkStockRow.class));
+    }
+
+    private BulkStockResponse process(BufferedReader reader, long firstLine, RowParser parser) {
+        long startedAt = System.nanoTime();
+        Report report = new Report();
+        List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+        long lineNo = firstLine;
+
+        String line;
+        while ((line = readLine(reader)) != null) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                chunk.add(new ParsedRow(lineNo, parser.parse(line)));
+            } catch (Exception e) {
+                report.fail(new ParsedRow(lineNo, null), "Satır okunamadı: " + e.getMessage());
+            }
+            if (chunk.size() >= chunkSize) {
+                applyChunk(chunk, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            applyChunk(chunk, report);
+        }
+
+        long durationMs = Math.max(1, (System.nanoTime() - startedAt) / 1_000_000);
+        long processed = report.applied + report.failed;
+        double rowsPerSecond = processed * 1000.0 / durationMs;
+        log.info("Toplu stok güncellemesi: {} satır, {} uygulandı, {} hatalı, {} ms ({} satır/sn)",
+                processed, report.applied, report.failed, durationMs, Math.round(rowsPerSecond));
+
+        return BulkStockResponse.builder()
+                .processed(processed)
+                .applied(report.applied)
+                .failed(report.failed)
+                .durationMs(durationMs)
+                .rowsPerSecond(rowsPerSecond)
+                .errors(report.errors)
+                .errorsTruncated(report.failed > report.errors.size())
+                .build();
+    }
+
+    private void applyChunk(List<ParsedRow> chunk, Report report) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            // Satır hataları commit'ten sonra rapora işlenir; rollback olursa tüm chunk hatalı sayılır
+            List<RowResult> results = transactionTemplate.execute(status -> applyRows(chunk));
+            for (RowResult result : results) {
+                if (result.error() == null) {
+                    report.applied++;
+                    appliedCounter.increment();
+                } else {
+                    report.fail(result.row(), result.error());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Toplu stok chunk'ı uygulanamadı: {} satır, error={}", chunk.size(), e.getMessage());
+            for (ParsedRow row : chunk) {
+                report.fail(row, "Chunk uygulanamadı: " + e.getMessage());
+            }
+        } finally {
+            sample.stop(chunkTimer);
+        }
+    }
+
+    private List<RowResult> applyRows(List<ParsedRow> chunk) {
+        List<RowResult> results = new ArrayList<>(chunk.size());
+        Map<String, UUID> skuToProduct = resolveSkus(chunk);
+        Map<UUID, StockState> stocks = lockStocks(chunk, skuToProduct);
+
+        for (ParsedRow parsed : chunk) {
+            BulkStockRow row = parsed.row();
+            UUID productId = row.getProductId() != null ? row.getProductId() : skuToProduct.get(row.getSku());
+            String error = validate(row, productId);
+            StockState stock = productId != null ? stocks.get(productId) : null;
+            if (error == null && stock == null) {
+                error = "Stok kaydı bulunamadı";
+            }
+            if (error == null) {
+                error = apply(productId, stock, row);
+            }
+            results.add(new RowResult(parsed, error));
+        }
+
+        // Sharded olmayan ürünlerin son miktarları tek batch'te
+        List<Object[]> updates = new ArrayList<>();
+        stocks.forEach((productId, stock) -> {
+            if (stock.dirty) {
+                updates.add(new Object[]{stock.total, productId});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE inventories SET total_quantity = ?, version = version + 1 " +
+                    "WHERE product_id = ?", updates);
+        }
+        return results;
+    }
+
+    private String validate(BulkStockRow row, UUID productId) {
+        if (row.getProductId() == null && (row.getSku() == null || row.getSku().isBlank())) {
+            return "product_id ya da sku belirtilmeli";
+        }
+        if (productId == null) {
+            return "SKU bulunamadı ya da birden fazla stok kaydıyla eşleşiyor";
+        }
+        if (row.getOperation() == null) {
+            return "İşlem belirtilmeli (ADD, REMOVE, SET)";
+        }
+        if (row.getQuantity() == null) {
+            return "Miktar boş olamaz";
+        }
+        int minQuantity = row.getOperation() == BulkStockRow.Operation.SET ? 0 : 1;
+        if (row.getQuantity() < minQuantity) {
+            return "Miktar en az " + minQuantity + " olmalıdır";
+        }
+        return null;
+    }
+
+    // Satırı ürünün bellekteki durumuna uygular; hata varsa mesajı döner, hiçbir şey yazılmaz
+    private String apply(UUID productId, StockState stock, BulkStockRow row) {
+        int quantity = row.getQuantity();
+        String notes = row.getNotes() != null ? row.getNotes() : DEFAULT_NOTES;
+
+        switch (row.getOperation()) {
+            case ADD -> {
+                changeTotal(productId, stock, quantity);
+                movementJournalService.append(productId, MovementType.STOCK_IN, quantity, null, null, notes);
+            }
+            case REMOVE -> {
+                if (stock.available() < quantity) {
+                    return "Yetersiz stok. Mevcut: " + stock.available();
+                }
+                if (!changeTotal(productId, stock, -quantity)) {
+                    return "Yetersiz stok. Mevcut: " + stock.available();
+                }
+                movementJournalService.append(productId, MovementType.STOCK_OUT, quantity, null, null, notes);
+            }
+            case SET -> {
+                if (quantity < stock.reserved) {
+                    return "Yeni miktar rezerve miktarın (" + stock.reserved + ") altında olamaz";
+                }
+                int difference = quantity - stock.total;
+                if (!changeTotal(productId, stock, difference)) {
+                    return "Shard'lardaki stok düzeltme için yetersiz";
+                }
+                movementJournalService.append(productId, MovementType.ADJUSTMENT, difference, null, null, notes);
+            }
+        }
+        return null;
+    }
+
+    private boolean changeTotal(UUID productId, StockState stock, int delta) {
+        if (stock.sharded && delta != 0) {
+            if (delta > 0) {
+                stockShardService.addStock(productId, delta);
+            } else if (!stockShardService.removeStock(productId, -delta)) {
+                return false;
+            }
+        } else {
+            stock.dirty = true;
+        }
+        stock.total += delta;
+        return true;
+    }
+
+    private Map<String, UUID> resolveSkus(List<ParsedRow> chunk) {
+        Set<String> skus = new HashSet<>();
+        for (ParsedRow row : chunk) {
+            if (row.row().getProductId() == null && row.row().getSku() != null) {
+                skus.add(row.row().getSku());
+            }
+        }
+        Map<String, UUID> resolved = new HashMap<>();
+        if (skus.isEmpty()) {
+            return resolved;
+        }
+
+        // Birden fazla kayıtla eşleşen SKU belirsizdir, çözümlenmez
+        Set<String> ambiguous = new HashSet<>();
+        namedParameterJdbcTemplate.query("SELECT sku, product_id FROM inventories WHERE sku IN (:skus)",
+                Map.of("skus", skus),
+                rs -> {
+                    String sku = rs.getString("sku");
+                    if (resolved.put(sku, rs.getObject("product_id", UUID.class)) != null) {
+                        ambiguous.add(sku);
+                    }
+                });
+        ambiguous.forEach(resolved::remove);
+        return resolved;
+    }
+
+    private Map<UUID, StockState> lockStocks(List<ParsedRow> chunk, Map<String, UUID> skuToProduct) {
+        Set<UUID> productIds = new HashSet<>();
+        for (ParsedRow row : chunk) {
+            UUID productId = row.row().getProductId() != null
+                    ? row.row().getProductId()
+                    : skuToProduct.get(row.row().getSku());
+            if (productId != null) {
+                productIds.add(productId);
+            }
+        }
+        Map<UUID, StockState> stocks = new TreeMap<>();
+        if (productIds.isEmpty()) {
+            return stocks;
+        }
+
+        // Rezervasyon yollarıyla aynı kilit sırası; shard'lar StockShardService içinde kilitlenir
+        namedParameterJdbcTemplate.query("SELECT product_id, shard_count, " +
+                        "total_quantity + CASE WHEN shard_count > 1 THEN (SELECT COALESCE(SUM(s.total_quantity), 0) " +
+                        "    FROM inventory_stock_shards s WHERE s.product_id = i.product_id) ELSE 0 END AS total, " +
+                        "reserved_quantity + CASE WHEN shard_count > 1 THEN (SELECT COALESCE(SUM(s.reserved_quantity), 0) " +
+                        "    FROM inventory_stock_shards s WHERE s.product_id = i.product_id) ELSE 0 END AS reserved " +
+                        "FROM inventories i WHERE product_id IN (:productIds) ORDER BY product_id FOR UPDATE",
+                Map.of("productIds", productIds),
+                rs -> {
+                    stocks.put(rs.getObject("product_id", UUID.class), new StockState(
+                            rs.getInt("shard_count") > 1, rs.getInt("total"), rs.getInt("reserved")));
+                });
+        return stocks;
+    }
+
+    private Map<String, Integer> parseHeader(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("operation") || !columns.containsKey("quantity")
+                || !(columns.containsKey("product_id") || columns.containsKey("sku"))) {
+            throw new BadRequestException("CSV başlığında operation, quantity ve product_id ya da sku sütunları olmalı");
+        }
+        return columns;
+    }
+
+    private BulkStockRow parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        String productId = column(values, columns, "product_id");
+        String operation = column(values, columns, "operation");
+        String quantity = column(values, columns, "quantity");
+        return new BulkStockRow(
+                productId != null ? UUID.fromString(productId) : null,
+                column(values, columns, "sku"),
+                operation != null ? BulkStockRow.Operation.valueOf(operation.toUpperCase(Locale.ROOT)) : null,
+                quantity != null ? Integer.valueOf(quantity) : null,
+                column(values, columns, "notes"));
+    }
+
+    private String column(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size()) {
+            return null;
+        }
+        String value = values.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // RFC 4180: tırnaklı alanlar ve "" kaçışı; alan içinde satır sonu desteklenmez
+    private List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private BufferedReader reader(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+    }
+
+    private String readLine(BufferedReader reader) {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException("İstek gövdesi okunamadı", e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowParser {
+        BulkStockRow parse(String line) throws Exception;
+    }
+
+    private record ParsedRow(long line, BulkStockRow row) {
+    }
+
+    private record RowResult(ParsedRow row, String error) {
+    }
+
+    private static final class StockState {
+        private final boolean sharded;
+        private int total;
+        private final int reserved;
+        private boolean dirty;
+
+        StockState(boolean sharded, int total, int reserved) {
+            this.sharded = sharded;
+            this.total = total;
+            this.reserved = reserved;
+        }
+
+        int available() {
+            return total - reserved;
+        }
+    }
+
+    private final class Report {
+        private long applied;
+        private long failed;
+        private final List<BulkStockRowError> errors = new ArrayList<>();
+
+        void fail(ParsedRow row, String message) {
+            failed++;
+            failedCounter.increment();
+            if (errors.size() < maxErrors) {
+                BulkStockRow data = row.row();
+                errors.add(BulkStockRowError.builder()
+                        .line(row.line())
+                        .productId(data != null ? data.getProductId() : null)
+                        .sku(data != null ? data.getSku() : null)
+                        .message(message)
+                        .build());
+            }
+        }
+    }
+}
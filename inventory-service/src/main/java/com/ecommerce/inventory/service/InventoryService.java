@@ -4,6 +4,7 @@ import com.ecommerce.inventory.dto.request.*;
 import com.ecommerce.inventory.dto.response.*;
 import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,13 +14,16 @@ public interface InventoryService {
     InventoryResponse createInventory(CreateInventoryRequest request);
     InventoryResponse getByProductId(UUID productId);
     InventoryResponse getBySku(String sku);
-    List<InventoryResponse> getAllInventories();
+    CursorPageResponse<InventoryResponse> listInventories(String cursor, int size, boolean lowStockOnly,
+                                                          LocalDateTime updatedSince);
     List<InventoryResponse> getLowStockItems();
+    AvailabilityResponse getAvailability(AvailabilityRequest request);
 
     // Stock Operations
     InventoryResponse addStock(UUID productId, StockUpdateRequest request);
     InventoryResponse removeStock(UUID productId, StockUpdateRequest request);
     InventoryResponse adjustStock(UUID productId, Integer newQuantity, String notes);
+    InventoryResponse updateShardCount(UUID productId, Integer shardCount);
 
     // Reservation Operations
     ReservationResponse createReservation(ReservationRequest request);
@@ -28,9 +32,11 @@ public interface InventoryService {
     ReservationResponse getReservationByOrderId(UUID orderId);
 
     // Stock Movements
-    List<StockMovementResponse> getMovementsByProductId(UUID productId);
+    CursorPageResponse<StockMovementResponse> getMovementsByProductId(UUID productId, String cursor, int size);
 
     // Event-driven metodlar
     void reserveInventoryForOrder(InventoryReserveRequestEvent event);
+    void rejectReservation(UUID orderId, String reason);
+    void reserveInventoryForOrders(List<InventoryReserveRequestEvent> events);
     void releaseInventoryForOrder(UUID orderId, String reason);
 }
\ No newline at end of file
@@ -1,22 +1,49 @@
 package com.ecommerce.inventory.service;
 
+import com.ecommerce.inventory.alert.StockLevelTracker;
+import com.ecommerce.inventory.cache.InventoryCache;
+import com.ecommerce.inventory.cache.InventoryCacheInvalidator;
+import com.ecommerce.inventory.concurrency.ConflictRetryExecutor;
 import com.ecommerce.inventory.dto.request.*;
 import com.ecommerce.inventory.dto.response.*;
 import com.ecommerce.inventory.entity.*;
 import com.ecommerce.inventory.event.InventoryReserveRequestEvent;
 import com.ecommerce.inventory.event.InventoryReservedEvent;
 import com.ecommerce.inventory.exception.*;
+import com.ecommerce.inventory.expiry.ReservationExpiryScheduler;
 import com.ecommerce.inventory.kafka.InventoryKafkaProducer;
 import com.ecommerce.inventory.mapper.InventoryMapper;
 import com.ecommerce.inventory.repository.*;
+import com.ecommerce.inventory.warehouse.AllocationPlan;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 @Service
@@ -28,9 +55,35 @@ public class InventoryServiceImpl implements InventoryService {
     private final InventoryRepository inventoryRepository;
     private final ReservationRepository reservationRepository;
     private final ReservationItemRepository reservationItemRepository;
-    private final InventoryMovementRepository movementRepository;
+    private final MovementJournalService movementJournalService;
     private final InventoryMapper inventoryMapper;
     private final InventoryKafkaProducer kafkaProducer;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final StockShardService stockShardService;
+    private final EntityManager entityManager;
+    private final ReservationExpiryScheduler reservationExpiryScheduler;
+    private final InventoryCache inventoryCache;
+    private final InventoryCacheInvalidator inventoryCacheInvalidator;
+    private final StockLevelTracker stockLevelTracker;
+    private final ConflictRetryExecutor conflictRetryExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final WarehouseStockService warehouseStockService;
+
+    @Value("${inventory.sharding.max-shards:64}")
+    private int maxShardCount;
+
+    @Value("${inventory.availability.max-items:5000}")
+    private int maxAvailabilityItems;
+
+    @Value("${inventory.listing.max-page-size:1000}")
+    private int maxListPageSize;
+
+    @Value("${inventory.listing.delta-lag-ms:5000}")
+    private long deltaLagMs;
+
+    @Value("${inventory.movements.max-page-size:500}")
+    private int maxMovementPageSize;
 
     // ==================== INVENTORY CRUD ====================
 
@@ -67,35 +120,166 @@ public class InventoryServiceImpl implements InventoryService {
     @Override
     @Transactional(readOnly = true)
     public InventoryResponse getByProductId(UUID productId) {
-        Inventory inventory = inventoryRepository.findByProductId(productId)
-                .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
-        return inventoryMapper.toResponse(inventory);
+        return inventoryCache.getByProductId(productId, id -> inventoryRepository.findByProductId(id)
+                .map(inventoryMapper::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı")));
     }
 
     @Override
     @Transactional(readOnly = true)
     public InventoryResponse getBySku(String sku) {
-        Inventory inventory = inventoryRepository.findBySku(sku)
-                .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
-        return inventoryMapper.toResponse(inventory);
+        UUID productId = inventoryCache.getProductIdBySku(sku, key -> inventoryRepository.findBySku(key)
+                .map(Inventory::getProductId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı")));
+        return getByProductId(productId);
     }
 
+    /**
+     * Keyset sayfalı stok listesi; bellek kullanımı katalog boyutundan bağımsız olarak sayfa boyutuyla sınırlıdır.
+     *
+     * Normal modda aktif kayıtlar (sku, id) sırasıyla döner. updatedSince verilirse delta modudur:
+     * pasif olanlar dahil, o andan sonra değişen kayıtlar (updated_at, id) sırasıyla döner ve son
+     * sayfanın cursor'ı bir sonraki senkronizasyonda kullanılabilir. Henüz commit edilmemiş
+     * transaction'ları atlamamak için son delta-lag-ms içinde değişenler bir sonraki çağrıya kalır.
+     * Sharded ürünlerde sadece shard'ları değiştiren rezervasyonlar updated_at'i ilerletmez.
+     */
     @Override
     @Transactional(readOnly = true)
-    public List<InventoryResponse> getAllInventories() {
-        return inventoryRepository.findByIsActiveTrue().stream()
-                .map(inventoryMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPageResponse<InventoryResponse> listInventories(String cursor, int size, boolean lowStockOnly,
+                                                                 LocalDateTime updatedSince) {
+        if (size < 1 || size > maxListPageSize) {
+            throw new BadRequestException("Sayfa boyutu 1 ile " + maxListPageSize + " arasında olmalı");
+        }
+        boolean delta = updatedSince != null;
+
+        StringBuilder jpql = new StringBuilder("SELECT i FROM Inventory i WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+        if (delta) {
+            jpql.append(" AND i.updatedAt >= :updatedSince AND i.updatedAt < :lagLimit");
+            params.put("updatedSince", updatedSince);
+            params.put("lagLimit", LocalDateTime.now().minusNanos(deltaLagMs * 1_000_000));
+        } else {
+            jpql.append(" AND i.isActive = true");
+        }
+        if (lowStockOnly) {
+            jpql.append(" AND (i.totalQuantity + i.shardTotalQuantity + i.warehouseTotalQuantity" +
+                    " - i.reservedQuantity - i.shardReservedQuantity - i.warehouseReservedQuantity) <= i.minStockLevel");
+        }
+
+        if (cursor != null) {
+            String[] keys = CursorCodec.decode(cursor, 3);
+            try {
+                if (delta && "u".equals(keys[0])) {
+                    // İlk koşul index'in aralık taramasını sağlar, ikincisi eşit değerlerde id ile devam eder
+                    jpql.append(" AND i.updatedAt >= :cursorUpdatedAt AND (i.updatedAt > :cursorUpdatedAt OR i.id > :cursorId)");
+                    params.put("cursorUpdatedAt", LocalDateTime.parse(keys[2]));
+                } else if (!delta && "s".equals(keys[0])) {
+                    jpql.append(" AND i.sku >= :cursorSku AND (i.sku > :cursorSku OR i.id > :cursorId)");
+                    params.put("cursorSku", keys[2]);
+                } else {
+                    throw new BadRequestException("Cursor bu sorgu için geçerli değil");
+                }
+                params.put("cursorId", UUID.fromString(keys[1]));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new BadRequestException("Geçersiz cursor");
+            }
+        }
+        jpql.append(delta ? " ORDER BY i.updatedAt, i.id" : " ORDER BY i.sku, i.id");
+
+        TypedQuery<Inventory> query = entityManager.createQuery(jpql.toString(), Inventory.class)
+                .setMaxResults(size + 1);
+        params.forEach(query::setParameter);
+        List<Inventory> rows = query.getResultList();
+
+        boolean hasMore = rows.size() > size;
+        List<Inventory> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (!page.isEmpty() && (hasMore || delta)) {
+            Inventory last = page.get(page.size() - 1);
+            nextCursor = delta
+                    ? CursorCodec.encode("u", last.getId().toString(), last.getUpdatedAt().toString())
+                    : CursorCodec.encode("s", last.getId().toString(), last.getSku());
+        }
+
+        return CursorPageResponse.<InventoryResponse>builder()
+                .items(page.stream().map(inventoryMapper::toResponse).collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<InventoryResponse> getLowStockItems() {
+        List<InventoryResponse> tracked = stockLevelTracker.getLowStockItems();
+        if (tracked != null) {
+            return tracked;
+        }
         return inventoryRepository.findLowStockItems().stream()
                 .map(inventoryMapper::toResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Sepet ve liste sayfaları için toplu stok sorgusu. Cache'te olmayan ürünler tek bir
+     * product_id IN (...) sorgusuyla yüklenip cache'e yazılır; SKU'lar önce sku → productId
+     * indeksinden (gerekirse tek sku IN (...) sorgusuyla) çözülür.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public AvailabilityResponse getAvailability(AvailabilityRequest request) {
+        Set<UUID> productIds = request.getProductIds() != null ? new HashSet<>(request.getProductIds()) : new HashSet<>();
+        Set<String> skus = request.getSkus() != null ? new HashSet<>(request.getSkus()) : new HashSet<>();
+        productIds.remove(null);
+        skus.remove(null);
+        if (productIds.isEmpty() && skus.isEmpty()) {
+            throw new BadRequestException("En az bir productId ya da sku belirtilmeli");
+        }
+        if (productIds.size() + skus.size() > maxAvailabilityItems) {
+            throw new BadRequestException("Tek istekte en fazla " + maxAvailabilityItems + " ürün sorgulanabilir");
+        }
+
+        Map<String, UUID> skuToProduct = skus.isEmpty() ? Map.of() : inventoryCache.getProductIdsBySku(skus,
+                missing -> inventoryRepository.findBySkuIn(new HashSet<>(missing)).stream()
+                        .collect(Collectors.toMap(Inventory::getSku, Inventory::getProductId, (first, second) -> first)));
+
+        Set<UUID> allProductIds = new HashSet<>(productIds);
+        allProductIds.addAll(skuToProduct.values());
+        Map<UUID, InventoryResponse> inventories = inventoryCache.getAllByProductId(allProductIds,
+                missing -> inventoryRepository.findByProductIdIn(new HashSet<>(missing)).stream()
+                        .collect(Collectors.toMap(Inventory::getProductId, inventoryMapper::toResponse)));
+
+        List<String> notFound = new ArrayList<>();
+        Map<UUID, Integer> byProduct = new LinkedHashMap<>();
+        for (UUID productId : productIds) {
+            InventoryResponse inventory = inventories.get(productId);
+            if (inventory == null) {
+                notFound.add(productId.toString());
+            } else {
+                byProduct.put(productId, sellableQuantity(inventory));
+            }
+        }
+        Map<String, Integer> bySku = new LinkedHashMap<>();
+        for (String sku : skus) {
+            InventoryResponse inventory = skuToProduct.containsKey(sku) ? inventories.get(skuToProduct.get(sku)) : null;
+            if (inventory == null) {
+                notFound.add(sku);
+            } else {
+                bySku.put(sku, sellableQuantity(inventory));
+            }
+        }
+
+        return AvailabilityResponse.builder()
+                .products(byProduct)
+                .skus(bySku)
+                .notFound(notFound)
+                .build();
+    }
+
+    private int sellableQuantity(InventoryResponse inventory) {
+        return Boolean.TRUE.equals(inventory.getIsActive()) ? Math.max(0, inventory.getAvailableQuantity()) : 0;
+    }
+
     // ==================== STOCK OPERATIONS ====================
 
     @Override
@@ -103,8 +287,13 @@ public class InventoryServiceImpl implements InventoryService {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
 
-        inventory.setTotalQuantity(inventory.getTotalQuantity() + request.getQuantity());
-        inventory = inventoryRepository.save(inventory);
+        if (inventory.isSharded()) {
+            stockShardService.addStock(productId, request.getQuantity());
+            entityManager.refresh(inventory);
+        } else {
+            inventory.setTotalQuantity(inventory.getTotalQuantity() + request.getQuantity());
+            inventory = inventoryRepository.save(inventory);
+        }
 
         createMovement(productId, MovementType.STOCK_IN, request.getQuantity(),
                 null, null, request.getNotes());
@@ -118,13 +307,20 @@ public class InventoryServiceImpl implements InventoryService {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
 
-        // Yeterli stok var mı?
-        if (inventory.getAvailableQuantity() < request.getQuantity()) {
-            throw new InsufficientStockException("Yetersiz stok. Mevcut: " + inventory.getAvailableQuantity());
+        // Yeterli stok var mı? (depo stoğu depo uçlarından düşülür)
+        if (inventory.getCentralAvailableQuantity() < request.getQuantity()) {
+            throw new InsufficientStockException("Yetersiz stok. Mevcut: " + inventory.getCentralAvailableQuantity());
         }
 
-        inventory.setTotalQuantity(inventory.getTotalQuantity() - request.getQuantity());
-        inventory = inventoryRepository.save(inventory);
+        if (inventory.isSharded()) {
+            if (!stockShardService.removeStock(productId, request.getQuantity())) {
+                throw new InsufficientStockException("Yetersiz stok. Mevcut: " + inventory.getCentralAvailableQuantity());
+            }
+            entityManager.refresh(inventory);
+        } else {
+            inventory.setTotalQuantity(inventory.getTotalQuantity() - request.getQuantity());
+            inventory = inventoryRepository.save(inventory);
+        }
 
         createMovement(productId, MovementType.STOCK_OUT, request.getQuantity(),
                 null, null, request.getNotes());
@@ -138,39 +334,86 @@ public class InventoryServiceImpl implements InventoryService {
         Inventory inventory = inventoryRepository.findByProductId(productId)
                 .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
 
+        // Sharded üründe önce shard'lar ana satıra toplanır, düzeltmeden sonra yeniden bölünür
+        int shardCount = inventory.getShardCount();
+        if (inventory.isSharded()) {
+            stockShardService.disableSharding(productId);
+            entityManager.refresh(inventory);
+        }
+
         int difference = newQuantity - inventory.getTotalQuantity();
         inventory.setTotalQuantity(newQuantity);
-        inventory = inventoryRepository.save(inventory);
+        inventory = inventoryRepository.saveAndFlush(inventory);
 
-        createMovement(productId, MovementType.ADJUSTMENT, Math.abs(difference),
+        if (shardCount > 1) {
+            stockShardService.enableSharding(productId, shardCount);
+            entityManager.refresh(inventory);
+        }
+
+        // İşaretli yazılır, mutabakat hareketleri toplarken yönü buradan bilir
+        createMovement(productId, MovementType.ADJUSTMENT, difference,
                 null, null, notes != null ? notes : "Stok düzeltmesi: " + difference);
 
         log.info("Stok düzeltildi: {} - Yeni miktar: {}", inventory.getSku(), newQuantity);
         return inventoryMapper.toResponse(inventory);
     }
 
+    @Override
+    public InventoryResponse updateShardCount(UUID productId, Integer shardCount) {
+        if (shardCount < 1 || shardCount > maxShardCount) {
+            throw new BadRequestException("Shard sayısı 1 ile " + maxShardCount + " arasında olmalı");
+        }
+
+        Inventory inventory = inventoryRepository.findByProductId(productId)
+                .orElseThrow(() -> new ResourceNotFoundException("Stok kaydı bulunamadı"));
+
+        if (inventory.isSharded()) {
+            stockShardService.disableSharding(productId);
+        }
+        if (shardCount > 1) {
+            stockShardService.enableSharding(productId, shardCount);
+        }
+        entityManager.refresh(inventory);
+        inventoryCacheInvalidator.markChanged(productId);
+
+        log.info("Stok shard sayısı güncellendi: {} - {}", inventory.getSku(), shardCount);
+        return inventoryMapper.toResponse(inventory);
+    }
+
     // ==================== RESERVATION OPERATIONS ====================
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ReservationResponse createReservation(ReservationRequest request) {
+        return inNewTransactionWithRetry("createReservation", () -> doCreateReservation(request));
+    }
+
+    private ReservationResponse doCreateReservation(ReservationRequest request) {
         // 1. Bu sipariş için zaten rezervasyon var mı?
         if (reservationRepository.existsByOrderId(request.getOrderId())) {
             throw new BadRequestException("Bu sipariş için zaten rezervasyon mevcut");
         }
 
-        // 2. Tüm ürünler için stok kontrolü
-        for (ReservationItemRequest item : request.getItems()) {
-            Inventory inventory = inventoryRepository.findByProductId(item.getProductId())
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            "Ürün stok kaydı bulunamadı: " + item.getProductId()));
+        // 2. Stok satırlarını product_id sırasıyla kilitle, depolara dağıt ve kontrol et
+        Map<UUID, Integer> needed = new TreeMap<>();
+        request.getItems().forEach(item -> needed.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+        Map<UUID, Inventory> inventories = lockInventories(needed.keySet());
 
-            if (!inventory.hasAvailableStock(item.getQuantity())) {
+        needed.keySet().forEach(productId -> {
+            if (!inventories.containsKey(productId)) {
+                throw new ResourceNotFoundException("Ürün stok kaydı bulunamadı: " + productId);
+            }
+        });
+        AllocationPlan plan = planAllocation(needed, warehouseStocked(inventories), request.getShippingCity());
+        plan.remaining().forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            if (inventory.getCentralAvailableQuantity() < quantity) {
                 throw new InsufficientStockException(
                         "Yetersiz stok: " + inventory.getProductName() +
-                                " - İstenen: " + item.getQuantity() +
+                                " - İstenen: " + needed.get(productId) +
                                 ", Mevcut: " + inventory.getAvailableQuantity());
             }
-        }
+        });
 
         // 3. Rezervasyon oluştur
         Reservation reservation = Reservation.builder()
@@ -181,32 +424,36 @@ public class InventoryServiceImpl implements InventoryService {
 
         reservation = reservationRepository.save(reservation);
 
-        // 4. Rezervasyon itemları oluştur ve stokları güncelle
-        for (ReservationItemRequest itemRequest : request.getItems()) {
-            ReservationItem item = ReservationItem.builder()
-                    .reservation(reservation)
-                    .productId(itemRequest.getProductId())
-                    .quantity(itemRequest.getQuantity())
-                    .build();
-
-            reservation.getItems().add(item);
-
-            // Stoku rezerve et
-            Inventory inventory = inventoryRepository.findByProductId(itemRequest.getProductId()).get();
-            inventory.setReservedQuantity(inventory.getReservedQuantity() + itemRequest.getQuantity());
-            inventoryRepository.save(inventory);
-
-            createMovement(itemRequest.getProductId(), MovementType.RESERVATION,
-                    itemRequest.getQuantity(), reservation.getId(), "RESERVATION", null);
+        // 4. Stokları ayır ve rezervasyon itemlarını oluştur
+        reservation.getItems().addAll(reserveAllocation(reservation, plan, inventories));
+        for (Map.Entry<UUID, Integer> entry : needed.entrySet()) {
+            createMovement(entry.getKey(), MovementType.RESERVATION,
+                    entry.getValue(), reservation.getId(), "RESERVATION", null);
         }
 
         reservation = reservationRepository.save(reservation);
+
+        // Süre takibi commit'ten sonra başlar (rollback olursa çarka girmez)
+        UUID reservationId = reservation.getId();
+        LocalDateTime expiresAt = reservation.getExpiresAt();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reservationExpiryScheduler.schedule(reservationId, expiresAt);
+            }
+        });
+
         log.info("Rezervasyon oluşturuldu: Order={}", request.getOrderId());
         return inventoryMapper.toResponse(reservation);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ReservationResponse confirmReservation(UUID orderId) {
+        return inNewTransactionWithRetry("confirmReservation", () -> doConfirmReservation(orderId));
+    }
+
+    private ReservationResponse doConfirmReservation(UUID orderId) {
         Reservation reservation = reservationRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rezervasyon bulunamadı"));
 
@@ -221,11 +468,9 @@ public class InventoryServiceImpl implements InventoryService {
         }
 
         // 3. Onayla - rezerve edilen stokları düş
-        for (ReservationItem item : reservation.getItems()) {
-            Inventory inventory = inventoryRepository.findByProductId(item.getProductId()).get();
-            inventory.setTotalQuantity(inventory.getTotalQuantity() - item.getQuantity());
-            inventory.setReservedQuantity(inventory.getReservedQuantity() - item.getQuantity());
-            inventoryRepository.save(inventory);
+        Map<UUID, Inventory> inventories = lockInventories(reservedProductIds(reservation));
+        for (ReservationItem item : inLockOrder(reservation.getItems())) {
+            sellStock(inventories.get(item.getProductId()), item);
 
             createMovement(item.getProductId(), MovementType.SALE,
                     item.getQuantity(), reservation.getId(), "ORDER", null);
@@ -240,7 +485,12 @@ public class InventoryServiceImpl implements InventoryService {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ReservationResponse releaseReservation(UUID orderId, String reason) {
+        return inNewTransactionWithRetry("releaseReservation", () -> doReleaseReservation(orderId, reason));
+    }
+
+    private ReservationResponse doReleaseReservation(UUID orderId, String reason) {
         Reservation reservation = reservationRepository.findByOrderId(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Rezervasyon bulunamadı"));
 
@@ -250,10 +500,9 @@ public class InventoryServiceImpl implements InventoryService {
         }
 
         // 2. Rezervasyonu serbest bırak
-        for (ReservationItem item : reservation.getItems()) {
-            Inventory inventory = inventoryRepository.findByProductId(item.getProductId()).get();
-            inventory.setReservedQuantity(inventory.getReservedQuantity() - item.getQuantity());
-            inventoryRepository.save(inventory);
+        Map<UUID, Inventory> inventories = lockInventories(reservedProductIds(reservation));
+        for (ReservationItem item : inLockOrder(reservation.getItems())) {
+            releaseStock(inventories.get(item.getProductId()), item);
 
             createMovement(item.getProductId(), MovementType.RESERVATION_CANCEL,
                     item.getQuantity(), reservation.getId(), "RESERVATION", reason);
@@ -280,10 +529,35 @@ public class InventoryServiceImpl implements InventoryService {
 
     @Override
     @Transactional(readOnly = true)
-    public List<StockMovementResponse> getMovementsByProductId(UUID productId) {
-        return movementRepository.findByProductIdOrderByCreatedAtDesc(productId).stream()
-                .map(inventoryMapper::toResponse)
-                .collect(Collectors.toList());
+    public CursorPageResponse<StockMovementResponse> getMovementsByProductId(UUID productId, String cursor, int size) {
+        if (size < 1 || size > maxMovementPageSize) {
+            throw new BadRequestException("Sayfa boyutu 1 ile " + maxMovementPageSize + " arasında olmalı");
+        }
+
+        LocalDateTime beforeCreatedAt = null;
+        UUID beforeId = null;
+        if (cursor != null) {
+            String[] parts = CursorCodec.decode(cursor, 2);
+            try {
+                beforeCreatedAt = LocalDateTime.parse(parts[0]);
+                beforeId = UUID.fromString(parts[1]);
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new BadRequestException("Geçersiz cursor");
+            }
+        }
+
+        // Bir fazlası okunur: sonraki sayfa olup olmadığı ek COUNT sorgusu olmadan anlaşılır
+        List<InventoryMovement> movements =
+                movementJournalService.findByProductId(productId, beforeCreatedAt, beforeId, size + 1);
+        boolean hasMore = movements.size() > size;
+        List<InventoryMovement> page = hasMore ? movements.subList(0, size) : movements;
+
+        InventoryMovement last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return CursorPageResponse.<StockMovementResponse>builder()
+                .items(page.stream().map(inventoryMapper::toResponse).collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(hasMore ? CursorCodec.encode(last.getCreatedAt().toString(), last.getId().toString()) : null)
+                .build();
     }
 
     @Override
@@ -291,19 +565,42 @@ public class InventoryServiceImpl implements InventoryService {
     public void reserveInventoryForOrder(InventoryReserveRequestEvent event) {
         log.info("Sipariş için stok rezervasyonu başlatılıyor: orderId={}", event.getOrderId());
 
+        // Aynı sipariş için tekrar gelen istek: stoğa dokunmadan önceki sonucu yeniden bildir
+        Optional<Reservation> existing = reservationRepository.findByOrderId(event.getOrderId());
+        if (existing.isPresent()) {
+            Reservation reservation = existing.get();
+            log.info("Sipariş için rezervasyon zaten var: orderId={}, status={}",
+                    event.getOrderId(), reservation.getStatus());
+            if (reservation.getStatus() == ReservationStatus.CONFIRMED) {
+                sendSuccessEvent(event.getOrderId(), reservation.getId());
+            } else {
+                sendFailureEvent(event.getOrderId(), "Rezervasyon artık geçerli değil: " + reservation.getStatus());
+            }
+            return;
+        }
+
         try {
-            // 1. Tüm ürünler için stok kontrolü yap
+            // 1. Stok satırlarını product_id sırasıyla kilitle, depolara dağıt ve tüm ürünler için kontrol et
+            Map<UUID, Integer> needed = new TreeMap<>();
+            event.getItems().forEach(item -> needed.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+            Map<UUID, Inventory> inventories = lockInventories(needed.keySet());
+
             for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
-                Inventory inventory = inventoryRepository.findByProductId(item.getProductId())
-                        .orElseThrow(() -> new ResourceNotFoundException(
-                                "Ürün stoğu bulunamadı: " + item.getProductId()));
+                if (!inventories.containsKey(item.getProductId())) {
+                    throw new ResourceNotFoundException("Ürün stoğu bulunamadı: " + item.getProductId());
+                }
+            }
+            AllocationPlan plan = planAllocation(needed, warehouseStocked(inventories), event.getShippingCity());
 
-                if (inventory.getAvailableQuantity() < item.getQuantity()) {
+            for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
+                Inventory inventory = inventories.get(item.getProductId());
+                Integer central = plan.remaining().get(item.getProductId());
+                if (central != null && inventory.getCentralAvailableQuantity() < central) {
                     // Stok yetersiz - başarısız event gönder
                     sendFailureEvent(event.getOrderId(),
                             "Yetersiz stok: " + item.getProductName() +
                                     " (Mevcut: " + inventory.getAvailableQuantity() +
-                                    ", İstenen: " + item.getQuantity() + ")");
+                                    ", İstenen: " + needed.get(item.getProductId()) + ")");
                     return;
                 }
             }
@@ -316,34 +613,13 @@ public class InventoryServiceImpl implements InventoryService {
                     .build();
             reservation = reservationRepository.save(reservation);
 
-            // 3. Her ürün için rezervasyon yap
-            for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
-                Inventory inventory = inventoryRepository.findByProductId(item.getProductId()).get();
-
-                // Rezervasyon item oluştur
-                ReservationItem reservationItem = ReservationItem.builder()
-                        .reservation(reservation)
-                        .productId(item.getProductId())
-                        .quantity(item.getQuantity())
-                        .build();
-                reservationItemRepository.save(reservationItem);
-
-                // Stok güncelle
-                inventory.setReservedQuantity(inventory.getReservedQuantity() + item.getQuantity());
-                inventoryRepository.save(inventory);
-
-                // Hareket kaydı
-                InventoryMovement movement = InventoryMovement.builder()
-                        .productId(item.getProductId())
-                        .movementType(MovementType.RESERVATION)
-                        .quantity(item.getQuantity())
-                        .referenceId(reservation.getId())
-                        .notes("Sipariş rezervasyonu: " + event.getOrderId())
-                        .build();
-                movementRepository.save(movement);
-
-                log.debug("Stok rezerve edildi: productId={}, quantity={}",
-                        item.getProductId(), item.getQuantity());
+            // 3. Stokları ayır (kilit sırasıyla) ve hareketleri yaz
+            reservationItemRepository.saveAll(reserveAllocation(reservation, plan, inventories));
+            for (Map.Entry<UUID, Integer> entry : needed.entrySet()) {
+                createMovement(entry.getKey(), MovementType.RESERVATION, entry.getValue(),
+                        reservation.getId(), null, "Sipariş rezervasyonu: " + event.getOrderId());
+
+                log.debug("Stok rezerve edildi: productId={}, quantity={}", entry.getKey(), entry.getValue());
             }
 
             // 4. Rezervasyonu onayla
@@ -351,17 +627,306 @@ public class InventoryServiceImpl implements InventoryService {
             reservation.setConfirmedAt(LocalDateTime.now());
             reservationRepository.save(reservation);
 
-            // 5. Başarılı event gönder
+            // 5. Başarılı event'i commit'ten sonra gönder
             sendSuccessEvent(event.getOrderId(), reservation.getId());
 
             log.info("Stok rezervasyonu tamamlandı: orderId={}, reservationId={}",
                     event.getOrderId(), reservation.getId());
 
+        } catch (ConcurrencyFailureException e) {
+            // Geçici kilit çakışması: transaction geri alınır, çağıran baştan dener
+            throw e;
         } catch (Exception e) {
+            // Yarım kalan rezervasyon ve mesaj işareti birlikte geri alınır;
+            // başarısızlık geri alma bittikten sonra rejectReservation ile bildirilir
             log.error("Stok rezervasyonu başarısız: orderId={}, error={}",
                     event.getOrderId(), e.getMessage());
-            sendFailureEvent(event.getOrderId(), "Sistem hatası: " + e.getMessage());
+            throw e;
+        }
+    }
+
+    @Override
+    @Transactional
+    public void rejectReservation(UUID orderId, String reason) {
+        // Bu arada aynı sipariş için rezervasyon yazıldıysa geçerli sonuç odur
+        if (reservationRepository.findByOrderId(orderId).isPresent()) {
+            log.info("Sipariş için rezervasyon var, başarısızlık bildirilmedi: orderId={}", orderId);
+            return;
+        }
+        sendFailureEvent(orderId, reason);
+    }
+
+    /**
+     * Bir poll'daki rezervasyon isteklerini tek transaction'da işler:
+     * dokunulan tüm stok satırları tek sorguyla ve product_id sırasıyla kilitlenir,
+     * rezervasyonlar bellekte uygulanır ve yazmalar JDBC batch olarak gönderilir.
+     * Depo stoğu olan ürünler tekil yolla aynı planlayıcıyla önce depolara dağıtılır; kalan
+     * miktar ana stoktan istenir. Sonuç event'leri commit'ten sonra sipariş başına yayınlanır.
+     */
+    @Override
+    public void reserveInventoryForOrders(List<InventoryReserveRequestEvent> events) {
+        List<InventoryReservedEvent> results = new ArrayList<>(events.size());
+
+        // 1. Aynı sipariş için tekrar gelen istekler: önceki sonucu yeniden bildir
+        Map<UUID, InventoryReserveRequestEvent> requests = new LinkedHashMap<>();
+        events.forEach(event -> requests.putIfAbsent(event.getOrderId(), event));
+        for (Reservation existing : reservationRepository.findByOrderIdIn(requests.keySet())) {
+            requests.remove(existing.getOrderId());
+            results.add(existing.getStatus() == ReservationStatus.CONFIRMED
+                    ? buildReservedEvent(existing.getOrderId(), existing.getId(), null)
+                    : buildReservedEvent(existing.getOrderId(), null,
+                    "Rezervasyon artık geçerli değil: " + existing.getStatus()));
+        }
+
+        // 2. Dokunulan tüm ürünleri kilitle
+        Set<UUID> productIds = requests.values().stream()
+                .flatMap(event -> event.getItems().stream())
+                .map(InventoryReserveRequestEvent.OrderItemEvent::getProductId)
+                .collect(Collectors.toSet());
+        Map<UUID, Integer> available = lockAvailableStock(productIds);
+        // Sharded ürünler kilitlenmez; rezervasyonları shard sayacından alınır
+        Set<UUID> shardedProducts = findShardedProducts(productIds);
+        Set<UUID> warehouseStocked = findWarehouseStockedProducts(productIds);
+
+        // 3. Rezervasyonları bellekte uygula (geliş sırasıyla)
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAt = now.plusMinutes(15);
+        Map<UUID, Integer> reservedDelta = new TreeMap<>();
+        List<Object[]> reservationRows = new ArrayList<>();
+        List<Object[]> itemRows = new ArrayList<>();
+
+        for (InventoryReserveRequestEvent event : requests.values()) {
+            Map<UUID, Integer> needed = new LinkedHashMap<>();
+            event.getItems().forEach(item -> needed.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+
+            AllocationPlan plan = planAllocation(needed, warehouseStocked, event.getShippingCity());
+            Map<UUID, Integer> central = plan.remaining();
+
+            String failureReason = findShortage(event, central, available, shardedProducts);
+            if (failureReason == null) {
+                failureReason = reserveShardedItems(event, central, shardedProducts);
+            }
+            if (failureReason != null) {
+                results.add(buildReservedEvent(event.getOrderId(), null, failureReason));
+                continue;
+            }
+            // Koşullu UPDATE hemen uygulanır, sonraki siparişin planı bu ayırmayı görür. Plandan
+            // sonra stok değiştiyse ya da depo satırında kilit sırası çakışırsa batch yeniden denenir
+            warehouseStockService.reserve(plan.allocations());
+
+            UUID reservationId = UUID.randomUUID();
+            reservationRows.add(new Object[]{reservationId, event.getOrderId(), expiresAt, now});
+            central.forEach((productId, quantity) -> {
+                if (!shardedProducts.contains(productId)) {
+                    available.merge(productId, -quantity, Integer::sum);
+                    reservedDelta.merge(productId, quantity, Integer::sum);
+                }
+                itemRows.add(new Object[]{reservationId, productId, null, quantity});
+            });
+            plan.allocations().forEach(allocation -> itemRows.add(new Object[]{
+                    reservationId, allocation.productId(), allocation.warehouseId(), allocation.quantity()}));
+            needed.forEach((productId, quantity) -> createMovement(productId, MovementType.RESERVATION,
+                    quantity, reservationId, null, "Sipariş rezervasyonu: " + event.getOrderId()));
+            results.add(buildReservedEvent(event.getOrderId(), reservationId, null));
+        }
+
+        // 4. Yazmaları batch olarak gönder
+        if (!reservationRows.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO reservations (id, order_id, status, expires_at, confirmed_at) " +
+                    "VALUES (?, ?, 'CONFIRMED', ?, ?)", reservationRows);
+            jdbcTemplate.batchUpdate("INSERT INTO reservation_items (reservation_id, product_id, warehouse_id, quantity) " +
+                    "VALUES (?, ?, ?, ?)", itemRows);
+            if (!reservedDelta.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE inventories SET reserved_quantity = reserved_quantity + ?, " +
+                                "version = version + 1 WHERE product_id = ?",
+                        reservedDelta.entrySet().stream()
+                                .map(entry -> new Object[]{entry.getValue(), entry.getKey()})
+                                .toList());
+            }
+        }
+
+        log.info("Toplu stok rezervasyonu: {} istek, {} rezervasyon, {} ürün",
+                events.size(), reservationRows.size(), reservedDelta.size());
+
+        // 5. Sonuçları commit'ten sonra yayınla
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                results.forEach(kafkaProducer::sendInventoryReservedEvent);
+            }
+        });
+    }
+
+    /**
+     * Rezervasyonun dokunduğu stok satırlarını tek SELECT ... FOR UPDATE ile, product_id sırasıyla
+     * kilitler. İstekteki ürün sırası ne olursa olsun tüm yazıcılar kilitleri aynı sırayla aldığından
+     * karşılıklı bekleme (deadlock) oluşmaz. Sharded ürünler shard servisi üzerinden değiştiği için
+     * kilitlenmeden okunur. Dönen map product_id sıralıdır.
+     */
+    private Map<UUID, Inventory> lockInventories(Set<UUID> productIds) {
+        Map<UUID, Inventory> inventories = new TreeMap<>();
+        if (productIds.isEmpty()) {
+            return inventories;
+        }
+        inventoryRepository.lockUnshardedByProductIdIn(productIds)
+                .forEach(inventory -> inventories.put(inventory.getProductId(), inventory));
+
+        Set<UUID> remaining = new HashSet<>(productIds);
+        remaining.removeAll(inventories.keySet());
+        if (!remaining.isEmpty()) {
+            inventoryRepository.findByProductIdIn(remaining)
+                    .forEach(inventory -> inventories.put(inventory.getProductId(), inventory));
+        }
+        return inventories;
+    }
+
+    /**
+     * Depo stoğu olan ürünleri teslimat şehrine göre depolara dağıtır; diğerleri ve depolarda
+     * karşılanamayan miktar ana stoğa kalır. Hiçbir üründe depo stoğu yoksa sorgu atılmaz.
+     * Tüm rezervasyon yolları (REST, tekil ve toplu Kafka, ledger flush'ı) bu kuralı kullanır.
+     */
+    private AllocationPlan planAllocation(Map<UUID, Integer> needed, Set<UUID> warehouseStocked,
+                                          String shippingCity) {
+        Map<UUID, Integer> located = new TreeMap<>();
+        needed.forEach((productId, quantity) -> {
+            if (warehouseStocked.contains(productId)) {
+                located.put(productId, quantity);
+            }
+        });
+        if (located.isEmpty()) {
+            return AllocationPlan.central(needed);
+        }
+
+        AllocationPlan plan = warehouseStockService.plan(located, shippingCity);
+        Map<UUID, Integer> remaining = new TreeMap<>(needed);
+        remaining.keySet().removeAll(located.keySet());
+        remaining.putAll(plan.remaining());
+        return new AllocationPlan(plan.allocations(), remaining);
+    }
+
+    // Kilit sırası: ana satırlar (kilitli) → shard'lar → (product_id, warehouse_id) sırasıyla depo satırları
+    private List<ReservationItem> reserveAllocation(Reservation reservation, AllocationPlan plan,
+                                                    Map<UUID, Inventory> inventories) {
+        List<ReservationItem> items = new ArrayList<>();
+        plan.remaining().forEach((productId, quantity) -> {
+            Inventory inventory = inventories.get(productId);
+            if (!reserveStock(inventory, quantity)) {
+                throw new InsufficientStockException("Yetersiz stok: " + inventory.getProductName());
+            }
+            items.add(ReservationItem.builder()
+                    .reservation(reservation)
+                    .productId(productId)
+                    .quantity(quantity)
+                    .build());
+        });
+
+        warehouseStockService.reserve(plan.allocations());
+        plan.allocations().forEach(allocation -> items.add(ReservationItem.builder()
+                .reservation(reservation)
+                .productId(allocation.productId())
+                .warehouseId(allocation.warehouseId())
+                .quantity(allocation.quantity())
+                .build()));
+        return items;
+    }
+
+    private List<ReservationItem> inLockOrder(List<ReservationItem> items) {
+        return items.stream()
+                .sorted(Comparator.comparing((ReservationItem item) -> item.getWarehouseId() != null)
+                        .thenComparing(ReservationItem::getProductId)
+                        .thenComparing(ReservationItem::getWarehouseId, Comparator.nullsFirst(Comparator.naturalOrder())))
+                .toList();
+    }
+
+    private Set<UUID> reservedProductIds(Reservation reservation) {
+        return reservation.getItems().stream()
+                .map(ReservationItem::getProductId)
+                .collect(Collectors.toSet());
+    }
+
+    // Her deneme yeni bir transaction'dır; çakışmada kilitler bırakılıp baştan alınır
+    private <T> T inNewTransactionWithRetry(String operation, Supplier<T> action) {
+        return conflictRetryExecutor.execute(operation, () -> transactionTemplate.execute(status -> action.get()));
+    }
+
+    private Map<UUID, Integer> lockAvailableStock(Set<UUID> productIds) {
+        Map<UUID, Integer> available = new HashMap<>();
+        if (productIds.isEmpty()) {
+            return available;
+        }
+        // ORDER BY + FOR UPDATE: satırlar her transaction'da aynı sırayla kilitlenir, deadlock oluşmaz
+        namedParameterJdbcTemplate.query(
+                "SELECT product_id, total_quantity - reserved_quantity AS available FROM inventories " +
+                        "WHERE product_id IN (:productIds) AND shard_count = 1 ORDER BY product_id FOR UPDATE",
+                Map.of("productIds", productIds),
+                rs -> {
+                    available.put(rs.getObject("product_id", UUID.class), rs.getInt("available"));
+                });
+        return available;
+    }
+
+    private Set<UUID> warehouseStocked(Map<UUID, Inventory> inventories) {
+        return inventories.values().stream()
+                .filter(Inventory::isWarehouseStocked)
+                .map(Inventory::getProductId)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<UUID> findWarehouseStockedProducts(Set<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT product_id FROM inventories WHERE product_id IN (:productIds) AND warehouse_stocked",
+                Map.of("productIds", productIds), UUID.class));
+    }
+
+    private Set<UUID> findShardedProducts(Set<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(namedParameterJdbcTemplate.queryForList(
+                "SELECT product_id FROM inventories WHERE product_id IN (:productIds) AND shard_count > 1",
+                Map.of("productIds", productIds), UUID.class));
+    }
+
+    private String reserveShardedItems(InventoryReserveRequestEvent event, Map<UUID, Integer> needed,
+                                       Set<UUID> shardedProducts) {
+        Map<UUID, Integer> reserved = new LinkedHashMap<>();
+        for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
+            UUID productId = item.getProductId();
+            if (!shardedProducts.contains(productId) || reserved.containsKey(productId)
+                    || !needed.containsKey(productId)) {
+                continue;
+            }
+            if (!stockShardService.reserve(productId, needed.get(productId))) {
+                // Siparişin bu batch'te aldığı shard stoğunu geri ver
+                reserved.forEach(stockShardService::release);
+                return "Yetersiz stok: " + item.getProductName();
+            }
+            reserved.put(productId, needed.get(productId));
+        }
+        return null;
+    }
+
+    private String findShortage(InventoryReserveRequestEvent event, Map<UUID, Integer> needed,
+                                Map<UUID, Integer> available, Set<UUID> shardedProducts) {
+        for (InventoryReserveRequestEvent.OrderItemEvent item : event.getItems()) {
+            // Sharded ürünler shard sayacından, tamamı depolardan karşılananlar planla ayrılır
+            if (shardedProducts.contains(item.getProductId()) || !needed.containsKey(item.getProductId())) {
+                continue;
+            }
+            Integer stock = available.get(item.getProductId());
+            if (stock == null) {
+                return "Ürün stoğu bulunamadı: " + item.getProductId();
+            }
+            int quantity = needed.get(item.getProductId());
+            if (stock < quantity) {
+                return "Yetersiz stok: " + item.getProductName() +
+                        " (Mevcut: " + stock + ", İstenen: " + quantity + ")";
+            }
         }
+        return null;
     }
 
     @Override
@@ -374,24 +939,16 @@ public class InventoryServiceImpl implements InventoryService {
                     reservation.getStatus() == ReservationStatus.PENDING) {
 
                 // Her item için stok geri ver
-                for (ReservationItem item : reservation.getItems()) {
-                    Inventory inventory = inventoryRepository.findByProductId(item.getProductId())
-                            .orElse(null);
+                Map<UUID, Inventory> inventories = lockInventories(reservedProductIds(reservation));
+                for (ReservationItem item : inLockOrder(reservation.getItems())) {
+                    Inventory inventory = inventories.get(item.getProductId());
 
                     if (inventory != null) {
-                        inventory.setReservedQuantity(
-                                inventory.getReservedQuantity() - item.getQuantity());
-                        inventoryRepository.save(inventory);
+                        releaseStock(inventory, item);
 
                         // Hareket kaydı
-                        InventoryMovement movement = InventoryMovement.builder()
-                                .productId(item.getProductId())
-                                .movementType(MovementType.RESERVATION_CANCEL)
-                                .quantity(item.getQuantity())
-                                .referenceId(reservation.getId())
-                                .notes("Rezervasyon iptali: " + reason)
-                                .build();
-                        movementRepository.save(movement);
+                        createMovement(item.getProductId(), MovementType.RESERVATION_CANCEL, item.getQuantity(),
+                                reservation.getId(), null, "Rezervasyon iptali: " + reason);
                     }
                 }
 
@@ -405,38 +962,88 @@ public class InventoryServiceImpl implements InventoryService {
         });
     }
 
+    // Başarı sadece commit'ten sonra yayınlanır: commit'te çakışma olup yeniden denenirse gitmemiş olur
     private void sendSuccessEvent(UUID orderId, UUID reservationId) {
-        InventoryReservedEvent event = InventoryReservedEvent.builder()
-                .orderId(orderId)
-                .reservationId(reservationId)
-                .success(true)
-                .timestamp(LocalDateTime.now())
-                .build();
-        kafkaProducer.sendInventoryReservedEvent(event);
+        InventoryReservedEvent event = buildReservedEvent(orderId, reservationId, null);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                kafkaProducer.sendInventoryReservedEvent(event);
+            }
+        });
     }
 
+    // Başarısızlık da commit'ten sonra yayınlanır: mesaj işareti yazılmadan sipariş bilgilendirilmez
     private void sendFailureEvent(UUID orderId, String reason) {
-        InventoryReservedEvent event = InventoryReservedEvent.builder()
+        InventoryReservedEvent event = buildReservedEvent(orderId, null, reason);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                kafkaProducer.sendInventoryReservedEvent(event);
+            }
+        });
+    }
+
+    private InventoryReservedEvent buildReservedEvent(UUID orderId, UUID reservationId, String failureReason) {
+        return InventoryReservedEvent.builder()
                 .orderId(orderId)
-                .success(false)
-                .failureReason(reason)
+                .reservationId(reservationId)
+                .success(failureReason == null)
+                .failureReason(failureReason)
                 .timestamp(LocalDateTime.now())
                 .build();
-        kafkaProducer.sendInventoryReservedEvent(event);
     }
 
     // ==================== HELPER METHODS ====================
 
+    // Sharded ürünlerde stok shard satırlarında değişir, ana satır ve version'ı hiç kilitlenmez
+    private boolean reserveStock(Inventory inventory, int quantity) {
+        if (inventory.isSharded()) {
+            return stockShardService.reserve(inventory.getProductId(), quantity);
+        }
+        inventory.setReservedQuantity(inventory.getReservedQuantity() + quantity);
+        inventoryRepository.save(inventory);
+        return true;
+    }
+
+    private void releaseStock(Inventory inventory, ReservationItem item) {
+        if (item.getWarehouseId() != null) {
+            warehouseStockService.release(item.getProductId(), item.getWarehouseId(), item.getQuantity());
+            return;
+        }
+        releaseStock(inventory, item.getQuantity());
+    }
+
+    private void releaseStock(Inventory inventory, int quantity) {
+        if (inventory.isSharded()) {
+            stockShardService.release(inventory.getProductId(), quantity);
+            return;
+        }
+        inventory.setReservedQuantity(inventory.getReservedQuantity() - quantity);
+        inventoryRepository.save(inventory);
+    }
+
+    private void sellStock(Inventory inventory, ReservationItem item) {
+        if (item.getWarehouseId() != null) {
+            warehouseStockService.sell(item.getProductId(), item.getWarehouseId(), item.getQuantity());
+            return;
+        }
+        sellStock(inventory, item.getQuantity());
+    }
+
+    private void sellStock(Inventory inventory, int quantity) {
+        if (inventory.isSharded()) {
+            stockShardService.sell(inventory.getProductId(), quantity);
+            return;
+        }
+        inventory.setTotalQuantity(inventory.getTotalQuantity() - quantity);
+        inventory.setReservedQuantity(inventory.getReservedQuantity() - quantity);
+        inventoryRepository.save(inventory);
+    }
+
+    // Commit'ten önce diğer hareketlerle birlikte tek batch'te yazılır
     private void createMovement(UUID productId, MovementType type, Integer quantity,
                                 UUID referenceId, String referenceType, String notes) {
-        InventoryMovement movement = InventoryMovement.builder()
-                .productId(productId)
-                .movementType(type)
-                .quantity(quantity)
-                .referenceId(referenceId)
-                .referenceType(referenceType)
-                .notes(notes)
-                .build();
-        movementRepository.save(movement);
+        movementJournalService.append(productId, type, quantity, referenceId, referenceType, notes);
     }
 }
\ No newline at end of file
@@ -0,0 +1,19 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.entity.InventoryMovement;
+import com.ecommerce.inventory.entity.MovementType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface MovementJournalService {
+
+    void append(UUID productId, MovementType type, Integer quantity,
+                UUID referenceId, String referenceType, String notes);
+
+    // En yeniden eskiye; before null ise ilk sayfa
+    List<InventoryMovement> findByProductId(UUID productId, LocalDateTime beforeCreatedAt, UUID beforeId, int limit);
+
+    void maintainPartitions();
+}
@@ -0,0 +1,157 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.cache.InventoryCacheInvalidator;
+import com.ecommerce.inventory.entity.InventoryMovement;
+import com.ecommerce.inventory.entity.MovementType;
+import com.ecommerce.inventory.repository.InventoryMovementRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * inventory_movements için yalnızca ekleme yapan günlük.
+ *
+ * Transaction içinde eklenen hareketler transaction'a bağlı bir buffer'da toplanır ve commit'ten
+ * hemen önce tek bir batch INSERT ile yazılır (reWriteBatchedInserts ile çok satırlı INSERT'e
+ * dönüşür). Böylece hareketler stok değişikliğiyle aynı transaction'da kalır, rollback olursa
+ * hiç yazılmaz. Tablo aylık partition'lıdır; okumalar (product_id, created_at, id) üzerinden keyset ile yapılır.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class MovementJournalServiceImpl implements MovementJournalService {
+
+    private static final int MAINTENANCE_LOCK_KEY = 8_001;
+
+    private static final String INSERT_SQL = "INSERT INTO inventory_movements " +
+            "(product_id, movement_type, quantity, reference_id, reference_type, notes, created_at) " +
+            "VALUES (?, ?::movement_type, ?, ?, ?, ?, ?)";
+
+    private final InventoryMovementRepository movementRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final EntityManager entityManager;
+    private final InventoryCacheInvalidator inventoryCacheInvalidator;
+
+    @Value("${inventory.movements.precreate-months:2}")
+    private int precreateMonths;
+
+    private Counter appendedCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        appendedCounter = Counter.builder("inventory.movements.appended")
+                .description("inventory_movements tablosuna yazılan hareket sayısı")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void append(UUID productId, MovementType type, Integer quantity,
+                       UUID referenceId, String referenceType, String notes) {
+        // Her stok değişikliği bir hareket yazar; cache'teki kaydı commit'ten sonra düşürmek için tek nokta
+        inventoryCacheInvalidator.markChanged(productId);
+
+        Object[] row = {productId, type.name(), quantity, referenceId, referenceType, notes,
+                Timestamp.valueOf(LocalDateTime.now())};
+
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            write(Collections.singletonList(row));
+            return;
+        }
+        currentBuffer().add(row);
+    }
+
+    @Override
+    public List<InventoryMovement> findByProductId(UUID productId, LocalDateTime beforeCreatedAt,
+                                                   UUID beforeId, int limit) {
+        if (beforeCreatedAt == null || beforeId == null) {
+            return movementRepository.findLatestByProductId(productId, limit);
+        }
+        return movementRepository.findByProductIdBefore(productId, beforeCreatedAt, beforeId, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Override
+    @Scheduled(cron = "${inventory.movements.partition-cron:0 30 3 * * *}")
+    public void maintainPartitions() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Boolean locked = jdbcTemplate.queryForObject(
+                        "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    return;
+                }
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+
+                LocalDate month = LocalDate.now(ZoneOffset.UTC).withDayOfMonth(1);
+                for (int i = 0; i <= precreateMonths; i++) {
+                    jdbcTemplate.queryForObject("SELECT ensure_movement_partition(?)", String.class, month.plusMonths(i));
+                }
+            });
+        } catch (Exception e) {
+            // Bir sonraki çalışmada tekrar denenecek; o zamana kadar kayıtlar default partition'a düşer
+            log.error("Hareket partition bakımı başarısız: {}", e.getMessage());
+        }
+    }
+
+    // Resource yerine synchronization'a bağlı: REQUIRES_NEW ile açılan iç transaction'lar kendi buffer'ını alır
+    private List<Object[]> currentBuffer() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof MovementBuffer buffer) {
+                return buffer.rows;
+            }
+        }
+        MovementBuffer buffer = new MovementBuffer();
+        TransactionSynchronizationManager.registerSynchronization(buffer);
+        return buffer.rows;
+    }
+
+    private void write(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        appendedCounter.increment(rows.size());
+        log.debug("{} stok hareketi yazıldı", rows.size());
+    }
+
+    private final class MovementBuffer implements TransactionSynchronization {
+
+        private final List<Object[]> rows = new ArrayList<>();
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            // Bekleyen entity güncellemeleri önce yazılır: hareketin seq'i alınırken stok satırı
+            // kilitli olur, mutabakat kilidi commit edilmemiş bir hareketi atlayamaz
+            entityManager.flush();
+            write(rows);
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.request.ReconciliationRequest;
+import com.ecommerce.inventory.dto.response.ReconciliationResponse;
+
+public interface StockReconciliationService {
+
+    ReconciliationResponse reconcile(ReconciliationRequest request);
+
+    void refreshSnapshots();
+}
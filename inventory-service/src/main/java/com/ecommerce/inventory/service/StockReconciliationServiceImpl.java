@@ -0,0 +1,305 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.cache.InventoryCacheInvalidator;
+import com.ecommerce.inventory.dto.request.ReconciliationRequest;
+import com.ecommerce.inventory.dto.response.ProductReconciliationResponse;
+import com.ecommerce.inventory.dto.response.ReconciliationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stok miktarlarını inventory_movements defterine göre doğrular.
+ *
+ * Her ürün için son snapshot (movement seq N'deki toplam/rezerve miktar) okunur ve sadece
+ * seq > N olan hareketler toplanır; maliyet snapshot'tan sonraki hareket sayısıyla orantılıdır.
+ * Kontrol sırasında ürünün ana satırı ve shard'ları kilitlenir. Hareketler stok satırı
+ * güncellendikten sonra aynı transaction'da yazıldığı için kilit alındığında commit edilmemiş
+ * hareket kalmaz, yeni snapshot'ın seq'inden küçük bir hareket sonradan görünür olamaz.
+ *
+ * Snapshot'lar periyodik olarak ve her kontrolde ilerletilir. Ürünler paralel işlenir, her biri
+ * kendi transaction'ındadır.
+ *
+ * Snapshot'ı olmayan ürünün ilk kontrolünde mevcut miktar, ürünün o anki son hareket seq'inde
+ * açılış snapshot'ı olarak yazılır: defterden önce oluşturulmuş ya da açılış hareketi olmadan
+ * yüklenmiş stok uyuşmazlık sayılıp rebuild ile sıfırlanmaz. Doğrulama sonraki hareketlerden başlar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockReconciliationServiceImpl implements StockReconciliationService {
+
+    // Hareket tipinin toplam ve rezerve miktara etkisi (ADJUSTMENT işaretli yazılır)
+    private static final String REPLAY_SQL = "SELECT COALESCE(MAX(seq), ?) AS last_seq, COUNT(*) AS replayed, " +
+            "COALESCE(SUM(CASE movement_type " +
+            "    WHEN 'STOCK_IN' THEN quantity WHEN 'ADJUSTMENT' THEN quantity " +
+            "    WHEN 'STOCK_OUT' THEN -quantity WHEN 'SALE' THEN -quantity ELSE 0 END), 0) AS total_delta, " +
+            "COALESCE(SUM(CASE movement_type " +
+            "    WHEN 'RESERVATION' THEN quantity " +
+            "    WHEN 'RESERVATION_CANCEL' THEN -quantity WHEN 'SALE' THEN -quantity ELSE 0 END), 0) AS reserved_delta " +
+            "FROM inventory_movements WHERE product_id = ? AND seq > ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final InventoryCacheInvalidator inventoryCacheInvalidator;
+
+    @Value("${inventory.reconciliation.workers:4}")
+    private int workerCount;
+
+    @Value("${inventory.reconciliation.page-size:1000}")
+    private int pageSize;
+
+    @Value("${inventory.reconciliation.snapshot-max-age-minutes:60}")
+    private long snapshotMaxAgeMinutes;
+
+    @Value("${inventory.reconciliation.snapshot-batch-size:500}")
+    private int snapshotBatchSize;
+
+    private ExecutorService executor;
+    private Counter mismatchCounter;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger threadIndex = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "stock-reconciliation-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        mismatchCounter = Counter.builder("inventory.reconciliation.mismatches")
+                .description("Hareket defteriyle uyuşmayan stok kaydı sayısı")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Override
+    public ReconciliationResponse reconcile(ReconciliationRequest request) {
+        Summary summary = new Summary();
+
+        if (request.getProductIds() != null && !request.getProductIds().isEmpty()) {
+            summary.add(runParallel(request.getProductIds(), request.isRebuild()));
+        } else {
+            // Tüm ürünler: product_id üzerinden keyset ile sayfa sayfa
+            UUID last = new UUID(0, 0);
+            List<UUID> page;
+            do {
+                page = jdbcTemplate.queryForList("SELECT product_id FROM inventories WHERE is_active = true " +
+                        "AND product_id > ? ORDER BY product_id LIMIT ?", UUID.class, last, pageSize);
+                if (!page.isEmpty()) {
+                    summary.add(runParallel(page, request.isRebuild()));
+                    last = page.get(page.size() - 1);
+                }
+            } while (page.size() == pageSize);
+        }
+
+        int rebuilt = (int) summary.mismatches.stream().filter(ProductReconciliationResponse::isRebuilt).count();
+        log.info("Stok mutabakatı: {} ürün kontrol edildi, {} uyuşmazlık, {} yeniden hesaplandı, {} hata",
+                summary.checked, summary.mismatches.size(), rebuilt, summary.failed);
+
+        return ReconciliationResponse.builder()
+                .checked(summary.checked)
+                .mismatched(summary.mismatches.size())
+                .rebuilt(rebuilt)
+                .failed(summary.failed)
+                .movementsReplayed(summary.replayed)
+                .mismatches(summary.mismatches)
+                .build();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.reconciliation.snapshot-interval-ms:300000}")
+    public void refreshSnapshots() {
+        // Snapshot'ı olmayan ya da en eski olan ürünler önce
+        List<UUID> stale = jdbcTemplate.queryForList("SELECT i.product_id FROM inventories i " +
+                        "LEFT JOIN inventory_stock_snapshots s ON s.product_id = i.product_id " +
+                        "WHERE s.product_id IS NULL OR s.taken_at < ? " +
+                        "ORDER BY s.taken_at NULLS FIRST LIMIT ?",
+                UUID.class, LocalDateTime.now().minusMinutes(snapshotMaxAgeMinutes), snapshotBatchSize);
+        if (stale.isEmpty()) {
+            return;
+        }
+
+        long mismatched = runParallel(stale, false).stream().filter(Result::mismatch).count();
+        log.info("Stok snapshot'ları yenilendi: {} ürün, {} uyuşmazlık", stale.size(), mismatched);
+    }
+
+    private List<Result> runParallel(List<UUID> productIds, boolean rebuild) {
+        List<Future<Result>> futures = new ArrayList<>(productIds.size());
+        for (UUID productId : productIds) {
+            futures.add(executor.submit(() -> transactionTemplate.execute(status -> reconcileProduct(productId, rebuild))));
+        }
+
+        List<Result> results = new ArrayList<>(futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                results.add(Objects.requireNonNullElse(futures.get(i).get(), Result.FAILED));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Stok mutabakatı başarısız: productId={}, error={}",
+                        productIds.get(i), e.getCause().getMessage());
+                results.add(Result.FAILED);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Ürünü kilitler, snapshot + sonraki hareketlerden beklenen miktarı hesaplar, gerçek miktarla
+     * karşılaştırır ve snapshot'ı ilerletir. rebuild true ise fark ana satıra uygulanır.
+     */
+    private Result reconcileProduct(UUID productId, boolean rebuild) {
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+
+        // Kilit sırası rezervasyon yollarıyla aynı: ana satır, shard_no sırasıyla shard'lar, sonra depolar
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT total_quantity, reserved_quantity, shard_count " +
+                "FROM inventories WHERE product_id = ? " + (rebuild ? "FOR UPDATE" : "FOR SHARE"), productId);
+        if (rows.isEmpty()) {
+            return Result.FAILED;
+        }
+        Map<String, Object> inventory = rows.get(0);
+        int actualTotal = ((Number) inventory.get("total_quantity")).intValue();
+        int actualReserved = ((Number) inventory.get("reserved_quantity")).intValue();
+
+        if (((Number) inventory.get("shard_count")).intValue() > 1) {
+            Map<String, Object> shards = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(total_quantity), 0) AS total, " +
+                    "COALESCE(SUM(reserved_quantity), 0) AS reserved FROM (" +
+                    "    SELECT total_quantity, reserved_quantity FROM inventory_stock_shards " +
+                    "    WHERE product_id = ? ORDER BY shard_no FOR SHARE) s", productId);
+            actualTotal += ((Number) shards.get("total")).intValue();
+            actualReserved += ((Number) shards.get("reserved")).intValue();
+        }
+
+        // Depo satırları da ürün defterine yazılır; kilit sırası rezervasyon yollarıyla aynı
+        Map<String, Object> warehouses = jdbcTemplate.queryForMap("SELECT COALESCE(SUM(total_quantity), 0) AS total, " +
+                "COALESCE(SUM(reserved_quantity), 0) AS reserved FROM (" +
+                "    SELECT total_quantity, reserved_quantity FROM warehouse_stocks " +
+                "    WHERE product_id = ? ORDER BY warehouse_id FOR SHARE) w", productId);
+        actualTotal += ((Number) warehouses.get("total")).intValue();
+        actualReserved += ((Number) warehouses.get("reserved")).intValue();
+
+        List<Map<String, Object>> snapshots = jdbcTemplate.queryForList("SELECT movement_seq, total_quantity, " +
+                "reserved_quantity FROM inventory_stock_snapshots WHERE product_id = ?", productId);
+        if (snapshots.isEmpty()) {
+            // Satırlar kilitli: bu seq'ten sonraki hareketler ancak commit'ten sonra yazılabilir
+            long openingSeq = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(seq), 0) FROM inventory_movements " +
+                    "WHERE product_id = ?", Long.class, productId);
+            saveSnapshot(productId, openingSeq, actualTotal, actualReserved);
+            log.info("Açılış snapshot'ı yazıldı: productId={}, seq={}, total={}, reserved={}",
+                    productId, openingSeq, actualTotal, actualReserved);
+            return new Result(ProductReconciliationResponse.builder()
+                    .productId(productId)
+                    .expectedTotalQuantity(actualTotal)
+                    .actualTotalQuantity(actualTotal)
+                    .expectedReservedQuantity(actualReserved)
+                    .actualReservedQuantity(actualReserved)
+                    .snapshotSeq(openingSeq)
+                    .movementsReplayed(0L)
+                    .rebuilt(false)
+                    .build(), false);
+        }
+        long snapshotSeq = ((Number) snapshots.get(0).get("movement_seq")).longValue();
+        int snapshotTotal = ((Number) snapshots.get(0).get("total_quantity")).intValue();
+        int snapshotReserved = ((Number) snapshots.get(0).get("reserved_quantity")).intValue();
+
+        Map<String, Object> replay = jdbcTemplate.queryForMap(REPLAY_SQL, snapshotSeq, productId, snapshotSeq);
+        long lastSeq = ((Number) replay.get("last_seq")).longValue();
+        long replayed = ((Number) replay.get("replayed")).longValue();
+        int expectedTotal = snapshotTotal + ((Number) replay.get("total_delta")).intValue();
+        int expectedReserved = snapshotReserved + ((Number) replay.get("reserved_delta")).intValue();
+
+        saveSnapshot(productId, lastSeq, expectedTotal, expectedReserved);
+
+        boolean mismatch = expectedTotal != actualTotal || expectedReserved != actualReserved;
+        if (mismatch) {
+            mismatchCounter.increment();
+            log.warn("Stok defterle uyuşmuyor: productId={}, total={}/{}, reserved={}/{}",
+                    productId, actualTotal, expectedTotal, actualReserved, expectedReserved);
+        }
+
+        boolean rebuilt = false;
+        if (mismatch && rebuild) {
+            // Fark ana satıra uygulanır, shard dağılımı korunur
+            jdbcTemplate.update("UPDATE inventories SET total_quantity = total_quantity + ?, " +
+                            "reserved_quantity = reserved_quantity + ?, version = version + 1 WHERE product_id = ?",
+                    expectedTotal - actualTotal, expectedReserved - actualReserved, productId);
+            rebuilt = true;
+            inventoryCacheInvalidator.markChanged(productId);
+            log.info("Stok hareketlerden yeniden hesaplandı: productId={}", productId);
+        }
+
+        return new Result(ProductReconciliationResponse.builder()
+                .productId(productId)
+                .expectedTotalQuantity(expectedTotal)
+                .actualTotalQuantity(actualTotal)
+                .expectedReservedQuantity(expectedReserved)
+                .actualReservedQuantity(actualReserved)
+                .snapshotSeq(snapshotSeq)
+                .movementsReplayed(replayed)
+                .rebuilt(rebuilt)
+                .build(), mismatch);
+    }
+
+    private void saveSnapshot(UUID productId, long movementSeq, int totalQuantity, int reservedQuantity) {
+        jdbcTemplate.update("INSERT INTO inventory_stock_snapshots " +
+                        "(product_id, movement_seq, total_quantity, reserved_quantity, taken_at) " +
+                        "VALUES (?, ?, ?, ?, CURRENT_TIMESTAMP) " +
+                        "ON CONFLICT (product_id) DO UPDATE SET movement_seq = EXCLUDED.movement_seq, " +
+                        "total_quantity = EXCLUDED.total_quantity, reserved_quantity = EXCLUDED.reserved_quantity, " +
+                        "taken_at = EXCLUDED.taken_at " +
+                        "WHERE inventory_stock_snapshots.movement_seq <= EXCLUDED.movement_seq",
+                productId, movementSeq, totalQuantity, reservedQuantity);
+    }
+
+    private record Result(ProductReconciliationResponse response, boolean mismatch) {
+        static final Result FAILED = new Result(null, false);
+    }
+
+    // Uyuşan ürünler tutulmaz; tüm ürünler kontrol edilirken bellek sayfa boyutuyla sınırlı kalır
+    private static final class Summary {
+        private int checked;
+        private int failed;
+        private long replayed;
+        private final List<ProductReconciliationResponse> mismatches = new ArrayList<>();
+
+        void add(List<Result> results) {
+            for (Result result : results) {
+                if (result.response() == null) {
+                    failed++;
+                    continue;
+                }
+                checked++;
+                replayed += result.response().getMovementsReplayed();
+                if (result.mismatch()) {
+                    mismatches.add(result.response());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.inventory.service;
+
+import java.util.UUID;
+
+/**
+ * Çok talep gören ürünlerin stoğunu inventory_stock_shards satırlarına bölen sayaç.
+ * Sharded bir üründe gerçek miktarlar ana satır ile shard satırlarının toplamıdır.
+ */
+public interface StockShardService {
+
+    // Sharding yönetimi
+    void enableSharding(UUID productId, int shardCount);
+    void disableSharding(UUID productId);
+
+    // Stok operasyonları (yetersiz stokta false döner, hiçbir şey yazılmaz)
+    boolean reserve(UUID productId, int quantity);
+    boolean removeStock(UUID productId, int quantity);
+    void release(UUID productId, int quantity);
+    void sell(UUID productId, int quantity);
+    void addStock(UUID productId, int quantity);
+
+    // Shard'lar arasında boş stoğu yeniden dağıtır
+    void rebalance();
+}
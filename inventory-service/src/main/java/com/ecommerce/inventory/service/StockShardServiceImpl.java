@@ -0,0 +1,249 @@
+package com.ecommerce.inventory.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Hızlı yol: tek bir UPDATE, yeterli stoğu olan ve o an kilitli olmayan rastgele bir shard'ı
+ * (FOR UPDATE SKIP LOCKED) seçip günceller; aynı ürünün eşzamanlı rezervasyonları farklı
+ * satırlara dağılır ve birbirini beklemez.
+ *
+ * Yavaş yol: hiçbir shard tek başına yetmiyorsa ana satır ve ardından shard'lar sırayla
+ * kilitlenir, miktar shard'lara bölünerek uygulanır. Kilit sırası her yerde ana satır → shard_no
+ * olduğu için rebalance ve enable/disable ile deadlock oluşmaz.
+ *
+ * Ana satırı JDBC ile değiştiren her sorgu version'ı da artırır; aynı satırı tutan bir JPA
+ * entity'si eski değerleri yazmaya çalışırsa optimistic lock hatası alır.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockShardServiceImpl implements StockShardService {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private enum Operation {
+        RESERVE("reserved_quantity = reserved_quantity + :q", "total_quantity - reserved_quantity"),
+        REMOVE("total_quantity = total_quantity - :q", "total_quantity - reserved_quantity"),
+        RELEASE("reserved_quantity = reserved_quantity - :q", "reserved_quantity"),
+        SELL("reserved_quantity = reserved_quantity - :q, total_quantity = total_quantity - :q", "reserved_quantity");
+
+        private final String setClause;
+        private final String capacity;
+
+        Operation(String setClause, String capacity) {
+            this.setClause = setClause;
+            this.capacity = capacity;
+        }
+    }
+
+    // ==================== SHARDING YÖNETİMİ ====================
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enableSharding(UUID productId, int shardCount) {
+        Integer free = jdbcTemplate.queryForObject(
+                "SELECT total_quantity - reserved_quantity FROM inventories WHERE product_id = ? FOR UPDATE",
+                Integer.class, productId);
+
+        // Boş stok shard'lara eşit dağıtılır; mevcut rezervasyonlar ana satırda kalır
+        jdbcTemplate.update("INSERT INTO inventory_stock_shards (product_id, shard_no, total_quantity) " +
+                        "SELECT ?, g, ? / ? + CASE WHEN g < ? % ? THEN 1 ELSE 0 END FROM generate_series(0, ? - 1) g",
+                productId, free, shardCount, free, shardCount, shardCount);
+        jdbcTemplate.update("UPDATE inventories SET total_quantity = reserved_quantity, shard_count = ?, " +
+                "version = version + 1 WHERE product_id = ?", shardCount, productId);
+
+        log.info("Stok sharding açıldı: productId={}, shards={}, dağıtılan={}", productId, shardCount, free);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void disableSharding(UUID productId) {
+        lockMainRow(productId);
+        jdbcTemplate.update("WITH removed AS (" +
+                "    DELETE FROM inventory_stock_shards WHERE product_id = ? RETURNING total_quantity, reserved_quantity" +
+                ") " +
+                "UPDATE inventories i SET " +
+                "    total_quantity = i.total_quantity + (SELECT COALESCE(SUM(total_quantity), 0) FROM removed), " +
+                "    reserved_quantity = i.reserved_quantity + (SELECT COALESCE(SUM(reserved_quantity), 0) FROM removed), " +
+                "    shard_count = 1, version = i.version + 1 " +
+                "WHERE i.product_id = ?", productId, productId);
+
+        log.info("Stok sharding kapatıldı: productId={}", productId);
+    }
+
+    // ==================== STOK OPERASYONLARI ====================
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean reserve(UUID productId, int quantity) {
+        return apply(productId, quantity, Operation.RESERVE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public boolean removeStock(UUID productId, int quantity) {
+        return apply(productId, quantity, Operation.REMOVE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(UUID productId, int quantity) {
+        apply(productId, quantity, Operation.RELEASE);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sell(UUID productId, int quantity) {
+        apply(productId, quantity, Operation.SELL);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addStock(UUID productId, int quantity) {
+        // Herhangi bir boş shard'a eklenir, rebalance diğerlerine dağıtır
+        int updated = namedParameterJdbcTemplate.update("UPDATE inventory_stock_shards s SET total_quantity = s.total_quantity + :q " +
+                "WHERE (s.product_id, s.shard_no) = (" +
+                "    SELECT product_id, shard_no FROM inventory_stock_shards WHERE product_id = :productId " +
+                "    ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED)", params(productId, quantity));
+        if (updated == 0) {
+            jdbcTemplate.update("UPDATE inventory_stock_shards SET total_quantity = total_quantity + ? " +
+                    "WHERE product_id = ? AND shard_no = 0", quantity, productId);
+        }
+    }
+
+    private boolean apply(UUID productId, int quantity, Operation operation) {
+        // 1. Hızlı yol: tek shard
+        int updated = namedParameterJdbcTemplate.update("UPDATE inventory_stock_shards s SET " + operation.setClause + " " +
+                "WHERE (s.product_id, s.shard_no) = (" +
+                "    SELECT product_id, shard_no FROM inventory_stock_shards " +
+                "    WHERE product_id = :productId AND " + operation.capacity + " >= :q " +
+                "    ORDER BY random() LIMIT 1 FOR UPDATE SKIP LOCKED)", params(productId, quantity));
+        if (updated == 1) {
+            return true;
+        }
+
+        // 2. Yavaş yol: sırayla kilitle ve böl
+        lockMainRow(productId);
+        List<Map<String, Object>> shards = namedParameterJdbcTemplate.queryForList(
+                "SELECT shard_no, " + operation.capacity + " AS capacity FROM inventory_stock_shards " +
+                        "WHERE product_id = :productId ORDER BY shard_no FOR UPDATE",
+                params(productId, quantity));
+
+        int remaining = quantity;
+        List<MapSqlParameterSource> updates = new ArrayList<>();
+        for (Map<String, Object> shard : shards) {
+            int take = Math.min(remaining, ((Number) shard.get("capacity")).intValue());
+            if (take > 0) {
+                updates.add(params(productId, take).addValue("shardNo", shard.get("shard_no")));
+                remaining -= take;
+            }
+            if (remaining == 0) {
+                break;
+            }
+        }
+
+        // Sharding'den önceki rezervasyonlar ana satırda durur
+        boolean fromMainRow = remaining > 0 && (operation == Operation.RELEASE || operation == Operation.SELL);
+        if (remaining > 0 && !fromMainRow) {
+            return false;
+        }
+
+        namedParameterJdbcTemplate.batchUpdate("UPDATE inventory_stock_shards SET " + operation.setClause + " " +
+                "WHERE product_id = :productId AND shard_no = :shardNo", updates.toArray(MapSqlParameterSource[]::new));
+        if (fromMainRow) {
+            namedParameterJdbcTemplate.update("UPDATE inventories SET " + operation.setClause + ", version = version + 1 " +
+                    "WHERE product_id = :productId", params(productId, remaining));
+        }
+        return true;
+    }
+
+    // ==================== REBALANCE ====================
+
+    @Override
+    @Scheduled(fixedDelayString = "${inventory.sharding.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        List<UUID> productIds = jdbcTemplate.queryForList(
+                "SELECT product_id FROM inventories WHERE shard_count > 1", UUID.class);
+
+        for (UUID productId : productIds) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalanceProduct(productId));
+            } catch (DataAccessException e) {
+                // Kilit alınamadı (yoğun rezervasyon): bir sonraki turda denenir
+                log.debug("Shard rebalance atlandı: productId={}, {}", productId, e.getMessage());
+            }
+        }
+    }
+
+    private void rebalanceProduct(UUID productId) {
+        Map<String, Object> stats = jdbcTemplate.queryForMap("SELECT " +
+                "    MIN(s.total_quantity - s.reserved_quantity) AS min_free, " +
+                "    MAX(s.total_quantity - s.reserved_quantity) AS max_free, " +
+                "    SUM(s.total_quantity - s.reserved_quantity) AS total_free, " +
+                "    COUNT(*) AS shards, " +
+                "    (SELECT total_quantity - reserved_quantity FROM inventories WHERE product_id = ?) AS main_free " +
+                "FROM inventory_stock_shards s WHERE s.product_id = ?", productId, productId);
+
+        long shards = ((Number) stats.get("shards")).longValue();
+        if (shards == 0) {
+            return;
+        }
+        long skew = ((Number) stats.get("max_free")).longValue() - ((Number) stats.get("min_free")).longValue();
+        long mainFree = ((Number) stats.get("main_free")).longValue();
+        long averageFree = ((Number) stats.get("total_free")).longValue() / shards;
+        if (mainFree == 0 && skew <= Math.max(1, averageFree / 2)) {
+            return;
+        }
+
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '200ms'");
+
+        // Ana satırda serbest kalan stok (ör. sharding öncesi rezervasyonların iadesi) shard'lara taşınır
+        Integer moved = jdbcTemplate.queryForObject(
+                "SELECT total_quantity - reserved_quantity FROM inventories WHERE product_id = ? FOR UPDATE",
+                Integer.class, productId);
+        if (moved != null && moved > 0) {
+            jdbcTemplate.update("UPDATE inventories SET total_quantity = reserved_quantity, version = version + 1 " +
+                    "WHERE product_id = ?", productId);
+        }
+
+        jdbcTemplate.update("WITH locked AS (" +
+                "    SELECT shard_no, total_quantity, reserved_quantity FROM inventory_stock_shards" +
+                "    WHERE product_id = ? ORDER BY shard_no FOR UPDATE" +
+                "), agg AS (" +
+                "    SELECT SUM(total_quantity - reserved_quantity) + ? AS free, COUNT(*) AS n FROM locked" +
+                ") " +
+                "UPDATE inventory_stock_shards s SET total_quantity = l.reserved_quantity + agg.free / agg.n " +
+                "    + CASE WHEN l.shard_no < agg.free % agg.n THEN 1 ELSE 0 END " +
+                "FROM locked l, agg WHERE s.product_id = ? AND s.shard_no = l.shard_no",
+                productId, moved != null ? Math.max(moved, 0) : 0, productId);
+
+        log.debug("Shard rebalance: productId={}, skew={}, taşınan={}", productId, skew, moved);
+    }
+
+    private void lockMainRow(UUID productId) {
+        jdbcTemplate.queryForList("SELECT id FROM inventories WHERE product_id = ? FOR UPDATE", UUID.class, productId);
+    }
+
+    private MapSqlParameterSource params(UUID productId, int quantity) {
+        return new MapSqlParameterSource()
+                .addValue("productId", productId)
+                .addValue("q", quantity);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.request.CreateWarehouseRequest;
+import com.ecommerce.inventory.dto.request.StockUpdateRequest;
+import com.ecommerce.inventory.dto.response.WarehouseResponse;
+import com.ecommerce.inventory.dto.response.WarehouseStockResponse;
+import com.ecommerce.inventory.warehouse.AllocationPlan;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Ürün stoğunun depolara göre dağılımı. Depo satırları ürünün ana satır + shard stoğuna eklenir;
+ * rezervasyonlar teslimat şehrine yakın depolardan karşılanır, kalan ana stoktan ayrılır.
+ */
+public interface WarehouseStockService {
+
+    // Depo yönetimi
+    WarehouseResponse createWarehouse(CreateWarehouseRequest request);
+    List<WarehouseResponse> getWarehouses();
+
+    // Depo stoğu
+    List<WarehouseStockResponse> getStocks(UUID productId);
+    WarehouseStockResponse addStock(UUID warehouseId, UUID productId, StockUpdateRequest request);
+    WarehouseStockResponse removeStock(UUID warehouseId, UUID productId, StockUpdateRequest request);
+
+    // Rezervasyon (çağıranın transaction'ında)
+    AllocationPlan plan(Map<UUID, Integer> needed, String shippingCity);
+    void reserve(List<AllocationPlan.Allocation> allocations);
+    void release(UUID productId, UUID warehouseId, int quantity);
+    void sell(UUID productId, UUID warehouseId, int quantity);
+}
@@ -0,0 +1,208 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.request.CreateWarehouseRequest;
+import com.ecommerce.inventory.dto.request.StockUpdateRequest;
+import com.ecommerce.inventory.dto.response.WarehouseResponse;
+import com.ecommerce.inventory.dto.response.WarehouseStockResponse;
+import com.ecommerce.inventory.entity.MovementType;
+import com.ecommerce.inventory.entity.Warehouse;
+import com.ecommerce.inventory.exception.BadRequestException;
+import com.ecommerce.inventory.exception.InsufficientStockException;
+import com.ecommerce.inventory.exception.ResourceNotFoundException;
+import com.ecommerce.inventory.mapper.InventoryMapper;
+import com.ecommerce.inventory.repository.InventoryRepository;
+import com.ecommerce.inventory.repository.WarehouseRepository;
+import com.ecommerce.inventory.warehouse.AllocationPlan;
+import com.ecommerce.inventory.warehouse.WarehouseAllocator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Depo satırları JDBC ile, tek satırlık koşullu UPDATE'lerle değişir; aynı ürünün farklı
+ * depolardaki rezervasyonları birbirini beklemez. Kilit sırası her yerde ana satır → shard'lar →
+ * (product_id, warehouse_id) sırasıyla depo satırlarıdır.
+ *
+ * Depo stoğu hareketleri ürün defterine yazılır (reference_type = WAREHOUSE), böylece mutabakat
+ * ürün toplamı üzerinden çalışmaya devam eder.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+@Transactional
+public class WarehouseStockServiceImpl implements WarehouseStockService {
+
+    private static final String REFERENCE_TYPE = "WAREHOUSE";
+
+    private static final String STOCK_SQL = "SELECT ws.product_id, ws.warehouse_id, w.code, ws.total_quantity, " +
+            "ws.reserved_quantity FROM warehouse_stocks ws JOIN warehouses w ON w.id = ws.warehouse_id ";
+
+    private static final RowMapper<WarehouseStockResponse> STOCK_ROW_MAPPER = (rs, rowNum) -> WarehouseStockResponse.builder()
+            .productId(rs.getObject("product_id", UUID.class))
+            .warehouseId(rs.getObject("warehouse_id", UUID.class))
+            .warehouseCode(rs.getString("code"))
+            .totalQuantity(rs.getInt("total_quantity"))
+            .reservedQuantity(rs.getInt("reserved_quantity"))
+            .availableQuantity(rs.getInt("total_quantity") - rs.getInt("reserved_quantity"))
+            .build();
+
+    private final WarehouseRepository warehouseRepository;
+    private final InventoryRepository inventoryRepository;
+    private final InventoryMapper inventoryMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final MovementJournalService movementJournalService;
+    private final WarehouseAllocator warehouseAllocator;
+
+    // ==================== DEPO YÖNETİMİ ====================
+
+    @Override
+    public WarehouseResponse createWarehouse(CreateWarehouseRequest request) {
+        if (warehouseRepository.existsByCode(request.getCode())) {
+            throw new BadRequestException("Bu kodla depo zaten mevcut: " + request.getCode());
+        }
+
+        Warehouse warehouse = warehouseRepository.save(Warehouse.builder()
+                .code(request.getCode())
+                .name(request.getName())
+                .city(request.getCity())
+                .latitude(request.getLatitude())
+                .longitude(request.getLongitude())
+                .build());
+
+        // Planlayıcı yeni depoyu commit'ten sonra görür
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                warehouseAllocator.refresh();
+            }
+        });
+
+        log.info("Depo oluşturuldu: {} - {}", warehouse.getCode(), warehouse.getCity());
+        return inventoryMapper.toResponse(warehouse);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WarehouseResponse> getWarehouses() {
+        return warehouseRepository.findByIsActiveTrueOrderByCode().stream()
+                .map(inventoryMapper::toResponse)
+                .collect(Collectors.toList());
+    }
+
+    // ==================== DEPO STOĞU ====================
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<WarehouseStockResponse> getStocks(UUID productId) {
+        return jdbcTemplate.query(STOCK_SQL + "WHERE ws.product_id = ? ORDER BY w.code", STOCK_ROW_MAPPER, productId);
+    }
+
+    @Override
+    public WarehouseStockResponse addStock(UUID warehouseId, UUID productId, StockUpdateRequest request) {
+        Warehouse warehouse = findActiveWarehouse(warehouseId);
+        if (!inventoryRepository.existsByProductId(productId)) {
+            throw new ResourceNotFoundException("Stok kaydı bulunamadı");
+        }
+
+        // Ürünün ilk depo stoğu: ana satır işaretlenir, depo toplamları bundan sonra okunur
+        jdbcTemplate.update("UPDATE inventories SET warehouse_stocked = TRUE, version = version + 1 " +
+                "WHERE product_id = ? AND NOT warehouse_stocked", productId);
+        jdbcTemplate.update("INSERT INTO warehouse_stocks (product_id, warehouse_id, total_quantity) VALUES (?, ?, ?) " +
+                        "ON CONFLICT (product_id, warehouse_id) DO UPDATE " +
+                        "SET total_quantity = warehouse_stocks.total_quantity + EXCLUDED.total_quantity",
+                productId, warehouseId, request.getQuantity());
+
+        movementJournalService.append(productId, MovementType.STOCK_IN, request.getQuantity(),
+                warehouseId, REFERENCE_TYPE, request.getNotes());
+
+        log.info("Depoya stok eklendi: {} - {} +{}", warehouse.getCode(), productId, request.getQuantity());
+        return findStock(productId, warehouseId);
+    }
+
+    @Override
+    public WarehouseStockResponse removeStock(UUID warehouseId, UUID productId, StockUpdateRequest request) {
+        Warehouse warehouse = findActiveWarehouse(warehouseId);
+
+        int updated = jdbcTemplate.update("UPDATE warehouse_stocks SET total_quantity = total_quantity - ? " +
+                        "WHERE product_id = ? AND warehouse_id = ? AND total_quantity - reserved_quantity >= ?",
+                request.getQuantity(), productId, warehouseId, request.getQuantity());
+        if (updated == 0) {
+            WarehouseStockResponse stock = findStock(productId, warehouseId);
+            throw new InsufficientStockException("Depoda yetersiz stok. Mevcut: " + stock.getAvailableQuantity());
+        }
+
+        movementJournalService.append(productId, MovementType.STOCK_OUT, request.getQuantity(),
+                warehouseId, REFERENCE_TYPE, request.getNotes());
+
+        log.info("Depodan stok çıkışı: {} - {} -{}", warehouse.getCode(), productId, request.getQuantity());
+        return findStock(productId, warehouseId);
+    }
+
+    // ==================== REZERVASYON ====================
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public AllocationPlan plan(Map<UUID, Integer> needed, String shippingCity) {
+        return warehouseAllocator.plan(needed, shippingCity);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void reserve(List<AllocationPlan.Allocation> allocations) {
+        if (allocations.isEmpty()) {
+            return;
+        }
+        int[] updated = jdbcTemplate.batchUpdate("UPDATE warehouse_stocks SET reserved_quantity = reserved_quantity + ? " +
+                        "WHERE product_id = ? AND warehouse_id = ? AND total_quantity - reserved_quantity >= ?",
+                allocations.stream()
+                        .map(allocation -> new Object[]{allocation.quantity(), allocation.productId(),
+                                allocation.warehouseId(), allocation.quantity()})
+                        .toList());
+        for (int count : updated) {
+            if (count == 0) {
+                // Plan kilitsiz okunan stokla çıkarıldı; transaction geri alınıp yeniden denenir
+                throw new OptimisticLockingFailureException("Depo stoğu plan çıkarıldıktan sonra değişti");
+            }
+        }
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void release(UUID productId, UUID warehouseId, int quantity) {
+        jdbcTemplate.update("UPDATE warehouse_stocks SET reserved_quantity = reserved_quantity - ? " +
+                "WHERE product_id = ? AND warehouse_id = ?", quantity, productId, warehouseId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void sell(UUID productId, UUID warehouseId, int quantity) {
+        jdbcTemplate.update("UPDATE warehouse_stocks SET reserved_quantity = reserved_quantity - ?, " +
+                "total_quantity = total_quantity - ? WHERE product_id = ? AND warehouse_id = ?",
+                quantity, quantity, productId, warehouseId);
+    }
+
+    private Warehouse findActiveWarehouse(UUID warehouseId) {
+        return warehouseRepository.findById(warehouseId)
+                .filter(Warehouse::getIsActive)
+                .orElseThrow(() -> new ResourceNotFoundException("Depo bulunamadı: " + warehouseId));
+    }
+
+    private WarehouseStockResponse findStock(UUID productId, UUID warehouseId) {
+        return jdbcTemplate.query(STOCK_SQL + "WHERE ws.product_id = ? AND ws.warehouse_id = ?",
+                        STOCK_ROW_MAPPER, productId, warehouseId).stream()
+                .findFirst()
+                .orElseThrow(() -> new ResourceNotFoundException("Depoda stok kaydı bulunamadı"));
+    }
+}
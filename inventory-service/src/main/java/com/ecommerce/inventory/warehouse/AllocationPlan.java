@@ -0,0 +1,21 @@
+package com.ecommerce.inventory.warehouse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Bir siparişin depolara dağıtımı.
+ *
+ * @param allocations depolardan ayrılacak miktarlar, (productId, warehouseId) sırasıyla
+ * @param remaining   depolarda karşılanamayıp ana stoktan (inventories + shard'lar) istenecek miktarlar
+ */
+public record AllocationPlan(List<Allocation> allocations, Map<UUID, Integer> remaining) {
+
+    public record Allocation(UUID productId, UUID warehouseId, int quantity) {
+    }
+
+    public static AllocationPlan central(Map<UUID, Integer> needed) {
+        return new AllocationPlan(List.of(), needed);
+    }
+}
@@ -0,0 +1,200 @@
+package com.ecommerce.inventory.warehouse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Siparişin kalemlerini depolara dağıtan bellek içi planlayıcı.
+ *
+ * Aktif depolar ve şehir konumları bellekte tutulur; bir şehir için depoların uzaklık sırası ilk
+ * istekte hesaplanıp saklanır. Sepetteki ürünlerin depo stoğu tek sorguyla okunur, plan tamamen
+ * bellekte çıkarılır:
+ *  1. Sepetin tamamını karşılayan bir depo varsa en yakını seçilir (tek gönderi),
+ *  2. yoksa her ürün en yakın depodan başlanarak stoğu bittikçe sonraki depoya bölünür,
+ *  3. depolarda karşılanamayan miktar ana stoğa kalır.
+ * Okuma kilitsizdir; plan WarehouseStockService.reserve ile koşullu UPDATE'lerle uygulanır ve
+ * arada stok değiştiyse transaction yeniden denenir.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class WarehouseAllocator {
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    private volatile Directory directory = new Directory(List.of(), Map.of());
+    private Timer planTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        planTimer = Timer.builder("inventory.allocation.plan")
+                .description("Siparişin depolara dağıtım planının çıkarılma süresi")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${inventory.warehouses.refresh-interval-ms:60000}")
+    public void refresh() {
+        List<Site> warehouses = jdbcTemplate.query(
+                "SELECT id, latitude, longitude FROM warehouses WHERE is_active ORDER BY code",
+                (rs, rowNum) -> new Site(rs.getObject("id", UUID.class),
+                        rs.getDouble("latitude"), rs.getDouble("longitude")));
+
+        Map<String, double[]> cities = new HashMap<>();
+        jdbcTemplate.query("SELECT name, latitude, longitude FROM city_locations", rs -> {
+            cities.put(rs.getString("name"), new double[]{rs.getDouble("latitude"), rs.getDouble("longitude")});
+        });
+
+        directory = new Directory(warehouses, cities);
+        log.debug("Depo dizini yenilendi: {} depo, {} şehir", warehouses.size(), cities.size());
+    }
+
+    public AllocationPlan plan(Map<UUID, Integer> needed, String shippingCity) {
+        if (needed.isEmpty()) {
+            return AllocationPlan.central(needed);
+        }
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Map<UUID, Map<UUID, Integer>> stock = loadAvailable(needed);
+        List<UUID> ranking = directory.rank(shippingCity);
+
+        List<AllocationPlan.Allocation> allocations = new ArrayList<>();
+        Map<UUID, Integer> remaining = new TreeMap<>();
+
+        UUID single = ranking.stream()
+                .filter(warehouseId -> needed.entrySet().stream().allMatch(entry ->
+                        free(stock, entry.getKey(), warehouseId) >= entry.getValue()))
+                .findFirst()
+                .orElse(null);
+
+        if (single != null) {
+            needed.forEach((productId, quantity) ->
+                    allocations.add(new AllocationPlan.Allocation(productId, single, quantity)));
+        } else {
+            needed.forEach((productId, quantity) -> {
+                int left = quantity;
+                for (UUID warehouseId : ranking) {
+                    int take = Math.min(left, free(stock, productId, warehouseId));
+                    if (take > 0) {
+                        allocations.add(new AllocationPlan.Allocation(productId, warehouseId, take));
+                        left -= take;
+                    }
+                    if (left == 0) {
+                        break;
+                    }
+                }
+                if (left > 0) {
+                    remaining.put(productId, left);
+                }
+            });
+        }
+
+        // Depo satırları rezervasyon yollarında (product_id, warehouse_id) sırasıyla kilitlenir
+        allocations.sort(Comparator.comparing(AllocationPlan.Allocation::productId)
+                .thenComparing(AllocationPlan.Allocation::warehouseId));
+        sample.stop(planTimer);
+        return new AllocationPlan(allocations, remaining);
+    }
+
+    // Karşılaştırma için: küçük harf, Türkçe karaktersiz ("İzmir", "IZMIR" → "izmir")
+    public static String normalizeCity(String city) {
+        if (city == null) {
+            return "";
+        }
+        String lower = city.trim().toLowerCase(Locale.forLanguageTag("tr"));
+        StringBuilder normalized = new StringBuilder(lower.length());
+        for (char c : lower.toCharArray()) {
+            normalized.append(switch (c) {
+                case 'ı' -> 'i';
+                case 'ş' -> 's';
+                case 'ğ' -> 'g';
+                case 'ü' -> 'u';
+                case 'ö' -> 'o';
+                case 'ç' -> 'c';
+                default -> c;
+            });
+        }
+        return normalized.toString();
+    }
+
+    private Map<UUID, Map<UUID, Integer>> loadAvailable(Map<UUID, Integer> needed) {
+        Map<UUID, Map<UUID, Integer>> stock = new HashMap<>();
+        namedParameterJdbcTemplate.query("SELECT product_id, warehouse_id, total_quantity - reserved_quantity AS available " +
+                        "FROM warehouse_stocks WHERE product_id IN (:productIds) AND total_quantity > reserved_quantity",
+                Map.of("productIds", needed.keySet()),
+                rs -> {
+                    stock.computeIfAbsent(rs.getObject("product_id", UUID.class), key -> new HashMap<>())
+                            .put(rs.getObject("warehouse_id", UUID.class), rs.getInt("available"));
+                });
+        return stock;
+    }
+
+    private int free(Map<UUID, Map<UUID, Integer>> stock, UUID productId, UUID warehouseId) {
+        return stock.getOrDefault(productId, Map.of()).getOrDefault(warehouseId, 0);
+    }
+
+    private record Site(UUID id, double latitude, double longitude) {
+    }
+
+    /**
+     * Depo ve şehir konumlarının değişmez bir kopyası. Uzaklık sıraları dizinle birlikte yenilenir;
+     * bilinmeyen şehirler tek bir anahtarda (depo kodu sırası) toplanır, önbellek şehir sayısıyla sınırlıdır.
+     */
+    private static final class Directory {
+
+        private static final String UNKNOWN_CITY = "";
+
+        private final List<Site> warehouses;
+        private final Map<String, double[]> cities;
+        private final Map<String, List<UUID>> rankings = new ConcurrentHashMap<>();
+
+        private Directory(List<Site> warehouses, Map<String, double[]> cities) {
+            this.warehouses = warehouses;
+            this.cities = cities;
+        }
+
+        List<UUID> rank(String city) {
+            String key = normalizeCity(city);
+            double[] location = cities.get(key);
+            if (location == null) {
+                key = UNKNOWN_CITY;
+            }
+            return rankings.computeIfAbsent(key, ignored -> {
+                Stream<Site> sites = warehouses.stream();
+                if (location != null) {
+                    sites = sites.sorted(Comparator.comparingDouble(site -> distanceKm(location, site)));
+                }
+                return sites.map(Site::id).toList();
+            });
+        }
+
+        private static double distanceKm(double[] from, Site to) {
+            double dLat = Math.toRadians(to.latitude() - from[0]);
+            double dLon = Math.toRadians(to.longitude() - from[1]);
+            double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                    + Math.cos(Math.toRadians(from[0])) * Math.cos(Math.toRadians(to.latitude()))
+                    * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+            return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+        }
+    }
+}
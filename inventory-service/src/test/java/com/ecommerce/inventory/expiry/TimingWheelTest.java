@@ -0,0 +1,144 @@
+package com.ecommerce.inventory.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Küçük bir çark (10 ms adım, 4 yuva, 3 seviye) üzerinde: seviye 0 40 ms, seviye 1 160 ms,
+ * toplam kapsam 640 ms. Bir kayıt, bitiş zamanının düştüğü adım bittiğinde (now >= adım sonu) düşer.
+ */
+class TimingWheelTest {
+
+	private static final long TICK_MS = 10;
+	private static final int WHEEL_SIZE = 4;
+	private static final int LEVELS = 3;
+	private static final long START_MS = 1_000;
+
+	@Test
+	void deadlineInCurrentTickExpiresWhenTickEnds() {
+		TimingWheel wheel = wheel(START_MS);
+		UUID id = UUID.randomUUID();
+
+		assertThat(wheel.add(id, START_MS + 5)).isTrue();
+
+		assertThat(advance(wheel, START_MS + TICK_MS - 1)).isEmpty();
+		assertThat(advance(wheel, START_MS + TICK_MS)).containsExactly(id);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void pastDeadlineIsRejected() {
+		TimingWheel wheel = wheel(START_MS);
+
+		assertThat(wheel.add(UUID.randomUUID(), START_MS - 1)).isFalse();
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void deadlineExactlyWheelSizeTicksAheadExpiresOnTime() {
+		TimingWheel wheel = wheel(START_MS);
+		UUID id = UUID.randomUUID();
+		long deadline = START_MS + TICK_MS * WHEEL_SIZE;
+
+		assertThat(wheel.add(id, deadline)).isTrue();
+
+		assertThat(advance(wheel, deadline + TICK_MS - 1)).isEmpty();
+		assertThat(advance(wheel, deadline + TICK_MS)).containsExactly(id);
+	}
+
+	@Test
+	void levelOneSlotWrappingOntoDrainedSlotWaitsForNextRound() {
+		// 1030'da seviye 1'in geçerli yuvası [1000, 1040); 1180 aynı yuvaya düşer, bir tur sonra inmeli
+		long now = 1_030;
+		TimingWheel wheel = wheel(now);
+		UUID id = UUID.randomUUID();
+		long deadline = 1_180;
+
+		assertThat(wheel.add(id, deadline)).isTrue();
+
+		assertThat(advance(wheel, 1_040)).isEmpty();
+		assertThat(advance(wheel, deadline + TICK_MS - 1)).isEmpty();
+		assertThat(advance(wheel, deadline + TICK_MS)).containsExactly(id);
+	}
+
+	@Test
+	void deadlineBeyondTotalRangeCirclesTopLevelUntilDue() {
+		TimingWheel wheel = wheel(START_MS);
+		UUID id = UUID.randomUUID();
+		long deadline = START_MS + 5_000;
+
+		assertThat(wheel.add(id, deadline)).isTrue();
+
+		// Üst seviyede birkaç tur döner; her turda yeniden yerleşir ama kaybolmaz
+		for (long now = START_MS + 640; now < deadline; now += 640) {
+			assertThat(advance(wheel, now)).isEmpty();
+			assertThat(wheel.size()).isEqualTo(1);
+		}
+		assertThat(advance(wheel, deadline + TICK_MS - 1)).isEmpty();
+		assertThat(advance(wheel, deadline + TICK_MS)).containsExactly(id);
+	}
+
+	@Test
+	void advanceAcrossSeveralLevelBoundariesInOneCall() {
+		TimingWheel wheel = wheel(START_MS);
+		UUID level0 = UUID.randomUUID();
+		UUID level1 = UUID.randomUUID();
+		UUID level2 = UUID.randomUUID();
+		UUID overflow = UUID.randomUUID();
+
+		wheel.add(overflow, START_MS + 900);
+		wheel.add(level2, START_MS + 300);
+		wheel.add(level1, START_MS + 70);
+		wheel.add(level0, START_MS + 25);
+
+		assertThat(advance(wheel, START_MS + 2_000)).containsExactly(level0, level1, level2, overflow);
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void everyEntryExpiresInTheAdvanceThatPassesItsTick() {
+		Random random = new Random(42);
+		long start = 1_037;
+		TimingWheel wheel = wheel(start);
+		Map<UUID, Long> tickEnds = new HashMap<>();
+		for (int i = 0; i < 2_000; i++) {
+			long deadline = start + random.nextInt(3_000);
+			UUID id = UUID.randomUUID();
+			assertThat(wheel.add(id, deadline)).isTrue();
+			tickEnds.put(id, deadline - (deadline % TICK_MS) + TICK_MS);
+		}
+
+		long previous = start;
+		while (!tickEnds.isEmpty()) {
+			long now = previous + 1 + random.nextInt(250);
+			for (UUID id : advance(wheel, now)) {
+				Long tickEnd = tickEnds.remove(id);
+				assertThat(tickEnd).isNotNull();
+				assertThat(tickEnd).isGreaterThan(previous).isLessThanOrEqualTo(now);
+			}
+			for (long tickEnd : tickEnds.values()) {
+				assertThat(tickEnd).isGreaterThan(now);
+			}
+			previous = now;
+		}
+		assertThat(wheel.size()).isZero();
+	}
+
+	private static TimingWheel wheel(long startMs) {
+		return new TimingWheel(TICK_MS, WHEEL_SIZE, LEVELS, startMs);
+	}
+
+	private static List<UUID> advance(TimingWheel wheel, long nowMs) {
+		List<UUID> expired = new ArrayList<>();
+		wheel.advanceTo(nowMs, expired::add);
+		return expired;
+	}
+}
@@ -0,0 +1,138 @@
+package com.ecommerce.inventory.service;
+
+import com.ecommerce.inventory.dto.request.CreateInventoryRequest;
+import com.ecommerce.inventory.dto.request.ReservationItemRequest;
+import com.ecommerce.inventory.dto.request.ReservationRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Aynı ürünleri farklı sıralarla isteyen çok sayıda eşzamanlı rezervasyon: kilitler product_id
+ * sırasıyla alındığı için hiç deadlock oluşmamalı ve rezerve miktarlar birebir tutmalı.
+ */
+@SpringBootTest
+class ReservationConcurrencyStressTest {
+
+	private static final int PRODUCTS = 8;
+	private static final int ITEMS_PER_ORDER = 4;
+	private static final int THREADS = 32;
+	private static final int ORDERS = 2_000;
+
+	@Autowired
+	private InventoryService inventoryService;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	private final List<UUID> productIds = new ArrayList<>();
+	private Timestamp startedAt;
+
+	@BeforeEach
+	void setUp() {
+		// processed_messages'ın saatiyle aynı (veritabanı) saat
+		startedAt = jdbcTemplate.queryForObject("SELECT LOCALTIMESTAMP", Timestamp.class);
+	}
+
+	@AfterEach
+	void cleanup() {
+		// Mutabakat hareketleri ve snapshot'ları okuduğu için test ürünlerinin izi bırakılmaz
+		for (UUID productId : productIds) {
+			jdbcTemplate.update("DELETE FROM inventory_movements WHERE product_id = ?", productId);
+			jdbcTemplate.update("DELETE FROM inventory_stock_snapshots WHERE product_id = ?", productId);
+			jdbcTemplate.update("DELETE FROM reservations WHERE id IN " +
+					"(SELECT reservation_id FROM reservation_items WHERE product_id = ?)", productId);
+			jdbcTemplate.update("DELETE FROM inventories WHERE product_id = ?", productId);
+		}
+		// Test süresince bu context'in listener'larının işaretledikleri
+		jdbcTemplate.update("DELETE FROM processed_messages WHERE processed_at >= ?", startedAt);
+	}
+
+	@Test
+	void concurrentReservationsInOppositeOrderDoNotDeadlock() throws InterruptedException {
+		String run = UUID.randomUUID().toString().substring(0, 8);
+		for (int i = 0; i < PRODUCTS; i++) {
+			CreateInventoryRequest request = new CreateInventoryRequest();
+			request.setProductId(UUID.randomUUID());
+			request.setProductName("Stress " + i);
+			request.setSku("STRESS-" + run + "-" + i);
+			request.setInitialQuantity(ORDERS * ITEMS_PER_ORDER);
+			inventoryService.createInventory(request);
+			productIds.add(request.getProductId());
+		}
+
+		double deadlocksBefore = deadlocks();
+		Map<UUID, Integer> expectedReserved = new ConcurrentHashMap<>();
+		ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+		for (int i = 0; i < ORDERS; i++) {
+			executor.submit(() -> {
+				// Her sipariş ürünlerin rastgele bir alt kümesini rastgele sırayla ister
+				List<UUID> shuffled = new ArrayList<>(productIds);
+				Collections.shuffle(shuffled, ThreadLocalRandom.current());
+				List<ReservationItemRequest> items = new ArrayList<>();
+				for (UUID productId : shuffled.subList(0, ITEMS_PER_ORDER)) {
+					ReservationItemRequest item = new ReservationItemRequest();
+					item.setProductId(productId);
+					item.setQuantity(1);
+					items.add(item);
+				}
+				ReservationRequest request = new ReservationRequest();
+				request.setOrderId(UUID.randomUUID());
+				request.setItems(items);
+
+				try {
+					start.await();
+					inventoryService.createReservation(request);
+					items.forEach(item -> expectedReserved.merge(item.getProductId(), item.getQuantity(), Integer::sum));
+				} catch (Throwable e) {
+					failures.add(e);
+				}
+			});
+		}
+
+		start.countDown();
+		executor.shutdown();
+		assertThat(executor.awaitTermination(5, TimeUnit.MINUTES)).isTrue();
+
+		assertThat(failures).isEmpty();
+		assertThat(deadlocks() - deadlocksBefore).isZero();
+		for (UUID productId : productIds) {
+			Integer reserved = jdbcTemplate.queryForObject(
+					"SELECT reserved_quantity FROM inventories WHERE product_id = ?", Integer.class, productId);
+			assertThat(reserved).isEqualTo(expectedReserved.getOrDefault(productId, 0));
+		}
+	}
+
+	private double deadlocks() {
+		return meterRegistry.find("inventory.lock.conflicts").tag("reason", "deadlock").counters().stream()
+				.mapToDouble(Counter::count)
+				.sum();
+	}
+}
@@ -0,0 +1,200 @@
+package com.ecommerce.notification.kafka;
+
+import com.ecommerce.notification.repository.ProcessedMessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Kafka mesajlarını en fazla bir kez işler.
+ *
+ * Mesaj anahtarı (eventId header'ı, yoksa topic:partition:offset) iş mantığıyla aynı transaction'da
+ * processed_messages'a yazılır; kayıt zaten varsa iş mantığı hiç çalışmaz. Ayrı bir "var mı" sorgusu
+ * yapılmaz: yeni mesajda tek DB işlemi bu INSERT'tir. Son işlenen anahtarlar bellekte LRU olarak
+ * tutulur, rebalance sonrası tekrar gelen mesajlar DB'ye gitmeden atlanır.
+ *
+ * Sınıf order, payment, inventory ve notification servislerinde paket adları dışında birebir aynıdır;
+ * değişiklik dört kopyaya birlikte yapılır.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotentMessageHandler {
+
+    public static final String EVENT_ID_HEADER = "eventId";
+
+    private final ProcessedMessageRepository processedMessageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${kafka.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${kafka.idempotency.retention-days:7}")
+    private int retentionDays;
+
+    private Set<String> recentKeys;
+    private Counter cacheHitCounter;
+    private Counter dbHitCounter;
+
+    @PostConstruct
+    void init() {
+        recentKeys = Collections.synchronizedSet(Collections.newSetFromMap(
+                new LinkedHashMap<String, Boolean>(cacheSize, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                        return size() > cacheSize;
+                    }
+                }));
+
+        cacheHitCounter = Counter.builder("kafka.consumer.duplicates")
+                .description("Atlanan tekrar mesaj sayısı")
+                .tag("source", "cache")
+                .register(meterRegistry);
+        dbHitCounter = Counter.builder("kafka.consumer.duplicates")
+                .description("Atlanan tekrar mesaj sayısı")
+                .tag("source", "db")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Mesaj daha önce işlenmediyse action'ı işaretlemeyle aynı transaction'da çalıştırır.
+     * action hata fırlatırsa işaret de geri alınır, mesaj tekrar geldiğinde yeniden işlenir.
+     *
+     * @return mesaj işlendiyse true, tekrar olduğu için atlandıysa false
+     */
+    public boolean handle(ConsumerRecord<String, String> record, MessageAction action) {
+        String key = messageKey(record);
+
+        if (recentKeys.contains(key)) {
+            cacheHitCounter.increment();
+            log.debug("Tekrar mesaj atlandı (cache): {}", key);
+            return false;
+        }
+
+        Boolean processed = transactionTemplate.execute(status -> {
+            if (processedMessageRepository.markProcessed(key, record.topic()) == 0) {
+                return false;
+            }
+            try {
+                action.process(record.value());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+            return true;
+        });
+
+        recentKeys.add(key);
+        if (!Boolean.TRUE.equals(processed)) {
+            dbHitCounter.increment();
+            log.info("Tekrar mesaj atlandı: {}", key);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Kararı mesaj gelişinde verip iş mantığını sonra yazan yollar (ledger) için: anahtar burada
+     * işaretlenmez, yazım sırasında handleBatch/handle ile iş mantığıyla aynı transaction'da yazılır.
+     * Cache'te olmayan anahtar için processed_messages'a birincil anahtarla bakılır.
+     */
+    public boolean isProcessed(ConsumerRecord<String, String> record) {
+        String key = messageKey(record);
+        if (recentKeys.contains(key)) {
+            cacheHitCounter.increment();
+            return true;
+        }
+        if (processedMessageRepository.existsById(key)) {
+            recentKeys.add(key);
+            dbHitCounter.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Toplu listener'lar için: daha önce işlenmemiş mesajlar işaretlenir ve tek transaction'da
+     * action'a birlikte verilir. action hata fırlatırsa batch'in tüm işaretleri geri alınır.
+     */
+    public void handleBatch(List<ConsumerRecord<String, String>> records, BatchAction action) {
+        Map<String, ConsumerRecord<String, String>> fresh = new LinkedHashMap<>();
+        for (ConsumerRecord<String, String> record : records) {
+            String key = messageKey(record);
+            if (recentKeys.contains(key) || fresh.containsKey(key)) {
+                cacheHitCounter.increment();
+                continue;
+            }
+            fresh.put(key, record);
+        }
+        if (fresh.isEmpty()) {
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<String> messages = new ArrayList<>(fresh.size());
+            fresh.forEach((key, record) -> {
+                if (processedMessageRepository.markProcessed(key, record.topic()) == 0) {
+                    dbHitCounter.increment();
+                } else {
+                    messages.add(record.value());
+                }
+            });
+            if (messages.isEmpty()) {
+                return;
+            }
+            try {
+                action.process(messages);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalArgumentException(e.getMessage(), e);
+            }
+        });
+
+        recentKeys.addAll(fresh.keySet());
+    }
+
+    @Scheduled(cron = "${kafka.idempotency.cleanup-cron:0 30 3 * * *}")
+    public void cleanupProcessedMessages() {
+        Integer deleted = transactionTemplate.execute(status -> processedMessageRepository
+                .deleteProcessedBefore(LocalDateTime.now().minusDays(retentionDays)));
+        log.info("İşlenmiş mesaj kayıtları temizlendi: {}", deleted);
+    }
+
+    @FunctionalInterface
+    public interface MessageAction {
+        void process(String message) throws Exception;
+    }
+
+    @FunctionalInterface
+    public interface BatchAction {
+        void process(List<String> messages) throws Exception;
+    }
+
+    public String messageKey(ConsumerRecord<String, String> record) {
+        Header eventId = record.headers().lastHeader(EVENT_ID_HEADER);
+        if (eventId != null) {
+            return new String(eventId.value(), StandardCharsets.UTF_8);
+        }
+        return record.topic() + ":" + record.partition() + ":" + record.offset();
+    }
+}
@@ -5,6 +5,7 @@ import com.ecommerce.notification.service.NotificationService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -15,35 +16,42 @@ public class NotificationKafkaConsumer {
 
     private final NotificationService notificationService;
     private final ObjectMapper objectMapper;
+    private final IdempotentMessageHandler idempotentMessageHandler;
 
     @KafkaListener(topics = "order-created", groupId = "notification-service")
-    public void handleOrderCreated(String message) {
+    public void handleOrderCreated(ConsumerRecord<String, String> record) {
         try {
-            log.info("Order created event alındı: {}", message);
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            notificationService.sendOrderCreatedNotification(event);
+            log.info("Order created event alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
+                notificationService.sendOrderCreatedNotification(event);
+            });
         } catch (Exception e) {
             log.error("Order created event işlenemedi: {}", e.getMessage(), e);
         }
     }
 
     @KafkaListener(topics = "order-completed", groupId = "notification-service")
-    public void handleOrderCompleted(String message) {
+    public void handleOrderCompleted(ConsumerRecord<String, String> record) {
         try {
-            log.info("Order completed event alındı: {}", message);
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            notificationService.sendOrderCompletedNotification(event);
+            log.info("Order completed event alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
+                notificationService.sendOrderCompletedNotification(event);
+            });
         } catch (Exception e) {
             log.error("Order completed event işlenemedi: {}", e.getMessage(), e);
         }
     }
 
     @KafkaListener(topics = "order-cancelled", groupId = "notification-service")
-    public void handleOrderCancelled(String message) {
+    public void handleOrderCancelled(ConsumerRecord<String, String> record) {
         try {
-            log.info("Order cancelled event alındı: {}", message);
-            OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
-            notificationService.sendOrderFailedNotification(event);
+            log.info("Order cancelled event alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                OrderEvent event = objectMapper.readValue(message, OrderEvent.class);
+                notificationService.sendOrderFailedNotification(event);
+            });
         } catch (Exception e) {
             log.error("Order cancelled event işlenemedi: {}", e.getMessage(), e);
         }
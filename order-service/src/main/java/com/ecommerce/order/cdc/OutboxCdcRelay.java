@@ -0,0 +1,334 @@
+package com.ecommerce.order.cdc;
+
+import com.ecommerce.order.entity.OutboxCdcOffset;
+import com.ecommerce.order.kafka.IdempotentMessageHandler;
+import com.ecommerce.order.repository.OutboxCdcOffsetRepository;
+import com.ecommerce.order.repository.OutboxEventRepository;
+import com.ecommerce.order.service.OutboxService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.postgresql.PGConnection;
+import org.postgresql.PGProperty;
+import org.postgresql.replication.LogSequenceNumber;
+import org.postgresql.replication.PGReplicationStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox_events tablosuna yapılan INSERT'leri logical replication slot'u (pgoutput) üzerinden
+ * okuyup event_type'taki topic'e yayınlar. Polling relay'in yerine, outbox.relay.mode=cdc ile açılır.
+ *
+ * Yayınlanan event'ler polling relay'deki gibi published=true olarak işaretlenir, böylece
+ * deletePublishedEventsBefore temizliği iki modda da aynı çalışır. Onaylanan son commit LSN'i
+ * hem slot'a (WAL geri kazanımı için) hem outbox_cdc_offsets tablosuna yazılır.
+ */
+@Component
+@ConditionalOnProperty(name = "outbox.relay.mode", havingValue = "cdc")
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxCdcRelay implements SmartLifecycle {
+
+    private static final String OUTBOX_TABLE = "outbox_events";
+
+    private final OutboxService outboxService;
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxCdcOffsetRepository offsetRepository;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${spring.datasource.url}")
+    private String jdbcUrl;
+
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    @Value("${outbox.cdc.slot-name:outbox_relay}")
+    private String slotName;
+
+    @Value("${outbox.cdc.publication:outbox_publication}")
+    private String publication;
+
+    @Value("${outbox.cdc.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.cdc.max-batch-delay-ms:20}")
+    private long maxBatchDelayMs;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${outbox.cdc.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    private volatile boolean running;
+    private Thread relayThread;
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Timer flushTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        publishedCounter = Counter.builder("outbox.cdc.published")
+                .description("WAL üzerinden Kafka'ya yayınlanan outbox event sayısı")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("outbox.cdc.failed")
+                .description("WAL üzerinden yayınlanamayan outbox event sayısı")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("outbox.cdc.flush")
+                .description("Bir CDC batch'inin gönderim, işaretleme ve LSN onayı süresi")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        relayThread = new Thread(this::run, "outbox-cdc-relay");
+        relayThread.setDaemon(true);
+        relayThread.start();
+        log.info("Outbox CDC relay başlatıldı: slot={}, publication={}", slotName, publication);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (relayThread != null) {
+            relayThread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        while (running) {
+            try (Connection connection = openReplicationConnection()) {
+                ensureSlot(connection);
+
+                // Slot oluşmadan önce yazılmış ya da polling modundan kalan event'leri bir kez boşalt
+                outboxService.publishPendingEvents();
+
+                stream(connection);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Outbox CDC relay hatası, {} ms sonra yeniden bağlanılacak: {}",
+                        reconnectDelayMs, e.getMessage());
+                sleepQuietly(reconnectDelayMs);
+            }
+        }
+    }
+
+    private void stream(Connection connection) throws SQLException, InterruptedException {
+        LogSequenceNumber startLsn = offsetRepository.findById(slotName)
+                .map(offset -> LogSequenceNumber.valueOf(offset.getRestartLsn()))
+                .orElse(LogSequenceNumber.INVALID_LSN);
+
+        PGReplicationStream stream = connection.unwrap(PGConnection.class)
+                .getReplicationAPI()
+                .replicationStream()
+                .logical()
+                .withSlotName(slotName)
+                .withStartPosition(startLsn)
+                .withSlotOption("proto_version", 1)
+                .withSlotOption("publication_names", publication)
+                .withStatusInterval(1, TimeUnit.SECONDS)
+                .start();
+
+        PgOutputDecoder decoder = new PgOutputDecoder();
+        // Sadece COMMIT'i görülmüş transaction'ların satırları pending'e geçer
+        List<OutboxRecord> transactionRows = new ArrayList<>();
+        List<OutboxRecord> pending = new ArrayList<>(batchSize);
+        LogSequenceNumber committedLsn = null;
+        long batchStartedAt = 0;
+
+        while (running) {
+            ByteBuffer message = stream.readPending();
+
+            if (message == null) {
+                if (committedLsn != null) {
+                    flush(stream, pending, committedLsn);
+                    committedLsn = null;
+                } else {
+                    TimeUnit.MILLISECONDS.sleep(5);
+                }
+                continue;
+            }
+
+            PgOutputDecoder.Message decoded = decoder.decode(message);
+            if (decoded.type() == PgOutputDecoder.BEGIN) {
+                transactionRows.clear();
+            } else if (decoded.type() == PgOutputDecoder.INSERT && OUTBOX_TABLE.equals(decoded.table())) {
+                transactionRows.add(OutboxRecord.from(decoded.columns()));
+            } else if (decoded.type() == PgOutputDecoder.COMMIT) {
+                if (pending.isEmpty()) {
+                    batchStartedAt = System.nanoTime();
+                }
+                pending.addAll(transactionRows);
+                transactionRows.clear();
+                committedLsn = stream.getLastReceiveLSN();
+            }
+
+            // Flush sadece transaction sınırında: yarım görülmüş bir transaction'ın satırları yayınlanmaz
+            boolean batchFull = pending.size() >= batchSize;
+            boolean batchAged = System.nanoTime() - batchStartedAt >= TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+            if (decoded.type() == PgOutputDecoder.COMMIT && (batchFull || batchAged)) {
+                flush(stream, pending, committedLsn);
+                committedLsn = null;
+            }
+        }
+    }
+
+    /**
+     * Bekleyen kayıtları yayınlar, ack'leri bekler, published olarak işaretler ve LSN'i ilerletir.
+     * Yeniden başlatmada tekrar gelen (zaten published olan) kayıtlar atlanır.
+     */
+    private void flush(PGReplicationStream stream, List<OutboxRecord> pending,
+                       LogSequenceNumber committedLsn) throws SQLException {
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        if (!pending.isEmpty()) {
+            Set<UUID> alreadyPublished = new HashSet<>(outboxEventRepository.findPublishedIds(
+                    pending.stream().map(OutboxRecord::id).toList()));
+
+            List<OutboxRecord> toSend = pending.stream()
+                    .filter(record -> !alreadyPublished.contains(record.id()))
+                    .toList();
+
+            List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(toSend.size());
+            for (OutboxRecord record : toSend) {
+                ProducerRecord<String, String> producerRecord =
+                        new ProducerRecord<>(record.topic(), record.aggregateId(), record.payload());
+                producerRecord.headers().add(IdempotentMessageHandler.EVENT_ID_HEADER,
+                        record.id().toString().getBytes(StandardCharsets.UTF_8));
+                futures.add(kafkaTemplate.send(producerRecord));
+            }
+
+            try {
+                CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+                        .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                // LSN ilerletilmez; yeniden bağlanınca aynı noktadan tekrar okunur
+                failedCounter.increment(toSend.size());
+                throw new IllegalStateException("Kafka gönderimi başarısız: " + e.getMessage(), e);
+            }
+
+            List<UUID> ids = toSend.stream().map(OutboxRecord::id).toList();
+            transactionTemplate.executeWithoutResult(status -> {
+                if (!ids.isEmpty()) {
+                    outboxEventRepository.markAllAsPublished(ids, LocalDateTime.now());
+                }
+                saveOffset(committedLsn);
+            });
+
+            publishedCounter.increment(toSend.size());
+            log.debug("Outbox CDC: {} event yayınlandı, lsn={}", toSend.size(), committedLsn);
+            pending.clear();
+        } else if (committedLsn != null) {
+            // Outbox dışı transaction'lar: sadece LSN'i ilerlet
+            transactionTemplate.executeWithoutResult(status -> saveOffset(committedLsn));
+        }
+
+        if (committedLsn != null) {
+            stream.setAppliedLSN(committedLsn);
+            stream.setFlushedLSN(committedLsn);
+            stream.forceUpdateStatus();
+        }
+        sample.stop(flushTimer);
+    }
+
+    private void saveOffset(LogSequenceNumber lsn) {
+        if (lsn == null) {
+            return;
+        }
+        offsetRepository.save(OutboxCdcOffset.builder()
+                .slotName(slotName)
+                .restartLsn(lsn.asLong())
+                .build());
+    }
+
+    private Connection openReplicationConnection() throws SQLException {
+        Properties props = new Properties();
+        PGProperty.USER.set(props, username);
+        PGProperty.PASSWORD.set(props, password);
+        PGProperty.ASSUME_MIN_SERVER_VERSION.set(props, "10");
+        PGProperty.REPLICATION.set(props, "database");
+        PGProperty.PREFER_QUERY_MODE.set(props, "simple");
+        return DriverManager.getConnection(jdbcUrl, props);
+    }
+
+    private void ensureSlot(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT 1 FROM pg_replication_slots WHERE slot_name = ?")) {
+            statement.setString(1, slotName);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (resultSet.next()) {
+                    return;
+                }
+            }
+        }
+
+        connection.unwrap(PGConnection.class)
+                .getReplicationAPI()
+                .createReplicationSlot()
+                .logical()
+                .withSlotName(slotName)
+                .withOutputPlugin("pgoutput")
+                .make();
+        log.info("Logical replication slot oluşturuldu: {}", slotName);
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private record OutboxRecord(UUID id, String aggregateId, String topic, String payload) {
+
+        static OutboxRecord from(Map<String, String> columns) {
+            return new OutboxRecord(
+                    UUID.fromString(columns.get("id")),
+                    columns.get("aggregate_id"),
+                    columns.get("event_type"),
+                    columns.get("payload"));
+        }
+    }
+}
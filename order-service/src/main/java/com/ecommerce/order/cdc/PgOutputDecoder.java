@@ -0,0 +1,103 @@
+package com.ecommerce.order.cdc;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * pgoutput (protocol v1) mesajlarının outbox relay için gereken kısmını çözer.
+ * Sadece Relation, Insert ve Commit mesajları yorumlanır; diğerleri tipleriyle döner.
+ */
+public class PgOutputDecoder {
+
+    public static final char BEGIN = 'B';
+    public static final char COMMIT = 'C';
+    public static final char RELATION = 'R';
+    public static final char INSERT = 'I';
+
+    // relation id -> tablo bilgisi (stream boyunca server tarafından önceden gönderilir)
+    private final Map<Integer, Relation> relations = new HashMap<>();
+
+    public Message decode(ByteBuffer buffer) {
+        char type = (char) buffer.get();
+        switch (type) {
+            case RELATION -> {
+                Relation relation = readRelation(buffer);
+                relations.put(relation.id(), relation);
+                return new Message(type, relation.name(), Collections.emptyMap());
+            }
+            case INSERT -> {
+                int relationId = buffer.getInt();
+                buffer.get(); // 'N' - yeni tuple
+                Relation relation = relations.get(relationId);
+                if (relation == null) {
+                    throw new IllegalStateException("Bilinmeyen relation id: " + relationId);
+                }
+                return new Message(type, relation.name(), readTuple(buffer, relation));
+            }
+            default -> {
+                return new Message(type, null, Collections.emptyMap());
+            }
+        }
+    }
+
+    private Relation readRelation(ByteBuffer buffer) {
+        int id = buffer.getInt();
+        String namespace = readString(buffer);
+        String name = readString(buffer);
+        buffer.get(); // replica identity
+        short columnCount = buffer.getShort();
+
+        List<String> columns = new ArrayList<>(columnCount);
+        for (int i = 0; i < columnCount; i++) {
+            buffer.get(); // flags
+            columns.add(readString(buffer));
+            buffer.getInt(); // type oid
+            buffer.getInt(); // type modifier
+        }
+        return new Relation(id, namespace, name, columns);
+    }
+
+    private Map<String, String> readTuple(ByteBuffer buffer, Relation relation) {
+        short columnCount = buffer.getShort();
+        Map<String, String> values = new LinkedHashMap<>();
+
+        for (int i = 0; i < columnCount; i++) {
+            char kind = (char) buffer.get();
+            String column = relation.columns().get(i);
+            switch (kind) {
+                case 'n', 'u' -> values.put(column, null);
+                case 't' -> {
+                    byte[] bytes = new byte[buffer.getInt()];
+                    buffer.get(bytes);
+                    values.put(column, new String(bytes, StandardCharsets.UTF_8));
+                }
+                default -> throw new IllegalStateException("Bilinmeyen tuple veri tipi: " + kind);
+            }
+        }
+        return values;
+    }
+
+    private String readString(ByteBuffer buffer) {
+        int start = buffer.position();
+        while (buffer.get() != 0) {
+            // null-terminated string sonuna kadar ilerle
+        }
+        byte[] bytes = new byte[buffer.position() - start - 1];
+        buffer.position(start);
+        buffer.get(bytes);
+        buffer.get(); // terminator
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public record Message(char type, String table, Map<String, String> columns) {
+    }
+
+    private record Relation(int id, String namespace, String name, List<String> columns) {
+    }
+}
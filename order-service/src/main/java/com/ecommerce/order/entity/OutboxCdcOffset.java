@@ -0,0 +1,29 @@
+package com.ecommerce.order.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_cdc_offsets")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxCdcOffset {
+
+    @Id
+    @Column(name = "slot_name")
+    private String slotName;
+
+    // Kafka'ya yayınlanıp onaylanan son commit LSN'i
+    @Column(name = "restart_lsn", nullable = false)
+    private Long restartLsn;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
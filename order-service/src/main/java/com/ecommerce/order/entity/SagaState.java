@@ -35,6 +35,11 @@ public class SagaState {
     @Column(columnDefinition = "jsonb")
     private String payload;
 
+    // Takılı kalan adım için recovery'nin isteği kaç kez yeniden gönderdiği
+    @Column(name = "retry_count", nullable = false)
+    @Builder.Default
+    private Integer retryCount = 0;
+
     @Column(name = "started_at")
     @CreationTimestamp
     private LocalDateTime startedAt;
@@ -45,4 +50,8 @@ public class SagaState {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+
+    @Version
+    @Builder.Default
+    private Long version = 0L;
 }
\ No newline at end of file
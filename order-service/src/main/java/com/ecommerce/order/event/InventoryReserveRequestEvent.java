@@ -16,4 +16,6 @@ public class InventoryReserveRequestEvent {
 
     private UUID orderId;
     private List<OrderItemEvent> items;
+    // Stok servisi depo seçiminde kullanır
+    private String shippingCity;
 }
\ No newline at end of file
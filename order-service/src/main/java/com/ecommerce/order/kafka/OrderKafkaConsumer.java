@@ -6,6 +6,7 @@ import com.ecommerce.order.service.OrderService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -16,24 +17,29 @@ public class OrderKafkaConsumer {
 
     private final OrderService orderService;
     private final ObjectMapper objectMapper;
+    private final IdempotentMessageHandler idempotentMessageHandler;
 
     @KafkaListener(topics = "inventory-reserved", groupId = "order-service")
-    public void handleInventoryReserved(String message) {
+    public void handleInventoryReserved(ConsumerRecord<String, String> record) {
         try {
-            log.info("Inventory reserved event alındı: {}", message);
-            InventoryReservedEvent event = objectMapper.readValue(message, InventoryReservedEvent.class);
-            orderService.handleInventoryReserved(event.getOrderId(), event.isSuccess(), event.getFailureReason());
+            log.info("Inventory reserved event alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                InventoryReservedEvent event = objectMapper.readValue(message, InventoryReservedEvent.class);
+                orderService.handleInventoryReserved(event.getOrderId(), event.isSuccess(), event.getFailureReason());
+            });
         } catch (Exception e) {
             log.error("Inventory reserved event işlenemedi: {}", e.getMessage());
         }
     }
 
     @KafkaListener(topics = "payment-completed", groupId = "order-service")
-    public void handlePaymentCompleted(String message) {
+    public void handlePaymentCompleted(ConsumerRecord<String, String> record) {
         try {
-            log.info("Payment completed event alındı: {}", message);
-            PaymentCompletedEvent event = objectMapper.readValue(message, PaymentCompletedEvent.class);
-            orderService.handlePaymentCompleted(event.getOrderId(), event.isSuccess(), event.getFailureReason());
+            log.info("Payment completed event alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                PaymentCompletedEvent event = objectMapper.readValue(message, PaymentCompletedEvent.class);
+                orderService.handlePaymentCompleted(event.getOrderId(), event.isSuccess(), event.getFailureReason());
+            });
         } catch (Exception e) {
             log.error("Payment completed event işlenemedi: {}", e.getMessage());
         }
@@ -0,0 +1,9 @@
+package com.ecommerce.order.repository;
+
+import com.ecommerce.order.entity.OutboxCdcOffset;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxCdcOffsetRepository extends JpaRepository<OutboxCdcOffset, String> {
+}
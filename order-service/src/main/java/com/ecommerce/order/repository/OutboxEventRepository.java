@@ -8,19 +8,53 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
 
+    /**
+     * Relay shard sayısı. idx_outbox_unpublished_shard index'i bu modülle literal olarak yazılır;
+     * sorguda da parametre değil literal kullanılır ki generic plan'da da index ifadesiyle eşleşsin.
+     */
+    int SHARD_COUNT = 8;
+
     List<OutboxEvent> findByPublishedFalseOrderByCreatedAtAsc();
 
+    // Shard'a ait yayınlanmamış event'leri kilitleyerek sahiplenir.
+    // Aynı aggregate her zaman aynı shard'a düşer, böylece aggregate bazında sıra korunur.
+    @Query(value = "SELECT * FROM outbox_events e " +
+            "WHERE e.published = false " +
+            "AND ((hashtext(e.aggregate_id::text) & 2147483647) % " + SHARD_COUNT + ") = :shard " +
+            "ORDER BY e.created_at " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> claimUnpublishedBatch(@Param("shard") int shard,
+                                            @Param("batchSize") int batchSize);
+
+    // Transaction sonuna kadar shard'ı tek bir relay worker'a bağlar (instance'lar arası)
+    @Query(value = "SELECT pg_try_advisory_xact_lock(:namespace, :shard)", nativeQuery = true)
+    boolean tryLockShard(@Param("namespace") int namespace, @Param("shard") int shard);
+
+    @Query("SELECT MIN(e.createdAt) FROM OutboxEvent e WHERE e.published = false")
+    LocalDateTime findOldestUnpublishedCreatedAt();
+
+    long countByPublishedFalse();
+
+    @Query("SELECT e.id FROM OutboxEvent e WHERE e.id IN :ids AND e.published = true")
+    List<UUID> findPublishedIds(@Param("ids") Collection<UUID> ids);
+
     @Modifying
     @Query("UPDATE OutboxEvent e SET e.published = true, e.publishedAt = :now WHERE e.id = :id")
     void markAsPublished(@Param("id") UUID id, @Param("now") LocalDateTime now);
 
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.published = true, e.publishedAt = :now WHERE e.id IN :ids")
+    int markAllAsPublished(@Param("ids") Collection<UUID> ids, @Param("now") LocalDateTime now);
+
     @Modifying
     @Query("DELETE FROM OutboxEvent e WHERE e.published = true AND e.publishedAt < :before")
     void deletePublishedEventsBefore(@Param("before") LocalDateTime before);
-}
\ No newline at end of file
+}
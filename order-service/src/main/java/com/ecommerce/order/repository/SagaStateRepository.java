@@ -3,8 +3,11 @@ package com.ecommerce.order.repository;
 import com.ecommerce.order.entity.SagaState;
 import com.ecommerce.order.entity.SagaStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,4 +20,34 @@ public interface SagaStateRepository extends JpaRepository<SagaState, UUID> {
     List<SagaState> findByStatus(SagaStatus status);
 
     List<SagaState> findByStatusIn(List<SagaStatus> statuses);
+
+    // idx_saga_states_stuck partial index'ini kullanır; SKIP LOCKED ile birden fazla node aynı anda çalışabilir
+    @Query(value = "SELECT * FROM saga_states s " +
+            "WHERE s.status = CAST(:status AS saga_status) AND s.updated_at < :cutoff " +
+            "ORDER BY s.updated_at " +
+            "LIMIT :batchSize " +
+            "FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<SagaState> claimStuckSagas(@Param("status") String status,
+                                    @Param("cutoff") LocalDateTime cutoff,
+                                    @Param("batchSize") int batchSize);
+
+    // Aktif saga'lar için durum başına sayı ve yaş dağılımı (saniye)
+    @Query(value = "SELECT s.status AS status, COUNT(*) AS total, " +
+            "COUNT(*) FILTER (WHERE s.updated_at >= now() - INTERVAL '1 minute') AS under1m, " +
+            "COUNT(*) FILTER (WHERE s.updated_at < now() - INTERVAL '1 minute' AND s.updated_at >= now() - INTERVAL '5 minutes') AS under5m, " +
+            "COUNT(*) FILTER (WHERE s.updated_at < now() - INTERVAL '5 minutes' AND s.updated_at >= now() - INTERVAL '15 minutes') AS under15m, " +
+            "COUNT(*) FILTER (WHERE s.updated_at < now() - INTERVAL '15 minutes') AS over15m, " +
+            "COALESCE(EXTRACT(EPOCH FROM now() - MIN(s.updated_at)), 0) AS maxAgeSeconds " +
+            "FROM saga_states s WHERE s.status NOT IN ('COMPLETED', 'FAILED') GROUP BY s.status", nativeQuery = true)
+    List<SagaAgeStats> findActiveSagaStats();
+
+    interface SagaAgeStats {
+        String getStatus();
+        long getTotal();
+        long getUnder1m();
+        long getUnder5m();
+        long getUnder15m();
+        long getOver15m();
+        double getMaxAgeSeconds();
+    }
 }
\ No newline at end of file
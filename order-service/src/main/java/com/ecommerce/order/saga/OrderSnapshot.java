@@ -0,0 +1,28 @@
+package com.ecommerce.order.saga;
+
+import com.ecommerce.order.entity.Order;
+import com.ecommerce.order.entity.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Saga geçişini uygulayan UPDATE ... RETURNING'in döndürdüğü sipariş görüntüsü.
+ * Event payload'ları entity yüklemeden bu bilgilerden üretilir.
+ */
+public record OrderSnapshot(
+        UUID id,
+        String orderNumber,
+        UUID customerId,
+        String customerEmail,
+        String customerPhone,
+        BigDecimal totalAmount,
+        String currency,
+        OrderStatus previousStatus) {
+
+    public static OrderSnapshot from(Order order) {
+        return new OrderSnapshot(order.getId(), order.getOrderNumber(), order.getCustomerId(),
+                order.getCustomerEmail(), order.getCustomerPhone(), order.getTotalAmount(),
+                order.getCurrency(), order.getStatus());
+    }
+}
@@ -0,0 +1,169 @@
+package com.ecommerce.order.saga;
+
+import com.ecommerce.order.entity.SagaState;
+import com.ecommerce.order.entity.SagaStatus;
+import com.ecommerce.order.repository.SagaStateRepository;
+import com.ecommerce.order.service.OrderService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cevabı gelmediği için INVENTORY_PENDING / PAYMENT_PENDING'de takılı kalan saga'ları toplar.
+ * İstek max-retries kez yeniden gönderilir, sonra saga FAILED yapılıp telafi event'leri yazılır.
+ *
+ * Saga'lar FOR UPDATE SKIP LOCKED ile sahiplenildiği için birden fazla instance aynı anda
+ * çalışabilir; her saga tek bir instance tarafından işlenir.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaRecoveryScheduler {
+
+    private static final List<SagaStatus> RECOVERABLE_STATUSES =
+            List.of(SagaStatus.INVENTORY_PENDING, SagaStatus.PAYMENT_PENDING);
+
+    private static final List<String> AGE_BUCKETS = List.of("1m", "5m", "15m", "inf");
+
+    private final SagaStateRepository sagaStateRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${saga.recovery.batch-size:100}")
+    private int batchSize;
+
+    @Value("${saga.recovery.max-batches-per-cycle:10}")
+    private int maxBatchesPerCycle;
+
+    @Value("${saga.recovery.max-retries:2}")
+    private int maxRetries;
+
+    @Value("${saga.recovery.inventory-timeout-seconds:120}")
+    private long inventoryTimeoutSeconds;
+
+    // Ödeme servisi banka hatalarında 5 dk arayla yeniden dener, timeout bunu kapsamalı
+    @Value("${saga.recovery.payment-timeout-seconds:1800}")
+    private long paymentTimeoutSeconds;
+
+    private Counter resentCounter;
+    private Counter expiredCounter;
+    private final Map<SagaStatus, AtomicLong> activeCounts = new EnumMap<>(SagaStatus.class);
+    private final Map<SagaStatus, AtomicLong> maxAgeSeconds = new EnumMap<>(SagaStatus.class);
+    private final Map<SagaStatus, Map<String, AtomicLong>> ageBuckets = new EnumMap<>(SagaStatus.class);
+
+    @PostConstruct
+    void initMetrics() {
+        resentCounter = Counter.builder("saga.recovery.resent")
+                .description("Takılı saga için yeniden gönderilen istek sayısı")
+                .register(meterRegistry);
+        expiredCounter = Counter.builder("saga.recovery.expired")
+                .description("Zaman aşımı nedeniyle FAILED yapılan saga sayısı")
+                .register(meterRegistry);
+
+        for (SagaStatus status : SagaStateMachine.activeStatuses()) {
+            AtomicLong count = new AtomicLong();
+            AtomicLong maxAge = new AtomicLong();
+            activeCounts.put(status, count);
+            maxAgeSeconds.put(status, maxAge);
+
+            Gauge.builder("saga.active", count, AtomicLong::get)
+                    .description("Durumuna göre aktif saga sayısı")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+            Gauge.builder("saga.age.max.seconds", maxAge, AtomicLong::get)
+                    .description("Durumundaki en eski saga'nın son güncellemeden beri geçen süresi")
+                    .tag("status", status.name())
+                    .register(meterRegistry);
+
+            Map<String, AtomicLong> buckets = new LinkedHashMap<>();
+            for (String bucket : AGE_BUCKETS) {
+                AtomicLong value = new AtomicLong();
+                buckets.put(bucket, value);
+                Gauge.builder("saga.age", value, AtomicLong::get)
+                        .description("Durum ve yaş aralığına göre aktif saga sayısı")
+                        .tag("status", status.name())
+                        .tag("le", bucket)
+                        .register(meterRegistry);
+            }
+            ageBuckets.put(status, buckets);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${saga.recovery.interval-ms:30000}")
+    public void recoverStuckSagas() {
+        for (SagaStatus status : RECOVERABLE_STATUSES) {
+            int total = 0;
+            for (int i = 0; i < maxBatchesPerCycle; i++) {
+                Integer count = transactionTemplate.execute(tx -> recoverBatch(status));
+                int batchCount = count != null ? count : 0;
+                total += batchCount;
+                if (batchCount < batchSize) {
+                    break;
+                }
+            }
+            if (total > 0) {
+                log.info("Saga recovery: {} durumunda {} saga işlendi", status, total);
+            }
+        }
+        refreshMetrics();
+    }
+
+    private int recoverBatch(SagaStatus status) {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(timeoutSeconds(status));
+        List<SagaState> stuck = sagaStateRepository.claimStuckSagas(status.name(), cutoff, batchSize);
+
+        for (SagaState saga : stuck) {
+            if (saga.getRetryCount() < maxRetries) {
+                orderService.resendSagaRequest(saga.getOrderId(), status);
+                // updated_at da ilerler, bir sonraki deneme yeniden timeout kadar bekler
+                saga.setRetryCount(saga.getRetryCount() + 1);
+                resentCounter.increment();
+            } else {
+                orderService.expireSaga(saga.getOrderId(), status);
+                expiredCounter.increment();
+            }
+        }
+        return stuck.size();
+    }
+
+    private long timeoutSeconds(SagaStatus status) {
+        return status == SagaStatus.PAYMENT_PENDING ? paymentTimeoutSeconds : inventoryTimeoutSeconds;
+    }
+
+    private void refreshMetrics() {
+        activeCounts.values().forEach(value -> value.set(0));
+        maxAgeSeconds.values().forEach(value -> value.set(0));
+        ageBuckets.values().forEach(buckets -> buckets.values().forEach(value -> value.set(0)));
+
+        for (SagaStateRepository.SagaAgeStats stats : sagaStateRepository.findActiveSagaStats()) {
+            SagaStatus status = SagaStatus.valueOf(stats.getStatus());
+            activeCounts.get(status).set(stats.getTotal());
+            maxAgeSeconds.get(status).set((long) stats.getMaxAgeSeconds());
+
+            // Kümülatif: le=5m, 5 dakikadan genç tüm saga'ları içerir
+            Map<String, AtomicLong> buckets = ageBuckets.get(status);
+            long cumulative = stats.getUnder1m();
+            buckets.get("1m").set(cumulative);
+            cumulative += stats.getUnder5m();
+            buckets.get("5m").set(cumulative);
+            cumulative += stats.getUnder15m();
+            buckets.get("15m").set(cumulative);
+            buckets.get("inf").set(cumulative + stats.getOver15m());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.ecommerce.order.saga;
+
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.SagaStatus;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.ecommerce.order.entity.SagaStatus.*;
+
+/**
+ * Saga adımlarını iki round-trip'te uygular:
+ * 1. Saga ve sipariş tek bir koşullu UPDATE ile güncellenir (beklenen durumda değilse hiçbir şey yazılmaz)
+ * 2. Durum geçmişi ve outbox event'leri tek bir INSERT ile yazılır
+ *
+ * Koşul tutmazsa (tekrar gelen ya da sırası kaymış event) boş döner, çağıran taraf event'i yok sayar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SagaStateMachine {
+
+    private static final Map<SagaStatus, Set<SagaStatus>> ALLOWED_TRANSITIONS = new EnumMap<>(SagaStatus.class);
+
+    static {
+        ALLOWED_TRANSITIONS.put(STARTED, EnumSet.of(INVENTORY_PENDING, FAILED));
+        ALLOWED_TRANSITIONS.put(INVENTORY_PENDING, EnumSet.of(INVENTORY_RESERVED, PAYMENT_PENDING, FAILED));
+        ALLOWED_TRANSITIONS.put(INVENTORY_RESERVED, EnumSet.of(PAYMENT_PENDING, COMPENSATING, FAILED));
+        ALLOWED_TRANSITIONS.put(PAYMENT_PENDING, EnumSet.of(PAYMENT_COMPLETED, COMPLETED, COMPENSATING, FAILED));
+        ALLOWED_TRANSITIONS.put(PAYMENT_COMPLETED, EnumSet.of(NOTIFICATION_PENDING, COMPLETED, COMPENSATING, FAILED));
+        ALLOWED_TRANSITIONS.put(NOTIFICATION_PENDING, EnumSet.of(COMPLETED, FAILED));
+        ALLOWED_TRANSITIONS.put(COMPENSATING, EnumSet.of(FAILED));
+        ALLOWED_TRANSITIONS.put(COMPLETED, EnumSet.noneOf(SagaStatus.class));
+        ALLOWED_TRANSITIONS.put(FAILED, EnumSet.noneOf(SagaStatus.class));
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public static Set<SagaStatus> activeStatuses() {
+        return EnumSet.complementOf(EnumSet.of(COMPLETED, FAILED));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Optional<OrderSnapshot> apply(SagaTransition transition) {
+        validate(transition);
+
+        List<OrderSnapshot> updated = jdbcTemplate.query(buildUpdateSql(transition),
+                (rs, rowNum) -> new OrderSnapshot(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("order_number"),
+                        rs.getObject("customer_id", UUID.class),
+                        rs.getString("customer_email"),
+                        rs.getString("customer_phone"),
+                        rs.getBigDecimal("total_amount"),
+                        rs.getString("currency"),
+                        OrderStatus.valueOf(rs.getString("old_status"))),
+                updateArgs(transition));
+
+        if (updated.isEmpty()) {
+            log.warn("Saga geçişi uygulanmadı (tekrar/sırasız event): orderId={}, beklenen={}, hedef={}",
+                    transition.getOrderId(), transition.getFromStatuses(), transition.getToStatus());
+            return Optional.empty();
+        }
+
+        OrderSnapshot order = updated.get(0);
+        writeHistoryAndOutbox(transition, order);
+        return Optional.of(order);
+    }
+
+    private void validate(SagaTransition transition) {
+        if (transition.getFromStatuses().isEmpty() || transition.getHistoryEntries().isEmpty()) {
+            throw new IllegalStateException("Saga geçişi için kaynak durum ve durum geçmişi belirtilmeli");
+        }
+        for (SagaStatus from : transition.getFromStatuses()) {
+            if (!ALLOWED_TRANSITIONS.get(from).contains(transition.getToStatus())) {
+                throw new IllegalStateException("Geçersiz saga geçişi: " + from + " -> " + transition.getToStatus());
+            }
+        }
+    }
+
+    private String buildUpdateSql(SagaTransition transition) {
+        String sagaPlaceholders = transition.getFromStatuses().stream()
+                .map(status -> "?::saga_status")
+                .collect(Collectors.joining(", "));
+
+        return "WITH prev AS (" +
+                "    SELECT o.id, o.status AS old_status FROM orders o" +
+                "    JOIN saga_states s ON s.order_id = o.id" +
+                "    WHERE o.id = ? AND s.status IN (" + sagaPlaceholders + ")" +
+                (transition.getExpectedOrderStatus() != null ? " AND o.status = ?::order_status" : "") +
+                "    FOR UPDATE" +
+                "), saga AS (" +
+                "    UPDATE saga_states s SET status = ?::saga_status, current_step = ?, version = s.version + 1," +
+                "        completed_at = CASE WHEN ? THEN CURRENT_TIMESTAMP ELSE s.completed_at END" +
+                "    FROM prev WHERE s.order_id = prev.id" +
+                ") " +
+                "UPDATE orders o SET status = ?::order_status," +
+                "    failure_reason = COALESCE(?, o.failure_reason)," +
+                "    cancellation_reason = COALESCE(?, o.cancellation_reason)," +
+                "    cancelled_by = COALESCE(?, o.cancelled_by)," +
+                "    version = o.version + 1 " +
+                "FROM prev WHERE o.id = prev.id " +
+                "RETURNING prev.old_status, o.id, o.order_number, o.customer_id, o.customer_email," +
+                "    o.customer_phone, o.total_amount, o.currency";
+    }
+
+    private Object[] updateArgs(SagaTransition transition) {
+        List<Object> args = new ArrayList<>();
+        args.add(transition.getOrderId());
+        transition.getFromStatuses().forEach(status -> args.add(status.name()));
+        if (transition.getExpectedOrderStatus() != null) {
+            args.add(transition.getExpectedOrderStatus().name());
+        }
+        args.add(transition.getToStatus().name());
+        args.add(transition.getStep());
+        args.add(transition.getToStatus() == COMPLETED);
+        args.add(transition.getOrderStatus().name());
+        args.add(transition.getFailureReason());
+        args.add(transition.getCancellationReason());
+        args.add(transition.getCancelledBy());
+        return args.toArray();
+    }
+
+    private void writeHistoryAndOutbox(SagaTransition transition, OrderSnapshot order) {
+        List<SagaTransition.Event> events = transition.getEvents() != null
+                ? transition.getEvents().apply(order)
+                : Collections.emptyList();
+
+        List<Object> args = new ArrayList<>();
+        StringBuilder historyInsert = new StringBuilder(
+                "INSERT INTO order_status_history (order_id, old_status, new_status, reason) VALUES ");
+        OrderStatus oldStatus = order.previousStatus();
+        for (int i = 0; i < transition.getHistoryEntries().size(); i++) {
+            SagaTransition.History history = transition.getHistoryEntries().get(i);
+            historyInsert.append(i > 0 ? ", " : "").append("(?, ?::order_status, ?::order_status, ?)");
+            args.add(order.id());
+            args.add(oldStatus.name());
+            args.add(history.newStatus().name());
+            args.add(history.reason());
+            oldStatus = history.newStatus();
+        }
+
+        if (events.isEmpty()) {
+            jdbcTemplate.update(historyInsert.toString(), args.toArray());
+            return;
+        }
+
+        // Geçmiş ve outbox aynı statement'ta: data-modifying CTE tek round-trip'te ikisini de yazar
+        StringBuilder sql = new StringBuilder("WITH history AS (").append(historyInsert).append(") ")
+                .append("INSERT INTO outbox_events (aggregate_type, aggregate_id, event_type, payload) VALUES ");
+        for (int i = 0; i < events.size(); i++) {
+            SagaTransition.Event event = events.get(i);
+            sql.append(i > 0 ? ", " : "").append("('ORDER', ?, ?, ?::jsonb)");
+            args.add(order.id());
+            args.add(event.topic());
+            args.add(toJson(event.payload()));
+        }
+        jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            log.error("Event JSON'a çevrilemedi: {}", e.getMessage());
+            throw new RuntimeException("Event serialization failed", e);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.ecommerce.order.saga;
+
+import com.ecommerce.order.entity.OrderStatus;
+import com.ecommerce.order.entity.SagaStatus;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bir saga adımının tanımı: hangi durum(lar)dan hangi duruma geçileceği, siparişe yazılacak
+ * alanlar, eklenecek durum geçmişi kayıtları ve outbox'a yazılacak event'ler.
+ */
+@Getter
+@Builder
+public class SagaTransition {
+
+    private final UUID orderId;
+
+    // Geçişin uygulanabilmesi için saga'nın bulunması gereken durumlar
+    @Singular
+    private final Set<SagaStatus> fromStatuses;
+
+    // Verilirse sipariş de bu durumda olmalı (okuma ile yazma arasındaki yarışa karşı)
+    private final OrderStatus expectedOrderStatus;
+
+    private final SagaStatus toStatus;
+    private final String step;
+    private final OrderStatus orderStatus;
+
+    private final String failureReason;
+    private final String cancellationReason;
+    private final String cancelledBy;
+
+    // Durum geçmişi: her kayıt bir öncekinin newStatus'undan devam eder
+    @Singular("history")
+    private final List<History> historyEntries;
+
+    // Outbox event'leri, güncellenen siparişin görüntüsünden üretilir
+    private final Function<OrderSnapshot, List<Event>> events;
+
+    public record History(OrderStatus newStatus, String reason) {
+    }
+
+    public record Event(String topic, Object payload) {
+    }
+}
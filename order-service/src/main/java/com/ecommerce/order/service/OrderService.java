@@ -4,6 +4,7 @@ import com.ecommerce.order.dto.request.CancelOrderRequest;
 import com.ecommerce.order.dto.request.CreateOrderRequest;
 import com.ecommerce.order.dto.response.OrderListResponse;
 import com.ecommerce.order.dto.response.OrderResponse;
+import com.ecommerce.order.entity.SagaStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -25,4 +26,8 @@ public interface OrderService {
     // Saga Callbacks (diğer servislerden gelen event'ler için)
     void handleInventoryReserved(UUID orderId, boolean success, String failureReason);
     void handlePaymentCompleted(UUID orderId, boolean success, String failureReason);
+
+    // Saga Recovery (takılı kalan saga'lar için)
+    void resendSagaRequest(UUID orderId, SagaStatus status);
+    void expireSaga(UUID orderId, SagaStatus status);
 }
\ No newline at end of file
@@ -7,6 +7,9 @@ import com.ecommerce.order.event.*;
 import com.ecommerce.order.exception.*;
 import com.ecommerce.order.mapper.OrderMapper;
 import com.ecommerce.order.repository.*;
+import com.ecommerce.order.saga.OrderSnapshot;
+import com.ecommerce.order.saga.SagaStateMachine;
+import com.ecommerce.order.saga.SagaTransition;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
@@ -16,6 +19,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
@@ -32,6 +36,7 @@ public class OrderServiceImpl implements OrderService {
     private final OrderStatusHistoryRepository statusHistoryRepository;
     private final OrderMapper orderMapper;
     private final OutboxService outboxService;
+    private final SagaStateMachine sagaStateMachine;
 
     // Kafka Topic isimleri
     private static final String TOPIC_INVENTORY_RESERVE = "inventory-reserve-request";
@@ -130,126 +135,149 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public OrderResponse cancelOrder(UUID orderId, CancelOrderRequest request) {
-        Order order = findOrderById(orderId);
+        OrderStatus currentStatus = orderRepository.findStatusById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Sipariş bulunamadı"));
 
         // İptal edilebilir durumda mı?
-        if (order.getStatus() == OrderStatus.COMPLETED) {
+        if (currentStatus == OrderStatus.COMPLETED) {
             throw new BadRequestException("Tamamlanmış sipariş iptal edilemez");
         }
-        if (order.getStatus() == OrderStatus.CANCELLED) {
+        if (currentStatus == OrderStatus.CANCELLED) {
             throw new BadRequestException("Sipariş zaten iptal edilmiş");
         }
-
-        OrderStatus oldStatus = order.getStatus();
-
-        // Duruma göre compensation işlemleri
-        if (oldStatus == OrderStatus.PAYMENT_COMPLETED || oldStatus == OrderStatus.INVENTORY_RESERVED) {
-            // Ödeme yapıldıysa iade et
-            if (oldStatus == OrderStatus.PAYMENT_COMPLETED) {
-                requestPaymentRefund(order);
-            }
-            // Stok rezerve edildiyse serbest bırak
-            requestInventoryRelease(order, request.getReason());
+        if (currentStatus == OrderStatus.FAILED) {
+            throw new BadRequestException("Başarısız sipariş iptal edilemez");
         }
 
-        // Siparişi iptal et
-        order.setStatus(OrderStatus.CANCELLED);
-        order.setCancellationReason(request.getReason());
-        order.setCancelledBy(request.getCancelledBy());
-        order = orderRepository.save(order);
-
-        // Saga durumunu güncelle
-        updateSagaStatus(order.getId(), SagaStatus.FAILED, "ORDER_CANCELLED");
-
-        // Durum geçmişi
-        saveStatusHistory(order, oldStatus, OrderStatus.CANCELLED, request.getReason());
+        // Sipariş okunduğu durumdaysa iptal et, compensation event'lerini aynı adımda yaz
+        SagaTransition transition = SagaTransition.builder()
+                .orderId(orderId)
+                .fromStatuses(SagaStateMachine.activeStatuses())
+                .expectedOrderStatus(currentStatus)
+                .toStatus(SagaStatus.FAILED)
+                .step("ORDER_CANCELLED")
+                .orderStatus(OrderStatus.CANCELLED)
+                .cancellationReason(request.getReason())
+                .cancelledBy(request.getCancelledBy())
+                .history(new SagaTransition.History(OrderStatus.CANCELLED, request.getReason()))
+                .events(order -> cancellationEvents(order, request.getReason()))
+                .build();
 
-        // Event yayınla
-        publishOrderCancelledEvent(order, request.getReason());
+        OrderSnapshot cancelled = sagaStateMachine.apply(transition)
+                .orElseThrow(() -> new BadRequestException("Sipariş durumu değişti, lütfen tekrar deneyin"));
 
-        log.info("Sipariş iptal edildi: OrderNumber={}, Reason={}", order.getOrderNumber(), request.getReason());
-        return orderMapper.toResponse(order);
+        log.info("Sipariş iptal edildi: OrderNumber={}, Reason={}", cancelled.orderNumber(), request.getReason());
+        return orderMapper.toResponse(findOrderById(orderId));
     }
 
     // ==================== SAGA CALLBACKS ====================
 
     @Override
     public void handleInventoryReserved(UUID orderId, boolean success, String failureReason) {
-        Order order = findOrderById(orderId);
-
         if (success) {
-            log.info("Stok rezerve edildi: OrderId={}", orderId);
-
-            // Durumu güncelle
-            OrderStatus oldStatus = order.getStatus();
-            order.setStatus(OrderStatus.INVENTORY_RESERVED);
-            orderRepository.save(order);
-
-            // Saga durumunu güncelle
-            updateSagaStatus(orderId, SagaStatus.INVENTORY_RESERVED, "INVENTORY_RESERVED");
-
-            // Durum geçmişi
-            saveStatusHistory(order, oldStatus, OrderStatus.INVENTORY_RESERVED, "Stok rezerve edildi");
-
-            // Sonraki adım: Ödeme iste
-            requestPayment(order);
+            // Stok rezerve edildi ve ödeme istendi: tek saga adımı
+            SagaTransition transition = SagaTransition.builder()
+                    .orderId(orderId)
+                    .fromStatus(SagaStatus.INVENTORY_PENDING)
+                    .toStatus(SagaStatus.PAYMENT_PENDING)
+                    .step("PAYMENT_PENDING")
+                    .orderStatus(OrderStatus.INVENTORY_RESERVED)
+                    .history(new SagaTransition.History(OrderStatus.INVENTORY_RESERVED, "Stok rezerve edildi"))
+                    .events(order -> List.of(new SagaTransition.Event(TOPIC_PAYMENT_REQUEST, buildPaymentRequest(order))))
+                    .build();
+
+            sagaStateMachine.apply(transition).ifPresent(order ->
+                    log.info("Stok rezerve edildi, ödeme isteği gönderildi: OrderId={}, Amount={}",
+                            orderId, order.totalAmount()));
 
         } else {
             log.error("Stok rezerve edilemedi: OrderId={}, Reason={}", orderId, failureReason);
 
-            // Siparişi başarısız yap
-            failOrder(order, failureReason);
+            sagaStateMachine.apply(failTransition(orderId, SagaStatus.INVENTORY_PENDING, failureReason)
+                    .build());
         }
     }
 
     @Override
     public void handlePaymentCompleted(UUID orderId, boolean success, String failureReason) {
-        Order order = findOrderById(orderId);
-
         if (success) {
-            log.info("Ödeme tamamlandı: OrderId={}", orderId);
-
-            // Durumu güncelle
-            OrderStatus oldStatus = order.getStatus();
-            order.setStatus(OrderStatus.PAYMENT_COMPLETED);
-            orderRepository.save(order);
-
-            // Saga durumunu güncelle
-            updateSagaStatus(orderId, SagaStatus.PAYMENT_COMPLETED, "PAYMENT_COMPLETED");
-
-            // Durum geçmişi
-            saveStatusHistory(order, oldStatus, OrderStatus.PAYMENT_COMPLETED, "Ödeme alındı");
-
-            // Siparişi tamamla
-            completeOrder(order);
+            // Ödeme alındı ve sipariş tamamlandı: tek saga adımı
+            SagaTransition transition = SagaTransition.builder()
+                    .orderId(orderId)
+                    .fromStatus(SagaStatus.PAYMENT_PENDING)
+                    .toStatus(SagaStatus.COMPLETED)
+                    .step("COMPLETED")
+                    .orderStatus(OrderStatus.COMPLETED)
+                    .history(new SagaTransition.History(OrderStatus.PAYMENT_COMPLETED, "Ödeme alındı"))
+                    .history(new SagaTransition.History(OrderStatus.COMPLETED, "Sipariş tamamlandı"))
+                    .events(order -> List.of(new SagaTransition.Event(TOPIC_ORDER_COMPLETED, buildOrderCompletedEvent(order))))
+                    .build();
+
+            sagaStateMachine.apply(transition).ifPresent(order ->
+                    log.info("Sipariş tamamlandı: OrderNumber={}", order.orderNumber()));
 
         } else {
             log.error("Ödeme başarısız: OrderId={}, Reason={}", orderId, failureReason);
 
             // Stok rezervasyonunu serbest bırak (compensation)
-            requestInventoryRelease(order, "Ödeme başarısız: " + failureReason);
+            SagaTransition transition = failTransition(orderId, SagaStatus.PAYMENT_PENDING, failureReason)
+                    .events(order -> List.of(new SagaTransition.Event(TOPIC_INVENTORY_RELEASE,
+                            buildCancelledEvent(order, "Ödeme başarısız: " + failureReason))))
+                    .build();
+
+            sagaStateMachine.apply(transition);
+        }
+    }
+
+    // ==================== SAGA RECOVERY ====================
 
-            // Siparişi başarısız yap
-            failOrder(order, failureReason);
+    @Override
+    public void resendSagaRequest(UUID orderId, SagaStatus status) {
+        // Karşı servisler aynı siparişe gelen tekrar isteği yeniden işlemez, sonucu varsa tekrar yayınlar
+        Order order = findOrderById(orderId);
+        switch (status) {
+            case INVENTORY_PENDING -> requestInventoryReservation(order);
+            case PAYMENT_PENDING -> {
+                outboxService.saveEvent("ORDER", orderId, TOPIC_PAYMENT_REQUEST,
+                        buildPaymentRequest(OrderSnapshot.from(order)));
+                log.info("Ödeme isteği yeniden gönderildi: OrderId={}", orderId);
+            }
+            default -> throw new IllegalArgumentException("Yeniden gönderilemeyen saga adımı: " + status);
         }
     }
 
+    @Override
+    public void expireSaga(UUID orderId, SagaStatus status) {
+        String reason = "Saga zaman aşımına uğradı: " + status;
+        log.error("Saga zaman aşımı: OrderId={}, Step={}", orderId, status);
+
+        // Cevap kaybolmuş olabilir: rezervasyon ya da ödeme gerçekleşmiş olma ihtimaline karşı telafi et
+        SagaTransition transition = failTransition(orderId, status, reason)
+                .events(order -> {
+                    List<SagaTransition.Event> events = new ArrayList<>();
+                    if (status == SagaStatus.PAYMENT_PENDING) {
+                        events.add(new SagaTransition.Event(TOPIC_PAYMENT_REFUND, buildPaymentRequest(order)));
+                    }
+                    events.add(new SagaTransition.Event(TOPIC_INVENTORY_RELEASE, buildCancelledEvent(order, reason)));
+                    return events;
+                })
+                .build();
+
+        sagaStateMachine.apply(transition);
+    }
+
     // ==================== SAGA HELPER METHODS ====================
 
     private void startSaga(Order order) {
-        // Saga state oluştur
+        // Saga, stok rezervasyon isteğiyle birlikte doğrudan INVENTORY_PENDING olarak başlar
         SagaState saga = SagaState.builder()
                 .orderId(order.getId())
-                .status(SagaStatus.STARTED)
-                .currentStep("ORDER_CREATED")
+                .status(SagaStatus.INVENTORY_PENDING)
+                .currentStep("INVENTORY_PENDING")
                 .build();
         sagaStateRepository.save(saga);
 
-        // İlk adım: Stok rezervasyonu iste
         requestInventoryReservation(order);
-
-        // Saga durumunu güncelle
-        updateSagaStatus(order.getId(), SagaStatus.INVENTORY_PENDING, "INVENTORY_PENDING");
     }
 
     private void requestInventoryReservation(Order order) {
@@ -265,131 +293,74 @@ public class OrderServiceImpl implements OrderService {
         InventoryReserveRequestEvent event = InventoryReserveRequestEvent.builder()
                 .orderId(order.getId())
                 .items(items)
+                .shippingCity(order.getShippingCity())
                 .build();
 
         outboxService.saveEvent("ORDER", order.getId(), TOPIC_INVENTORY_RESERVE, event);
         log.info("Stok rezervasyon isteği gönderildi: OrderId={}", order.getId());
     }
 
-    private void requestInventoryRelease(Order order, String reason) {
-        OrderCancelledEvent event = OrderCancelledEvent.builder()
-                .orderId(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .customerId(order.getCustomerId())
-                .customerEmail(order.getCustomerEmail())
-                .customerPhone(order.getCustomerPhone())
-                .totalAmount(order.getTotalAmount())
-                .reason(reason)
-                .cancelledAt(LocalDateTime.now())
-                .build();
-
-        outboxService.saveEvent("ORDER", order.getId(), TOPIC_INVENTORY_RELEASE, event);
-        log.info("Stok serbest bırakma isteği gönderildi: OrderId={}", order.getId());
-    }
-
-    private void requestPayment(Order order) {
-        // Saga durumunu güncelle
-        updateSagaStatus(order.getId(), SagaStatus.PAYMENT_PENDING, "PAYMENT_PENDING");
-
-        PaymentRequestEvent event = PaymentRequestEvent.builder()
-                .orderId(order.getId())
-                .customerId(order.getCustomerId())
-                .amount(order.getTotalAmount())
-                .currency(order.getCurrency())
-                .build();
-
-        outboxService.saveEvent("ORDER", order.getId(), TOPIC_PAYMENT_REQUEST, event);
-        log.info("Ödeme isteği gönderildi: OrderId={}, Amount={}", order.getId(), order.getTotalAmount());
+    private SagaTransition.SagaTransitionBuilder failTransition(UUID orderId, SagaStatus from, String reason) {
+        return SagaTransition.builder()
+                .orderId(orderId)
+                .fromStatus(from)
+                .toStatus(SagaStatus.FAILED)
+                .step("FAILED")
+                .orderStatus(OrderStatus.FAILED)
+                .failureReason(reason)
+                .history(new SagaTransition.History(OrderStatus.FAILED, reason));
     }
 
-    private void requestPaymentRefund(Order order) {
-        PaymentRequestEvent event = PaymentRequestEvent.builder()
-                .orderId(order.getId())
-                .customerId(order.getCustomerId())
-                .amount(order.getTotalAmount())
-                .currency(order.getCurrency())
-                .build();
-
-        outboxService.saveEvent("ORDER", order.getId(), TOPIC_PAYMENT_REFUND, event);
-        log.info("İade isteği gönderildi: OrderId={}", order.getId());
-    }
+    private List<SagaTransition.Event> cancellationEvents(OrderSnapshot order, String reason) {
+        List<SagaTransition.Event> events = new ArrayList<>();
 
-    private void completeOrder(Order order) {
-        OrderStatus oldStatus = order.getStatus();
-        order.setStatus(OrderStatus.COMPLETED);
-        orderRepository.save(order);
-
-        // Saga tamamlandı
-        SagaState saga = sagaStateRepository.findByOrderId(order.getId()).orElse(null);
-        if (saga != null) {
-            saga.setStatus(SagaStatus.COMPLETED);
-            saga.setCurrentStep("COMPLETED");
-            saga.setCompletedAt(LocalDateTime.now());
-            sagaStateRepository.save(saga);
+        // Ödeme yapıldıysa iade et
+        if (order.previousStatus() == OrderStatus.PAYMENT_COMPLETED) {
+            events.add(new SagaTransition.Event(TOPIC_PAYMENT_REFUND, buildPaymentRequest(order)));
         }
-
-        // Durum geçmişi
-        saveStatusHistory(order, oldStatus, OrderStatus.COMPLETED, "Sipariş tamamlandı");
-
-        // Event yayınla
-        publishOrderCompletedEvent(order);
-
-        log.info("Sipariş tamamlandı: OrderNumber={}", order.getOrderNumber());
+        // Stok rezerve edildiyse serbest bırak
+        if (order.previousStatus() == OrderStatus.PAYMENT_COMPLETED
+                || order.previousStatus() == OrderStatus.INVENTORY_RESERVED) {
+            events.add(new SagaTransition.Event(TOPIC_INVENTORY_RELEASE, buildCancelledEvent(order, reason)));
+        }
+        events.add(new SagaTransition.Event(TOPIC_ORDER_CANCELLED, buildCancelledEvent(order, reason)));
+        return events;
     }
 
-    private void failOrder(Order order, String reason) {
-        OrderStatus oldStatus = order.getStatus();
-        order.setStatus(OrderStatus.FAILED);
-        order.setFailureReason(reason);
-        orderRepository.save(order);
+    // ==================== EVENT BUILDERS ====================
 
-        // Saga başarısız
-        updateSagaStatus(order.getId(), SagaStatus.FAILED, "FAILED");
-
-        // Durum geçmişi
-        saveStatusHistory(order, oldStatus, OrderStatus.FAILED, reason);
-
-        log.error("Sipariş başarısız: OrderNumber={}, Reason={}", order.getOrderNumber(), reason);
-    }
-
-    private void updateSagaStatus(UUID orderId, SagaStatus status, String step) {
-        sagaStateRepository.findByOrderId(orderId).ifPresent(saga -> {
-            saga.setStatus(status);
-            saga.setCurrentStep(step);
-            sagaStateRepository.save(saga);
-        });
+    private PaymentRequestEvent buildPaymentRequest(OrderSnapshot order) {
+        return PaymentRequestEvent.builder()
+                .orderId(order.id())
+                .customerId(order.customerId())
+                .amount(order.totalAmount())
+                .currency(order.currency())
+                .build();
     }
 
-    // ==================== EVENT PUBLISHERS ====================
-
-    private void publishOrderCompletedEvent(Order order) {
-        OrderCompletedEvent event = OrderCompletedEvent.builder()
-                .orderId(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .customerId(order.getCustomerId())
-                .customerEmail(order.getCustomerEmail())
-                .customerPhone(order.getCustomerPhone())
-                .totalAmount(order.getTotalAmount())
+    private OrderCompletedEvent buildOrderCompletedEvent(OrderSnapshot order) {
+        return OrderCompletedEvent.builder()
+                .orderId(order.id())
+                .orderNumber(order.orderNumber())
+                .customerId(order.customerId())
+                .customerEmail(order.customerEmail())
+                .customerPhone(order.customerPhone())
+                .totalAmount(order.totalAmount())
                 .completedAt(LocalDateTime.now())
                 .build();
-
-        outboxService.saveEvent("ORDER", order.getId(), TOPIC_ORDER_COMPLETED, event);
-        log.info("Order completed event gönderildi: {}", order.getOrderNumber());
     }
 
-    private void publishOrderCancelledEvent(Order order, String reason) {
-        OrderCancelledEvent event = OrderCancelledEvent.builder()
-                .orderId(order.getId())
-                .orderNumber(order.getOrderNumber())
-                .customerId(order.getCustomerId())
-                .customerEmail(order.getCustomerEmail())
-                .customerPhone(order.getCustomerPhone())
-                .totalAmount(order.getTotalAmount())
+    private OrderCancelledEvent buildCancelledEvent(OrderSnapshot order, String reason) {
+        return OrderCancelledEvent.builder()
+                .orderId(order.id())
+                .orderNumber(order.orderNumber())
+                .customerId(order.customerId())
+                .customerEmail(order.customerEmail())
+                .customerPhone(order.customerPhone())
+                .totalAmount(order.totalAmount())
                 .reason(reason)
                 .cancelledAt(LocalDateTime.now())
                 .build();
-
-        outboxService.saveEvent("ORDER", order.getId(), TOPIC_ORDER_CANCELLED, event);
     }
 
     // ==================== HELPER METHODS ====================
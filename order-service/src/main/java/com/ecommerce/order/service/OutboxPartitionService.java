@@ -0,0 +1,6 @@
+package com.ecommerce.order.service;
+
+public interface OutboxPartitionService {
+
+    void maintainPartitions();
+}
@@ -0,0 +1,156 @@
+package com.ecommerce.order.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * outbox_events günlük partition bakımı: ileriye dönük partition'ları oluşturur, tamamı
+ * yayınlanmış eski partition'ları DROP eder (ya da outbox_archive şemasına taşır).
+ * Satır satır DELETE ve vacuum yükü olmadan O(1) temizlik sağlar.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxPartitionServiceImpl implements OutboxPartitionService {
+
+    private static final int MAINTENANCE_LOCK_KEY = 7_002;
+    private static final Pattern PARTITION_NAME = Pattern.compile("outbox_events_p(\\d{8})");
+    private static final DateTimeFormatter PARTITION_DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${outbox.partition.retention-days:3}")
+    private int retentionDays;
+
+    @Value("${outbox.partition.precreate-days:3}")
+    private int precreateDays;
+
+    @Value("${outbox.partition.archive:false}")
+    private boolean archive;
+
+    private final AtomicInteger partitionCount = new AtomicInteger();
+    private Counter droppedCounter;
+    private Counter archivedCounter;
+    private Counter reclaimedBytesCounter;
+
+    @PostConstruct
+    void initMetrics() {
+        Gauge.builder("outbox.partitions.count", partitionCount, AtomicInteger::get)
+                .description("outbox_events altındaki partition sayısı")
+                .register(meterRegistry);
+        droppedCounter = Counter.builder("outbox.partitions.dropped").register(meterRegistry);
+        archivedCounter = Counter.builder("outbox.partitions.archived").register(meterRegistry);
+        reclaimedBytesCounter = Counter.builder("outbox.partitions.reclaimed")
+                .baseUnit("bytes")
+                .description("Düşürülen partition'lardan geri kazanılan disk alanı")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintainPartitions();
+    }
+
+    @Override
+    @Scheduled(cron = "${outbox.partition.cron:0 15 * * * *}")
+    public void maintainPartitions() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> runMaintenance());
+        } catch (Exception e) {
+            // Kilit zaman aşımı vb. - bir sonraki çalışmada tekrar denenecek
+            log.error("Outbox partition bakımı başarısız: {}", e.getMessage());
+        }
+    }
+
+    private void runMaintenance() {
+        // Aynı anda sadece bir order-service instance'ı bakım yapar
+        Boolean locked = jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        jdbcTemplate.execute("SET LOCAL lock_timeout = '5s'");
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        // 1. Önümüzdeki günlerin partition'larını hazırla
+        for (int day = 0; day <= precreateDays; day++) {
+            jdbcTemplate.queryForObject("SELECT ensure_outbox_partition(?)", String.class, today.plusDays(day));
+        }
+
+        // 2. Saklama süresini geçmiş partition'ları temizle
+        LocalDate cutoff = today.minusDays(retentionDays);
+        int dropped = 0;
+        int archived = 0;
+        long reclaimedBytes = 0;
+
+        for (PartitionInfo partition : listPartitions()) {
+            Matcher matcher = PARTITION_NAME.matcher(partition.name());
+            if (!matcher.matches() || !LocalDate.parse(matcher.group(1), PARTITION_DAY).isBefore(cutoff)) {
+                continue;
+            }
+
+            Boolean hasUnpublished = jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + partition.name() + " WHERE published = false)", Boolean.class);
+            if (Boolean.TRUE.equals(hasUnpublished)) {
+                log.warn("Partition yayınlanmamış event içeriyor, atlandı: {}", partition.name());
+                continue;
+            }
+
+            if (archive) {
+                jdbcTemplate.execute("ALTER TABLE outbox_events DETACH PARTITION " + partition.name());
+                jdbcTemplate.execute("ALTER TABLE " + partition.name() + " SET SCHEMA outbox_archive");
+                archived++;
+            } else {
+                jdbcTemplate.execute("DROP TABLE " + partition.name());
+                reclaimedBytes += partition.sizeBytes();
+                dropped++;
+            }
+        }
+
+        // 3. Default partition'a düşmüş yayınlanmış eski kayıtlar (normalde boş kalır)
+        jdbcTemplate.update("DELETE FROM outbox_events_default WHERE published = true AND published_at < ?",
+                cutoff.atStartOfDay().atOffset(ZoneOffset.UTC));
+
+        int remaining = listPartitions().size();
+        partitionCount.set(remaining);
+        droppedCounter.increment(dropped);
+        archivedCounter.increment(archived);
+        reclaimedBytesCounter.increment(reclaimedBytes);
+
+        log.info("Outbox partition bakımı: {} partition, {} düşürüldü, {} arşivlendi, {} byte geri kazanıldı",
+                remaining, dropped, archived, reclaimedBytes);
+    }
+
+    private List<PartitionInfo> listPartitions() {
+        return jdbcTemplate.query(
+                "SELECT c.relname, pg_total_relation_size(c.oid) FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'outbox_events'::regclass ORDER BY c.relname",
+                (rs, rowNum) -> new PartitionInfo(rs.getString(1), rs.getLong(2)));
+    }
+
+    private record PartitionInfo(String name, long sizeBytes) {
+    }
+}
@@ -1,28 +1,122 @@
 package com.ecommerce.order.service;
 
 import com.ecommerce.order.entity.OutboxEvent;
+import com.ecommerce.order.kafka.IdempotentMessageHandler;
 import com.ecommerce.order.repository.OutboxEventRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class OutboxServiceImpl implements OutboxService {
 
+    // pg_try_advisory_xact_lock(namespace, shard) için sabit namespace
+    private static final int SHARD_LOCK_NAMESPACE = 7_001;
+
     private final OutboxEventRepository outboxEventRepository;
     private final KafkaTemplate<String, String> kafkaTemplate;
     private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // polling: zamanlanmış relay, cdc: OutboxCdcRelay (WAL üzerinden)
+    @Value("${outbox.relay.mode:polling}")
+    private String relayMode;
+
+    @Value("${outbox.relay.batch-size:500}")
+    private int batchSize;
+
+    @Value("${outbox.relay.shards:8}")
+    private int shardCount;
+
+    @Value("${outbox.relay.workers:4}")
+    private int workerCount;
+
+    @Value("${outbox.relay.max-batches-per-cycle:20}")
+    private int maxBatchesPerCycle;
+
+    @Value("${outbox.relay.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    private ExecutorService relayExecutor;
+    private Counter publishedCounter;
+    private Counter failedCounter;
+    private Timer batchTimer;
+    private final AtomicLong pendingEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+
+    @PostConstruct
+    void initRelay() {
+        if (shardCount != OutboxEventRepository.SHARD_COUNT) {
+            throw new IllegalStateException("outbox.relay.shards " + OutboxEventRepository.SHARD_COUNT
+                    + " olmalı (idx_outbox_unpublished_shard index'inin modülü), verilen: " + shardCount);
+        }
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        relayExecutor = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "outbox-relay-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Kafka'ya yayınlanan outbox event sayısı")
+                .register(meterRegistry);
+        failedCounter = Counter.builder("outbox.relay.failed")
+                .description("Yayınlanamayan outbox event sayısı")
+                .register(meterRegistry);
+        batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Bir batch'in sahiplenme, gönderim ve işaretleme süresi")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.pending", pendingEvents, AtomicLong::get)
+                .description("Yayınlanmayı bekleyen outbox event sayısı")
+                .register(meterRegistry);
+        Gauge.builder("outbox.relay.lag.seconds", lagMillis, lag -> lag.get() / 1000.0)
+                .description("Yayınlanmamış en eski event'in yaşı")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdownRelay() {
+        relayExecutor.shutdown();
+    }
 
     @Override
     @Transactional
@@ -47,29 +141,151 @@ public class OutboxServiceImpl implements OutboxService {
         }
     }
 
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval-ms:500}")
+    public void pollPendingEvents() {
+        if ("cdc".equals(relayMode)) {
+            return;
+        }
+        publishPendingEvents();
+    }
+
     @Override
-    @Scheduled(fixedDelay = 5000) // Her 1 saniyede bir çalışır
-    @Transactional
     public void publishPendingEvents() {
-        List<OutboxEvent> events = outboxEventRepository.findByPublishedFalseOrderByCreatedAtAsc();
+        // Her shard ayrı bir worker'da boşaltılır; aynı shard'ı başka bir instance tutuyorsa atlanır
+        List<Future<Integer>> results = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int currentShard = shard;
+            results.add(relayExecutor.submit(() -> drainShard(currentShard)));
+        }
 
-        for (OutboxEvent event : events) {
+        int published = 0;
+        for (Future<Integer> result : results) {
             try {
-                // Kafka'ya gönder
-                kafkaTemplate.send(event.getEventType(), event.getAggregateId().toString(), event.getPayload());
+                published += result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                log.error("Outbox shard boşaltılamadı: {}", e.getCause().getMessage());
+            }
+        }
 
-                // Published olarak işaretle
-                event.setPublished(true);
-                event.setPublishedAt(LocalDateTime.now());
-                outboxEventRepository.save(event);
+        if (published > 0) {
+            log.info("Outbox relay: {} event yayınlandı", published);
+        }
+        refreshLagMetrics();
+    }
 
-                log.info("Event yayınlandı: {} - {}", event.getEventType(), event.getAggregateId());
+    private int drainShard(int shard) {
+        int published = 0;
+        for (int i = 0; i < maxBatchesPerCycle; i++) {
+            Integer count = transactionTemplate.execute(status -> relayBatch(shard));
+            int batchCount = count != null ? count : 0;
+            published += batchCount;
+            // Batch dolmadıysa shard boşaldı (ya da hata var), sonraki cycle'a bırak
+            if (batchCount < batchSize) {
+                break;
+            }
+        }
+        return published;
+    }
+
+    /**
+     * Tek transaction içinde: shard kilidini al, batch'i sahiplen, Kafka'ya gönder ve başarılı
+     * olanları tek UPDATE ile işaretle.
+     *
+     * Gönderimler turlar halinde yapılır: her turda her aggregate'in sadece sıradaki tek event'i
+     * gönderilir, farklı aggregate'ler paralel ilerler. Bir aggregate'in event'i ack almadan
+     * (hata ya da zaman aşımı) sonraki event'i hiç gönderilmez; böylece zaman aşımına uğrayan
+     * bir gönderim sonraki cycle'da tekrar gönderildiğinde, aynı aggregate'in daha yeni bir event'i
+     * ondan önce yayınlanmış olamaz.
+     */
+    private int relayBatch(int shard) {
+        if (!outboxEventRepository.tryLockShard(SHARD_LOCK_NAMESPACE, shard)) {
+            return 0;
+        }
+
+        List<OutboxEvent> events = outboxEventRepository.claimUnpublishedBatch(shard, batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
 
-            } catch (Exception e) {
-                log.error("Event yayınlanamadı: {} - {}", event.getEventType(), e.getMessage());
-                // Hata durumunda döngüden çık, sonraki schedule'da tekrar denenecek
+        Timer.Sample sample = Timer.start(meterRegistry);
+
+        // Aggregate başına oluşturulma sırasıyla kuyruk
+        Map<UUID, Deque<OutboxEvent>> queues = new LinkedHashMap<>();
+        for (OutboxEvent event : events) {
+            queues.computeIfAbsent(event.getAggregateId(), id -> new ArrayDeque<>()).add(event);
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        List<UUID> publishedIds = new ArrayList<>(events.size());
+
+        while (!queues.isEmpty() && System.nanoTime() < deadline) {
+            // 1. Her aggregate'in sıradaki event'ini beklemeden gönder
+            List<OutboxEvent> round = new ArrayList<>(queues.size());
+            List<CompletableFuture<SendResult<String, String>>> futures = new ArrayList<>(queues.size());
+            for (Deque<OutboxEvent> queue : queues.values()) {
+                OutboxEvent event = queue.peekFirst();
+                round.add(event);
+                futures.add(send(event));
+            }
+
+            // 2. Ack'leri ortak deadline ile bekle; başarısız aggregate'in kalan event'leri bu cycle'da gönderilmez
+            for (int i = 0; i < round.size(); i++) {
+                OutboxEvent event = round.get(i);
+                try {
+                    long remaining = Math.max(0, deadline - System.nanoTime());
+                    futures.get(i).get(remaining, TimeUnit.NANOSECONDS);
+                    publishedIds.add(event.getId());
+                    Deque<OutboxEvent> queue = queues.get(event.getAggregateId());
+                    queue.pollFirst();
+                    if (queue.isEmpty()) {
+                        queues.remove(event.getAggregateId());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    queues.remove(event.getAggregateId());
+                } catch (ExecutionException | TimeoutException e) {
+                    queues.remove(event.getAggregateId());
+                    log.error("Event yayınlanamadı: {} - {}", event.getEventType(),
+                            e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
                 break;
             }
         }
+
+        // 3. Başarılı olanları toplu işaretle
+        if (!publishedIds.isEmpty()) {
+            outboxEventRepository.markAllAsPublished(publishedIds, LocalDateTime.now());
+        }
+
+        publishedCounter.increment(publishedIds.size());
+        failedCounter.increment(events.size() - publishedIds.size());
+        sample.stop(batchTimer);
+
+        log.debug("Outbox shard {}: {} / {} event yayınlandı", shard, publishedIds.size(), events.size());
+        return publishedIds.size();
+    }
+
+    private CompletableFuture<SendResult<String, String>> send(OutboxEvent event) {
+        try {
+            ProducerRecord<String, String> record = new ProducerRecord<>(
+                    event.getEventType(), event.getAggregateId().toString(), event.getPayload());
+            // Consumer tarafında tekrarları ayırt etmek için outbox id'si
+            record.headers().add(IdempotentMessageHandler.EVENT_ID_HEADER,
+                    event.getId().toString().getBytes(StandardCharsets.UTF_8));
+            return kafkaTemplate.send(record);
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private void refreshLagMetrics() {
+        pendingEvents.set(outboxEventRepository.countByPublishedFalse());
+        LocalDateTime oldest = outboxEventRepository.findOldestUnpublishedCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
     }
-}
\ No newline at end of file
+}
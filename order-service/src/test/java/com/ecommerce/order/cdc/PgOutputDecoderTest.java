@@ -0,0 +1,218 @@
+package com.ecommerce.order.cdc;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * pgoutput (protocol v1) mesajları sunucunun gönderdiği bayt düzeniyle kurulur:
+ * tamsayılar big-endian, string'ler null-terminated.
+ */
+class PgOutputDecoderTest {
+
+	private static final int OUTBOX_RELATION_ID = 16_428;
+
+	private final PgOutputDecoder decoder = new PgOutputDecoder();
+
+	@Test
+	void beginAndCommitReturnOnlyTheirType() throws IOException {
+		PgOutputDecoder.Message begin = decoder.decode(begin());
+		PgOutputDecoder.Message commit = decoder.decode(commit());
+
+		assertThat(begin.type()).isEqualTo(PgOutputDecoder.BEGIN);
+		assertThat(begin.table()).isNull();
+		assertThat(begin.columns()).isEmpty();
+		assertThat(commit.type()).isEqualTo(PgOutputDecoder.COMMIT);
+		assertThat(commit.table()).isNull();
+		assertThat(commit.columns()).isEmpty();
+	}
+
+	@Test
+	void relationIsReportedWithItsTableName() throws IOException {
+		PgOutputDecoder.Message relation = decoder.decode(outboxRelation());
+
+		assertThat(relation.type()).isEqualTo(PgOutputDecoder.RELATION);
+		assertThat(relation.table()).isEqualTo("outbox_events");
+		assertThat(relation.columns()).isEmpty();
+	}
+
+	@Test
+	void insertIsDecodedByRelationColumnNames() throws IOException {
+		decoder.decode(outboxRelation());
+
+		PgOutputDecoder.Message insert = decoder.decode(insert(OUTBOX_RELATION_ID,
+				text("6f1c1f0e-3c52-4d8e-9a55-0b5d5d2f8a11"),
+				text("Order"),
+				text("b2d0b5a4-9f1e-4c39-8f7a-2a7c3e1d9b60"),
+				text("OrderCreated"),
+				text("{\"note\":\"Sipariş oluşturuldu\"}"),
+				text("f"),
+				nullValue()));
+
+		assertThat(insert.type()).isEqualTo(PgOutputDecoder.INSERT);
+		assertThat(insert.table()).isEqualTo("outbox_events");
+		assertThat(insert.columns().keySet()).containsExactly(
+				"id", "aggregate_type", "aggregate_id", "event_type", "payload", "published", "published_at");
+		assertThat(insert.columns())
+				.containsEntry("id", "6f1c1f0e-3c52-4d8e-9a55-0b5d5d2f8a11")
+				.containsEntry("aggregate_type", "Order")
+				.containsEntry("aggregate_id", "b2d0b5a4-9f1e-4c39-8f7a-2a7c3e1d9b60")
+				.containsEntry("event_type", "OrderCreated")
+				.containsEntry("payload", "{\"note\":\"Sipariş oluşturuldu\"}")
+				.containsEntry("published", "f")
+				.containsEntry("published_at", null);
+	}
+
+	@Test
+	void nullAndUnchangedToastColumnsAreKeptWithoutValue() throws IOException {
+		decoder.decode(outboxRelation());
+
+		PgOutputDecoder.Message insert = decoder.decode(insert(OUTBOX_RELATION_ID,
+				text("6f1c1f0e-3c52-4d8e-9a55-0b5d5d2f8a11"),
+				text("Order"),
+				text("b2d0b5a4-9f1e-4c39-8f7a-2a7c3e1d9b60"),
+				text("OrderCreated"),
+				unchangedToast(),
+				text("f"),
+				nullValue()));
+
+		assertThat(insert.columns()).hasSize(7);
+		assertThat(insert.columns()).containsEntry("payload", null);
+		assertThat(insert.columns()).containsEntry("published_at", null);
+		assertThat(insert.columns()).containsEntry("published", "f");
+	}
+
+	@Test
+	void laterRelationMessageReplacesColumnLayout() throws IOException {
+		decoder.decode(outboxRelation());
+		decoder.decode(relation(OUTBOX_RELATION_ID, "public", "outbox_events", "id", "payload"));
+
+		PgOutputDecoder.Message insert = decoder.decode(insert(OUTBOX_RELATION_ID, text("1"), text("{}")));
+
+		assertThat(insert.columns()).containsExactly(Map.entry("id", "1"), Map.entry("payload", "{}"));
+	}
+
+	@Test
+	void consecutiveMessagesShareRelationState() throws IOException {
+		decoder.decode(begin());
+		decoder.decode(outboxRelation());
+		decoder.decode(relation(16_500, "public", "orders", "id", "status"));
+
+		PgOutputDecoder.Message orders = decoder.decode(insert(16_500, text("42"), text("PENDING")));
+
+		assertThat(orders.table()).isEqualTo("orders");
+		assertThat(orders.columns()).containsExactly(Map.entry("id", "42"), Map.entry("status", "PENDING"));
+	}
+
+	@Test
+	void insertForUnknownRelationFails() {
+		assertThatThrownBy(() -> decoder.decode(insert(99, text("1"))))
+				.isInstanceOf(IllegalStateException.class)
+				.hasMessageContaining("99");
+	}
+
+	@Test
+	void unknownTupleKindFails() throws IOException {
+		decoder.decode(relation(OUTBOX_RELATION_ID, "public", "outbox_events", "id"));
+
+		assertThatThrownBy(() -> decoder.decode(insert(OUTBOX_RELATION_ID, new byte[]{'b'})))
+				.isInstanceOf(IllegalStateException.class);
+	}
+
+	// ==================== pgoutput mesajları ====================
+
+	private static ByteBuffer begin() throws IOException {
+		return message(out -> {
+			out.writeByte('B');
+			out.writeLong(0x16B3748L);      // final LSN
+			out.writeLong(782_000_000_000L); // commit zamanı (2000-01-01'den beri mikrosaniye)
+			out.writeInt(1_204);             // xid
+		});
+	}
+
+	private static ByteBuffer commit() throws IOException {
+		return message(out -> {
+			out.writeByte('C');
+			out.writeByte(0);                // flags
+			out.writeLong(0x16B3748L);      // commit LSN
+			out.writeLong(0x16B3778L);      // end LSN
+			out.writeLong(782_000_000_000L);
+		});
+	}
+
+	private static ByteBuffer outboxRelation() throws IOException {
+		return relation(OUTBOX_RELATION_ID, "public", "outbox_events",
+				"id", "aggregate_type", "aggregate_id", "event_type", "payload", "published", "published_at");
+	}
+
+	private static ByteBuffer relation(int id, String namespace, String table, String... columns) throws IOException {
+		return message(out -> {
+			out.writeByte('R');
+			out.writeInt(id);
+			writeString(out, namespace);
+			writeString(out, table);
+			out.writeByte('d');              // replica identity: default
+			out.writeShort(columns.length);
+			for (int i = 0; i < columns.length; i++) {
+				out.writeByte(i == 0 ? 1 : 0); // flags: anahtar kolon
+				writeString(out, columns[i]);
+				out.writeInt(25);            // type oid (text)
+				out.writeInt(-1);            // type modifier
+			}
+		});
+	}
+
+	private static ByteBuffer insert(int relationId, byte[]... values) throws IOException {
+		return message(out -> {
+			out.writeByte('I');
+			out.writeInt(relationId);
+			out.writeByte('N');
+			out.writeShort(values.length);
+			for (byte[] value : values) {
+				out.write(value);
+			}
+		});
+	}
+
+	private static byte[] text(String value) throws IOException {
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(buffer);
+		out.writeByte('t');
+		out.writeInt(bytes.length);
+		out.write(bytes);
+		return buffer.toByteArray();
+	}
+
+	private static byte[] nullValue() {
+		return new byte[]{'n'};
+	}
+
+	private static byte[] unchangedToast() {
+		return new byte[]{'u'};
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.write(value.getBytes(StandardCharsets.UTF_8));
+		out.writeByte(0);
+	}
+
+	private static ByteBuffer message(MessageWriter writer) throws IOException {
+		ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+		writer.write(new DataOutputStream(buffer));
+		return ByteBuffer.wrap(buffer.toByteArray());
+	}
+
+	@FunctionalInterface
+	private interface MessageWriter {
+		void write(DataOutputStream out) throws IOException;
+	}
+}
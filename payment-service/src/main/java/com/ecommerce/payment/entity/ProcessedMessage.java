@@ -0,0 +1,29 @@
+package com.ecommerce.payment.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "processed_messages")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProcessedMessage {
+
+    // eventId header'ı ya da topic:partition:offset
+    @Id
+    @Column(name = "message_key", length = 200)
+    private String messageKey;
+
+    @Column(nullable = false, length = 100)
+    private String topic;
+
+    @CreationTimestamp
+    @Column(name = "processed_at", nullable = false, updatable = false)
+    private LocalDateTime processedAt;
+}
@@ -5,6 +5,7 @@ import com.ecommerce.payment.service.PaymentService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -15,15 +16,32 @@ public class PaymentKafkaConsumer {
 
     private final PaymentService paymentService;
     private final ObjectMapper objectMapper;
+    private final IdempotentMessageHandler idempotentMessageHandler;
 
     @KafkaListener(topics = "payment-request", groupId = "payment-service")
-    public void handlePaymentRequest(String message) {
+    public void handlePaymentRequest(ConsumerRecord<String, String> record) {
         try {
-            log.info("Ödeme isteği alındı: {}", message);
-            PaymentRequestEvent event = objectMapper.readValue(message, PaymentRequestEvent.class);
-            paymentService.processPayment(event);
+            log.info("Ödeme isteği alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                PaymentRequestEvent event = objectMapper.readValue(message, PaymentRequestEvent.class);
+                paymentService.processPayment(event);
+            });
         } catch (Exception e) {
             log.error("Ödeme isteği işlenemedi: {}", e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+
+    // Saga telafisi: sipariş iptal edildi ya da saga zaman aşımına uğradı
+    @KafkaListener(topics = "payment-refund-request", groupId = "payment-service")
+    public void handleRefundRequest(ConsumerRecord<String, String> record) {
+        try {
+            log.info("Ödeme iade isteği alındı: {}", record.value());
+            idempotentMessageHandler.handle(record, message -> {
+                PaymentRequestEvent event = objectMapper.readValue(message, PaymentRequestEvent.class);
+                paymentService.compensatePayment(event, "Sipariş telafisi");
+            });
+        } catch (Exception e) {
+            log.error("Ödeme iade isteği işlenemedi: {}", e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.ecommerce.payment.repository;
+
+import com.ecommerce.payment.entity.ProcessedMessage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ProcessedMessageRepository extends JpaRepository<ProcessedMessage, String> {
+
+    // Kayıt zaten varsa 0 döner; aynı mesajı eşzamanlı işleyen ikinci transaction ilki bitene kadar bekler
+    @Modifying
+    @Query(value = "INSERT INTO processed_messages (message_key, topic) VALUES (:messageKey, :topic) " +
+            "ON CONFLICT (message_key) DO NOTHING", nativeQuery = true)
+    int markProcessed(@Param("messageKey") String messageKey, @Param("topic") String topic);
+
+    @Modifying
+    @Query("DELETE FROM ProcessedMessage m WHERE m.processedAt < :before")
+    int deleteProcessedBefore(@Param("before") LocalDateTime before);
+}
@@ -9,6 +9,7 @@ import java.util.UUID;
 public interface PaymentService {
     Payment processPayment(PaymentRequestEvent event);
     Payment refundPayment(UUID orderId, String reason);
+    void compensatePayment(PaymentRequestEvent event, String reason);
     Payment getPaymentByOrderId(UUID orderId);
     List<Payment> getPaymentsByCustomerId(UUID customerId);
 }
\ No newline at end of file
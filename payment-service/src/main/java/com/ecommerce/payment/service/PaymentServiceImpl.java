@@ -10,19 +10,18 @@ import com.ecommerce.payment.kafka.PaymentKafkaProducer;
 import com.ecommerce.payment.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@EnableScheduling
 public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentRepository paymentRepository;
@@ -37,9 +36,16 @@ public class PaymentServiceImpl implements PaymentService {
         log.info("Ödeme işleniyor: orderId={}, amount={}", event.getOrderId(), event.getAmount());
 
         // Zaten ödeme var mı kontrol et
-        if (paymentRepository.existsByOrderId(event.getOrderId())) {
-            log.warn("Bu sipariş için zaten ödeme mevcut: orderId={}", event.getOrderId());
-            return paymentRepository.findByOrderId(event.getOrderId()).get();
+        Optional<Payment> existing = paymentRepository.findByOrderId(event.getOrderId());
+        if (existing.isPresent()) {
+            // Tekrar gelen istek (saga recovery): ilk cevap kaybolmuş olabilir, sonuç belliyse yeniden gönder
+            Payment payment = existing.get();
+            log.warn("Bu sipariş için zaten ödeme mevcut: orderId={}, status={}",
+                    event.getOrderId(), payment.getStatus());
+            if (payment.getStatus() != PaymentStatus.PENDING && payment.getStatus() != PaymentStatus.PROCESSING) {
+                sendPaymentCompletedEvent(payment);
+            }
+            return payment;
         }
 
         // Payment oluştur
@@ -150,6 +156,49 @@ public class PaymentServiceImpl implements PaymentService {
         return paymentRepository.save(payment);
     }
 
+    /**
+     * Saga telafisi (payment-refund-request). Tekrar gelebileceği ve ödeme isteğinden önce
+     * işlenebileceği için her durumda güvenlidir: tamamlanmış ödeme iade edilir, kuyrukta
+     * bekleyen ödeme iptal edilir (retry'da çekilmez), hiç ödeme yoksa sonradan gelecek ödeme
+     * isteğinin çekim yapmaması için iptal edilmiş bir kayıt açılır.
+     */
+    @Override
+    @Transactional
+    public void compensatePayment(PaymentRequestEvent event, String reason) {
+        Optional<Payment> existing = paymentRepository.findByOrderId(event.getOrderId());
+        if (existing.isEmpty()) {
+            paymentRepository.save(Payment.builder()
+                    .orderId(event.getOrderId())
+                    .customerId(event.getCustomerId())
+                    .amount(event.getAmount())
+                    .currency(event.getCurrency() != null ? event.getCurrency() : "TRY")
+                    .method(PaymentMethod.CREDIT_CARD)
+                    .status(PaymentStatus.CANCELLED)
+                    .failureReason("COMPENSATED")
+                    .failureMessage(reason)
+                    .build());
+            log.info("Ödeme gelmeden iptal edildi: orderId={}", event.getOrderId());
+            return;
+        }
+
+        Payment payment = existing.get();
+        switch (payment.getStatus()) {
+            case COMPLETED -> {
+                refundPayment(event.getOrderId(), reason);
+                log.info("Telafi için ödeme iade edildi: orderId={}", event.getOrderId());
+            }
+            case PENDING, PROCESSING -> {
+                payment.setStatus(PaymentStatus.CANCELLED);
+                payment.setFailureReason("COMPENSATED");
+                payment.setFailureMessage(reason);
+                payment.setNextRetryAt(null);
+                paymentRepository.save(payment);
+                log.info("Bekleyen ödeme iptal edildi: orderId={}", event.getOrderId());
+            }
+            default -> log.info("Telafi gerekmiyor: orderId={}, status={}", event.getOrderId(), payment.getStatus());
+        }
+    }
+
     @Override
     public Payment getPaymentByOrderId(UUID orderId) {
         return paymentRepository.findByOrderId(orderId)
@@ -0,0 +1,143 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.response.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Ürün detayı için iki katmanlı read-through cache: yerel Caffeine ve (açıksa) ortak katman.
+ *
+ * Yanıtlar sadece productId ile tutulur; SKU ve slug için ayrı anahtar → productId indeksleri
+ * vardır, böylece bir ürün değiştiğinde tek anahtarın silinmesi yeterlidir. Yerel katmanda eksik
+ * bir anahtar için aynı anda gelen istekler tek yüklemeyi bekler: önce ortak katmana, orada da
+ * yoksa veritabanına bir kez gidilir.
+ *
+ * Değişiklikler commit'ten sonra ProductCacheInvalidator ile silinir ve diğer node'lara yayılır.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCache {
+
+    private final Optional<SharedProductCache> sharedCache;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${product.cache.max-size:50000}")
+    private long maxSize;
+
+    @Value("${product.cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    @Value("${product.cache.key-ttl-minutes:60}")
+    private long keyTtlMinutes;
+
+    private Cache<UUID, ProductResponse> byId;
+    private Cache<String, UUID> skuIndex;
+    private Cache<String, UUID> slugIndex;
+    private Timer sharedLoadTimer;
+    private Timer databaseLoadTimer;
+
+    @PostConstruct
+    void init() {
+        byId = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+        skuIndex = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(keyTtlMinutes))
+                .recordStats()
+                .build();
+        slugIndex = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(keyTtlMinutes))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, byId, "product.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, skuIndex, "product.sku-index");
+        CaffeineCacheMetrics.monitor(meterRegistry, slugIndex, "product.slug-index");
+
+        sharedLoadTimer = Timer.builder("product.cache.load")
+                .description("Yerel cache'te olmayan ürünün yüklenme süresi")
+                .tag("source", "shared")
+                .register(meterRegistry);
+        databaseLoadTimer = Timer.builder("product.cache.load")
+                .description("Yerel cache'te olmayan ürünün yüklenme süresi")
+                .tag("source", "database")
+                .register(meterRegistry);
+
+        log.info("Ürün cache'i: yerel katman {} kayıt, ortak katman {}", maxSize,
+                sharedCache.isPresent() ? "açık" : "kapalı");
+    }
+
+    // Loader exception fırlatırsa (ör. kayıt yok) hiçbir katmana yazılmaz
+    public ProductResponse get(UUID productId, Function<UUID, ProductResponse> loader) {
+        return byId.get(productId, key -> load(key, loader));
+    }
+
+    public ProductResponse getBySku(String sku, Function<String, UUID> idLoader,
+                                    Function<UUID, ProductResponse> loader) {
+        return getByKey(skuIndex, sku, ProductResponse::getSku, idLoader, loader);
+    }
+
+    public ProductResponse getBySlug(String slug, Function<String, UUID> idLoader,
+                                     Function<UUID, ProductResponse> loader) {
+        return getByKey(slugIndex, slug, ProductResponse::getSlug, idLoader, loader);
+    }
+
+    public void evictLocal(UUID productId) {
+        ProductResponse cached = byId.getIfPresent(productId);
+        byId.invalidate(productId);
+        if (cached != null) {
+            skuIndex.invalidate(cached.getSku());
+            slugIndex.invalidate(cached.getSlug());
+        }
+    }
+
+    // Sku/slug index'leri id'ye işaret ettiği için silinmez; id kaydı yeniden yüklenir
+    public void evictAllLocal() {
+        byId.invalidateAll();
+    }
+
+    public void evictShared(UUID productId) {
+        sharedCache.ifPresent(cache -> cache.evict(productId));
+    }
+
+    private ProductResponse load(UUID productId, Function<UUID, ProductResponse> loader) {
+        if (sharedCache.isPresent()) {
+            Optional<ProductResponse> shared = sharedLoadTimer.record(() -> sharedCache.get().get(productId));
+            if (shared.isPresent()) {
+                return shared.get();
+            }
+        }
+        ProductResponse product = databaseLoadTimer.record(() -> loader.apply(productId));
+        sharedCache.ifPresent(cache -> cache.put(productId, product));
+        return product;
+    }
+
+    // İndeks başka bir node'da değişen SKU/slug için eski ürünü gösterebilir; yanıtla doğrulanır
+    private ProductResponse getByKey(Cache<String, UUID> index, String key, Function<ProductResponse, String> keyOf,
+                                     Function<String, UUID> idLoader, Function<UUID, ProductResponse> loader) {
+        ProductResponse product = get(index.get(key, idLoader), loader);
+        if (key.equals(keyOf.apply(product))) {
+            return product;
+        }
+        index.invalidate(key);
+        return get(index.get(key, idLoader), loader);
+    }
+}
@@ -0,0 +1,36 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.UUID;
+
+// Her node kendi consumer group'uyla tüm invalidation mesajlarını alır (broadcast)
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheInvalidationListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @KafkaListener(topics = ProductCacheInvalidator.TOPIC,
+            groupId = "product-cache-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void handleInvalidation(ConsumerRecord<String, String> record) {
+        UUID productId;
+        try {
+            productId = UUID.fromString(record.key());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            log.warn("Geçersiz cache invalidation mesajı: key={}", record.key());
+            return;
+        }
+        // Kendi yayınladığımız mesaj da gelir; yerel silme ve index yenilemesi tekrar etse de zararsız
+        eventPublisher.publishEvent(new ProductChangedEvent(Set.of(productId), true));
+    }
+}
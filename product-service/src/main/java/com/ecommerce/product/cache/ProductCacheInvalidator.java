@@ -0,0 +1,54 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.category.CategoryTreeChangedEvent;
+import com.ecommerce.product.event.ProductChangedEvent;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Commit edilen ürün değişikliklerini cache'ten siler. Değişiklik bu node'da yapıldıysa ortak
+ * katmandan da silinir ve product-cache-invalidation topic'iyle diğer node'lara yayılır; diğer
+ * node'lardan gelen değişiklikler için sadece yerel katman silinir.
+ *
+ * Ürün yanıtı kategori adı ve yolunu da taşıdığından kategori ağacı değişince yerel katman
+ * tamamen boşaltılır; ortak katmandaki kayıtlar TTL ile yenilenir.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductCacheInvalidator {
+
+    public static final String TOPIC = "product-cache-invalidation";
+
+    private final ProductCache productCache;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        for (UUID productId : event.productIds()) {
+            productCache.evictLocal(productId);
+            if (event.remote()) {
+                continue;
+            }
+            productCache.evictShared(productId);
+            try {
+                // Compacted topic: ürün başına son mesaj yeterli, key = value = productId
+                kafkaTemplate.send(TOPIC, productId.toString(), productId.toString());
+            } catch (Exception e) {
+                // Diğer node'larda kayıt TTL dolunca yenilenir
+                log.warn("Cache invalidation yayınlanamadı: productId={}, error={}", productId, e.getMessage());
+            }
+        }
+    }
+
+    @EventListener
+    public void onCategoryTreeChanged(CategoryTreeChangedEvent event) {
+        productCache.evictAllLocal();
+        log.debug("Kategori ağacı değişti, yerel ürün cache'i boşaltıldı: etag={}", event.etag());
+    }
+}
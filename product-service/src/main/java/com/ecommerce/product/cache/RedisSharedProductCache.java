@@ -0,0 +1,72 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.response.ProductResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Redis üzerinde JSON olarak tutulan ortak cache katmanı; product.cache.shared.enabled=true ile açılır.
+ * Kısa TTL, commit ile invalidation arasında başka bir node'un yazdığı eski kaydın ömrünü sınırlar.
+ */
+@Component
+@ConditionalOnProperty(name = "product.cache.shared.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class RedisSharedProductCache implements SharedProductCache {
+
+    private static final String KEY_PREFIX = "product:v1:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${product.cache.shared.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Override
+    public Optional<ProductResponse> get(UUID productId) {
+        try {
+            String json = redisTemplate.opsForValue().get(KEY_PREFIX + productId);
+            count(json != null ? "hit" : "miss");
+            return json != null ? Optional.of(objectMapper.readValue(json, ProductResponse.class)) : Optional.empty();
+        } catch (Exception e) {
+            count("error");
+            log.warn("Ortak cache okunamadı: productId={}, error={}", productId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(UUID productId, ProductResponse product) {
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + productId,
+                    objectMapper.writeValueAsString(product), Duration.ofSeconds(ttlSeconds));
+        } catch (Exception e) {
+            log.warn("Ortak cache'e yazılamadı: productId={}, error={}", productId, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(UUID productId) {
+        try {
+            redisTemplate.delete(KEY_PREFIX + productId);
+        } catch (Exception e) {
+            // TTL dolunca kendiliğinden düşer
+            log.warn("Ortak cache'ten silinemedi: productId={}, error={}", productId, e.getMessage());
+        }
+    }
+
+    private void count(String result) {
+        meterRegistry.counter("product.cache.shared.gets", "result", result).increment();
+    }
+}
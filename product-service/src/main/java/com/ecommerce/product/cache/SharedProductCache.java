@@ -0,0 +1,22 @@
+package com.ecommerce.product.cache;
+
+import com.ecommerce.product.dto.response.ProductResponse;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Node'lar arasında paylaşılan ikinci cache katmanı. Yerel cache'te olmayan bir ürün
+ * veritabanından önce burada aranır; böylece soğuk bir node ya da yeni açılan bir instance
+ * popüler ürünler için veritabanına gitmez.
+ *
+ * Uygulamalar hata fırlatmamalıdır; erişilemezse get boş döner ve okuma veritabanına düşer.
+ */
+public interface SharedProductCache {
+
+    Optional<ProductResponse> get(UUID productId);
+
+    void put(UUID productId, ProductResponse product);
+
+    void evict(UUID productId);
+}
@@ -0,0 +1,184 @@
+package com.ecommerce.product.category;
+
+import com.ecommerce.product.dto.response.CategoryResponse;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Kategori ağacının değişmez bir anlık görüntüsü.
+ *
+ * Çocuklar, alt ağaç id'leri ve kökten yola kadar olan atalar kurulum sırasında bir kez
+ * hesaplanır; okumalar sadece map erişimidir. ETag düğümlerin içeriğinden türetilir, yani
+ * yeniden kurulan ağaç öncekiyle aynıysa ETag de aynı kalır.
+ */
+public final class CategoryTree {
+
+    public static final CategoryTree EMPTY = new CategoryTree(List.of());
+
+    private static final Comparator<Node> SIBLING_ORDER =
+            Comparator.comparing(Node::sortOrder).thenComparing(Node::name).thenComparing(Node::id);
+
+    private final Map<UUID, Node> nodes = new HashMap<>();
+    private final Map<String, UUID> idsBySlug = new HashMap<>();
+    private final Map<UUID, List<UUID>> children = new HashMap<>();
+    private final Map<UUID, Set<UUID>> subtrees = new HashMap<>();
+    private final Map<UUID, List<UUID>> paths = new HashMap<>();
+    private final List<UUID> roots;
+    private final List<UUID> activeByLevel;
+    private final String etag;
+
+    public CategoryTree(List<Node> categories) {
+        for (Node node : categories) {
+            nodes.put(node.id(), node);
+            idsBySlug.put(node.slug(), node.id());
+        }
+
+        Map<UUID, List<Node>> childNodes = new HashMap<>();
+        List<Node> rootNodes = new ArrayList<>();
+        for (Node node : categories) {
+            if (node.parentId() != null && nodes.containsKey(node.parentId())) {
+                childNodes.computeIfAbsent(node.parentId(), id -> new ArrayList<>()).add(node);
+            } else {
+                rootNodes.add(node);
+            }
+        }
+        childNodes.forEach((parentId, list) ->
+                children.put(parentId, list.stream().sorted(SIBLING_ORDER).map(Node::id).toList()));
+        roots = rootNodes.stream().sorted(SIBLING_ORDER).map(Node::id).toList();
+
+        // Kökten aşağı: her düğümün yolu parent'ının yoluna kendisi eklenerek bulunur
+        List<UUID> queue = new ArrayList<>(roots);
+        for (UUID rootId : roots) {
+            paths.put(rootId, List.of(rootId));
+        }
+        for (int i = 0; i < queue.size(); i++) {
+            UUID id = queue.get(i);
+            for (UUID childId : children.getOrDefault(id, List.of())) {
+                List<UUID> path = new ArrayList<>(paths.get(id));
+                path.add(childId);
+                paths.put(childId, List.copyOf(path));
+                queue.add(childId);
+            }
+        }
+        // Yapraktan yukarı: her düğüm yolundaki tüm ataların alt ağacına eklenir
+        Map<UUID, Set<UUID>> subtreeBuilders = new HashMap<>();
+        for (Map.Entry<UUID, List<UUID>> entry : paths.entrySet()) {
+            for (UUID ancestorId : entry.getValue()) {
+                subtreeBuilders.computeIfAbsent(ancestorId, id -> new HashSet<>()).add(entry.getKey());
+            }
+        }
+        subtreeBuilders.forEach((id, set) -> subtrees.put(id, Set.copyOf(set)));
+
+        activeByLevel = categories.stream()
+                .filter(Node::isActive)
+                .sorted(Comparator.comparing(Node::level).thenComparing(SIBLING_ORDER))
+                .map(Node::id)
+                .toList();
+        etag = fingerprint(categories);
+    }
+
+    public String etag() {
+        return etag;
+    }
+
+    public boolean contains(UUID id) {
+        return nodes.containsKey(id);
+    }
+
+    public Optional<CategoryResponse> get(UUID id) {
+        return Optional.ofNullable(nodes.get(id)).map(this::toResponse);
+    }
+
+    public Optional<CategoryResponse> getBySlug(String slug) {
+        return Optional.ofNullable(idsBySlug.get(slug)).flatMap(this::get);
+    }
+
+    public Optional<String> name(UUID id) {
+        return Optional.ofNullable(nodes.get(id)).map(Node::name);
+    }
+
+    public List<CategoryResponse> activeRoots() {
+        return activeResponses(roots);
+    }
+
+    public List<CategoryResponse> activeChildren(UUID parentId) {
+        return activeResponses(children.getOrDefault(parentId, List.of()));
+    }
+
+    // Seviye, sonra sıra numarasıyla
+    public List<CategoryResponse> allActive() {
+        return activeResponses(activeByLevel);
+    }
+
+    // Kökten kategorinin kendisine kadar
+    public List<CategoryResponse> breadcrumb(UUID id) {
+        return paths.getOrDefault(id, List.of()).stream().map(nodes::get).map(this::toResponse).toList();
+    }
+
+    // Kategorinin kendisi ve tüm alt kategorileri; kategori yoksa boş
+    public Set<UUID> subtreeIds(UUID id) {
+        return subtrees.getOrDefault(id, Set.of());
+    }
+
+    public Optional<Long> childCount(UUID id) {
+        return nodes.containsKey(id)
+                ? Optional.of((long) children.getOrDefault(id, List.of()).size())
+                : Optional.empty();
+    }
+
+    private List<CategoryResponse> activeResponses(List<UUID> ids) {
+        return ids.stream().map(nodes::get).filter(Node::isActive).map(this::toResponse).toList();
+    }
+
+    // Her çağrıda yeni nesne: yanıtlar değiştirilebilir olduğu için paylaşılmaz
+    private CategoryResponse toResponse(Node node) {
+        Node parent = node.parentId() != null ? nodes.get(node.parentId()) : null;
+        return CategoryResponse.builder()
+                .id(node.id())
+                .name(node.name())
+                .slug(node.slug())
+                .description(node.description())
+                .parentId(node.parentId())
+                .parentName(parent != null ? parent.name() : null)
+                .imageUrl(node.imageUrl())
+                .sortOrder(node.sortOrder())
+                .isActive(node.isActive())
+                .level(node.level())
+                .childCount((long) children.getOrDefault(node.id(), List.of()).size())
+                .createdAt(node.createdAt())
+                .updatedAt(node.updatedAt())
+                .build();
+    }
+
+    private static String fingerprint(List<Node> categories) {
+        List<Node> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparing(Node::id));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Node node : sorted) {
+                digest.update(node.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public record Node(UUID id, String name, String slug, String description, UUID parentId, String imageUrl,
+                       Integer sortOrder, boolean isActive, Integer level,
+                       LocalDateTime createdAt, LocalDateTime updatedAt) {
+    }
+}
@@ -0,0 +1,133 @@
+package com.ecommerce.product.category;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Kategori ağacının güncel anlık görüntüsünü tutar.
+ *
+ * Ağaç tek sorguyla okunup kurulur ve atomik olarak değiştirilir; okuyucular kilitsiz olarak
+ * o anki görüntüyü kullanır. Kategori yazan transaction'lar commit'ten sonra ağacı yeniden kurar
+ * ve category-tree-changes topic'iyle diğer node'lara da kurdurur. Kaçan bir mesaja karşı ağaç
+ * periyodik olarak da yenilenir.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryTreeCache {
+
+    public static final String TOPIC = "category-tree-changes";
+
+    private static final String LOAD_SQL = """
+            SELECT id, name, slug, description, parent_id, image_url, sort_order, is_active, level,
+                   created_at, updated_at
+            FROM categories
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    private volatile CategoryTree tree = CategoryTree.EMPTY;
+
+    @PostConstruct
+    void init() {
+        rebuild();
+        Gauge.builder("product.categories.tree.size", this, cache -> cache.tree.allActive().size())
+                .description("Ağaçtaki aktif kategori sayısı")
+                .register(meterRegistry);
+    }
+
+    public CategoryTree get() {
+        return tree;
+    }
+
+    // Transaction içindeyse commit'ten sonra, değilse hemen
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuildAndBroadcast();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof RebuildOnCommit) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new RebuildOnCommit());
+    }
+
+    @Scheduled(initialDelayString = "${product.categories.refresh-interval-ms:300000}",
+            fixedDelayString = "${product.categories.refresh-interval-ms:300000}")
+    public synchronized void rebuild() {
+        List<CategoryTree.Node> nodes = jdbcTemplate.query(LOAD_SQL, (rs, rowNum) -> new CategoryTree.Node(
+                rs.getObject("id", UUID.class),
+                rs.getString("name"),
+                rs.getString("slug"),
+                rs.getString("description"),
+                rs.getObject("parent_id", UUID.class),
+                rs.getString("image_url"),
+                rs.getInt("sort_order"),
+                rs.getBoolean("is_active"),
+                rs.getInt("level"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("updated_at"))));
+
+        CategoryTree fresh = new CategoryTree(nodes);
+        CategoryTree previous = tree;
+        tree = fresh;
+
+        if (!fresh.etag().equals(previous.etag())) {
+            log.info("Kategori ağacı yenilendi: {} kategori, etag={}", nodes.size(), fresh.etag());
+            eventPublisher.publishEvent(new CategoryTreeChangedEvent(fresh.etag()));
+        }
+    }
+
+    // Her node kendi consumer group'uyla tüm değişiklik mesajlarını alır (broadcast)
+    @KafkaListener(topics = TOPIC,
+            groupId = "category-tree-#{T(java.util.UUID).randomUUID()}",
+            properties = "auto.offset.reset=latest")
+    public void handleChange(ConsumerRecord<String, String> record) {
+        // Kendi yayınladığımız mesajda ETag değişmediği için yeniden kurulum event üretmez
+        rebuild();
+    }
+
+    private void rebuildAndBroadcast() {
+        rebuild();
+        try {
+            kafkaTemplate.send(TOPIC, "categories", tree.etag());
+        } catch (Exception e) {
+            // Diğer node'lar periyodik yenilemede yakalar
+            log.warn("Kategori ağacı değişikliği yayınlanamadı: {}", e.getMessage());
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private final class RebuildOnCommit implements TransactionSynchronization {
+
+        @Override
+        public void afterCommit() {
+            rebuildAndBroadcast();
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.ecommerce.product.category;
+
+// Uygulama içi event: kategori ağacının yeni bir anlık görüntüsü yüklendi ve öncekinden farklı
+public record CategoryTreeChangedEvent(String etag) {
+}
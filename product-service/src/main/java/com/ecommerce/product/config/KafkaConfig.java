@@ -0,0 +1,34 @@
+package com.ecommerce.product.config;
+
+import com.ecommerce.product.cache.ProductCacheInvalidator;
+import com.ecommerce.product.category.CategoryTreeCache;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class KafkaConfig {
+
+    // Ürün cache'i için ürün bazında son değişiklik; compaction ile her ürünün son mesajı kalır
+    @Bean
+    public NewTopic productCacheInvalidationTopic() {
+        return TopicBuilder.name(ProductCacheInvalidator.TOPIC)
+                .partitions(3)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+
+    // Kategori ağacı değişti bildirimi; tek key, compaction ile sadece son mesaj kalır
+    @Bean
+    public NewTopic categoryTreeChangesTopic() {
+        return TopicBuilder.name(CategoryTreeCache.TOPIC)
+                .partitions(1)
+                .replicas(1)
+                .compact()
+                .build();
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -44,31 +45,39 @@ public class CategoryController {
 
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<CategoryResponse>> getById(@PathVariable UUID id) {
-        CategoryResponse category = categoryService.getById(id);
-        return ResponseEntity.ok(ApiResponse.success(category));
+        return withTreeETag(() -> categoryService.getById(id));
     }
 
     @GetMapping("/slug/{slug}")
     public ResponseEntity<ApiResponse<CategoryResponse>> getBySlug(@PathVariable String slug) {
-        CategoryResponse category = categoryService.getBySlug(slug);
-        return ResponseEntity.ok(ApiResponse.success(category));
+        return withTreeETag(() -> categoryService.getBySlug(slug));
     }
 
     @GetMapping("/root")
     public ResponseEntity<ApiResponse<List<CategoryResponse>>> getRootCategories() {
-        List<CategoryResponse> categories = categoryService.getRootCategories();
-        return ResponseEntity.ok(ApiResponse.success(categories));
+        return withTreeETag(() -> categoryService.getRootCategories());
     }
 
     @GetMapping("/{id}/children")
     public ResponseEntity<ApiResponse<List<CategoryResponse>>> getSubCategories(@PathVariable UUID id) {
-        List<CategoryResponse> categories = categoryService.getSubCategories(id);
-        return ResponseEntity.ok(ApiResponse.success(categories));
+        return withTreeETag(() -> categoryService.getSubCategories(id));
     }
 
     @GetMapping
     public ResponseEntity<ApiResponse<List<CategoryResponse>>> getAllCategories() {
-        List<CategoryResponse> categories = categoryService.getAllCategories();
-        return ResponseEntity.ok(ApiResponse.success(categories));
+        return withTreeETag(() -> categoryService.getAllCategories());
+    }
+
+    @GetMapping("/{id}/breadcrumb")
+    public ResponseEntity<ApiResponse<List<CategoryResponse>>> getBreadcrumb(@PathVariable UUID id) {
+        return withTreeETag(() -> categoryService.getBreadcrumb(id));
+    }
+
+    // Okumalar kategori ağacından gelir; ETag ağaç değişmedikçe aynı kalır, If-None-Match eşleşirse 304 döner
+    private <T> ResponseEntity<ApiResponse<T>> withTreeETag(Supplier<T> body) {
+        String etag = categoryService.getTreeETag();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .body(ApiResponse.success(body.get()));
     }
 }
\ No newline at end of file
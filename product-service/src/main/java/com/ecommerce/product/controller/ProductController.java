@@ -4,16 +4,14 @@ import com.ecommerce.product.dto.request.ProductImageRequest;
 import com.ecommerce.product.dto.request.ProductRequest;
 import com.ecommerce.product.dto.request.ProductSearchRequest;
 import com.ecommerce.product.dto.response.ApiResponse;
+import com.ecommerce.product.dto.response.CursorPageResponse;
 import com.ecommerce.product.dto.response.ProductListResponse;
 import com.ecommerce.product.dto.response.ProductResponse;
+import com.ecommerce.product.dto.response.ProductSearchResponse;
 import com.ecommerce.product.entity.ProductStatus;
 import com.ecommerce.product.service.ProductService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -67,32 +65,33 @@ public class ProductController {
         return ResponseEntity.ok(ApiResponse.success(product));
     }
 
+    // Keyset sayfalama: sonraki sayfa için yanıttaki nextCursor gönderilir
     @GetMapping
-    public ResponseEntity<ApiResponse<Page<ProductListResponse>>> getAll(
-            @RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductListResponse>>> getAll(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "createdAt") String sortBy,
             @RequestParam(defaultValue = "DESC") String sortDirection) {
-        Sort sort = Sort.by(Sort.Direction.fromString(sortDirection), sortBy);
-        Pageable pageable = PageRequest.of(page, size, sort);
-        Page<ProductListResponse> products = productService.getAll(pageable);
+        CursorPageResponse<ProductListResponse> products = productService.getAll(cursor, size, sortBy, sortDirection);
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<ApiResponse<Page<ProductListResponse>>> getByCategory(
+    public ResponseEntity<ApiResponse<CursorPageResponse<ProductListResponse>>> getByCategory(
             @PathVariable UUID categoryId,
-            @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<ProductListResponse> products = productService.getByCategory(categoryId, pageable);
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(defaultValue = "createdAt") String sortBy,
+            @RequestParam(defaultValue = "DESC") String sortDirection) {
+        CursorPageResponse<ProductListResponse> products =
+                productService.getByCategory(categoryId, cursor, size, sortBy, sortDirection);
         return ResponseEntity.ok(ApiResponse.success(products));
     }
 
     @PostMapping("/search")
-    public ResponseEntity<ApiResponse<Page<ProductListResponse>>> search(@RequestBody ProductSearchRequest request) {
-        Page<ProductListResponse> products = productService.search(request);
-        return ResponseEntity.ok(ApiResponse.success(products));
+    public ResponseEntity<ApiResponse<ProductSearchResponse>> search(@RequestBody ProductSearchRequest request) {
+        ProductSearchResponse result = productService.search(request);
+        return ResponseEntity.ok(ApiResponse.success(result));
     }
 
     @PatchMapping("/{id}/status")
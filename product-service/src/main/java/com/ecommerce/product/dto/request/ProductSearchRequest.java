@@ -11,6 +11,7 @@ public class ProductSearchRequest {
 
     private String keyword;
 
+    // Alt kategorilerdeki ürünler de dahil edilir
     private UUID categoryId;
 
     private BigDecimal minPrice;
@@ -19,11 +20,14 @@ public class ProductSearchRequest {
 
     private ProductStatus status = ProductStatus.ACTIVE;
 
-    private Integer page = 0;
+    // Önceki yanıttaki nextCursor; ilk sayfa için boş
+    private String cursor;
 
     private Integer size = 20;
 
     private String sortBy = "createdAt";
 
     private String sortDirection = "DESC";
+
+    private Boolean includeFacets = true;
 }
\ No newline at end of file
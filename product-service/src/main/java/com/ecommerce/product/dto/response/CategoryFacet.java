@@ -0,0 +1,15 @@
+package com.ecommerce.product.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.UUID;
+
+@Data
+@Builder
+public class CategoryFacet {
+
+    private UUID categoryId;
+    private String name;
+    private Long count;
+}
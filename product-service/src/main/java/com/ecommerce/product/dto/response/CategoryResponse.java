@@ -2,12 +2,14 @@ package com.ecommerce.product.dto.response;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Data
 @Builder
+@Jacksonized
 public class CategoryResponse {
 
     private UUID id;
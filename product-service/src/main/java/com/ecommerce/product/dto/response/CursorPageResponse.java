@@ -0,0 +1,20 @@
+package com.ecommerce.product.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageResponse<T> {
+
+    private List<T> items;
+    // Sonraki sayfa için ?cursor= ile gönderilir; son sayfada null
+    private String nextCursor;
+    private boolean hasMore;
+    // Yaklaşık toplam (bitmap index'inden); bilinmiyorsa null
+    private Long totalElements;
+}
@@ -1,19 +0,0 @@
-package com.ecommerce.product.dto.response;
-
-import lombok.Builder;
-import lombok.Data;
-
-import java.util.List;
-
-@Data
-@Builder
-public class PagedResponse<T> {
-
-    private List<T> content;
-    private Integer page;
-    private Integer size;
-    private Long totalElements;
-    private Integer totalPages;
-    private Boolean first;
-    private Boolean last;
-}
@@ -0,0 +1,16 @@
+package com.ecommerce.product.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+public class PriceRangeFacet {
+
+    private BigDecimal minPrice;
+    // Son aralıkta null (üst sınır yok)
+    private BigDecimal maxPrice;
+    private Long count;
+}
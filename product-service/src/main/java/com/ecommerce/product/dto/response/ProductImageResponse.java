@@ -2,11 +2,13 @@ package com.ecommerce.product.dto.response;
 
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 import java.util.UUID;
 
 @Data
 @Builder
+@Jacksonized
 public class ProductImageResponse {
 
     private UUID id;
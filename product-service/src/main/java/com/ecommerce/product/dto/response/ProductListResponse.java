@@ -1,6 +1,7 @@
 package com.ecommerce.product.dto.response;
 
 import com.ecommerce.product.entity.ProductStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Data;
 
@@ -22,4 +23,11 @@ public class ProductListResponse {
     private String mainImageUrl;
     private ProductStatus status;
     private String categoryName;
+
+    // Sadece kelimeyle aramada dolar; eşleşen kelimeler <mark> ile işaretlidir
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String highlightedName;
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private String highlightedSnippet;
 }
\ No newline at end of file
@@ -3,14 +3,17 @@ package com.ecommerce.product.dto.response;
 import com.ecommerce.product.entity.ProductStatus;
 import lombok.Builder;
 import lombok.Data;
+import lombok.extern.jackson.Jacksonized;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
+// Ortak cache katmanında JSON olarak saklandığı için builder üzerinden deserialize edilir
 @Data
 @Builder
+@Jacksonized
 public class ProductResponse {
 
     private UUID id;
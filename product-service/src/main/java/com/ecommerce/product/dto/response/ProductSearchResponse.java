@@ -0,0 +1,18 @@
+package com.ecommerce.product.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProductSearchResponse {
+
+    private CursorPageResponse<ProductListResponse> results;
+    // includeFacets=false ise null
+    private List<CategoryFacet> categories;
+    private List<PriceRangeFacet> priceRanges;
+}
@@ -0,0 +1,48 @@
+package com.ecommerce.product.event;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Değişen ürünleri transaction boyunca toplar ve commit'ten sonra tek bir ProductChangedEvent
+ * olarak yayınlar. Rollback olursa event yayınlanmaz.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductChangeTracker {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public void markChanged(UUID productId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eventPublisher.publishEvent(new ProductChangedEvent(Set.of(productId), false));
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof ChangedProducts changed) {
+                changed.productIds.add(productId);
+                return;
+            }
+        }
+        ChangedProducts changed = new ChangedProducts();
+        changed.productIds.add(productId);
+        TransactionSynchronizationManager.registerSynchronization(changed);
+    }
+
+    private final class ChangedProducts implements TransactionSynchronization {
+
+        private final Set<UUID> productIds = new LinkedHashSet<>();
+
+        @Override
+        public void afterCommit() {
+            eventPublisher.publishEvent(new ProductChangedEvent(Set.copyOf(productIds), false));
+        }
+    }
+}
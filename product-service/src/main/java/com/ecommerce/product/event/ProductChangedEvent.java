@@ -0,0 +1,12 @@
+package com.ecommerce.product.event;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Uygulama içi event: satırı değişen ürünler, commit'ten sonra yayınlanır.
+ *
+ * @param remote değişiklik başka bir node'da yapıldı ve product-cache-invalidation ile geldi
+ */
+public record ProductChangedEvent(Set<UUID> productIds, boolean remote) {
+}
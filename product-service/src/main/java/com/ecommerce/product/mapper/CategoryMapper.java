@@ -1,5 +1,6 @@
 package com.ecommerce.product.mapper;
 
+import com.ecommerce.product.category.CategoryTreeCache;
 import com.ecommerce.product.dto.response.CategoryResponse;
 import com.ecommerce.product.entity.Category;
 import com.ecommerce.product.repository.CategoryRepository;
@@ -11,10 +12,16 @@ import org.springframework.stereotype.Component;
 public class CategoryMapper {
 
     private final CategoryRepository categoryRepository;
+    private final CategoryTreeCache categoryTreeCache;
 
+    // Alt kategori sayısı ağaçtan; ağaçta henüz olmayan (yeni oluşturulan) kategori için sayılır
     public CategoryResponse toResponse(Category category) {
-        Long childCount = categoryRepository.countByParentId(category.getId());
+        Long childCount = categoryTreeCache.get().childCount(category.getId())
+                .orElseGet(() -> categoryRepository.countByParentId(category.getId()));
+        return toResponse(category, childCount);
+    }
 
+    public CategoryResponse toResponse(Category category, Long childCount) {
         return CategoryResponse.builder()
                 .id(category.getId())
                 .name(category.getName())
@@ -31,4 +38,4 @@ public class CategoryMapper {
                 .updatedAt(category.getUpdatedAt())
                 .build();
     }
-}
\ No newline at end of file
+}
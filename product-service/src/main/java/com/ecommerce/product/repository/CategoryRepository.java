@@ -2,6 +2,8 @@ package com.ecommerce.product.repository;
 
 import com.ecommerce.product.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -22,4 +24,8 @@ public interface CategoryRepository extends JpaRepository<Category, UUID> {
     List<Category> findByIsActiveTrueOrderByLevelAscSortOrderAsc();
 
     long countByParentId(UUID parentId);
+
+    // Kategori satırını kilitleyip üst kategorisini döner; kök kategori ya da kayıt yoksa boş
+    @Query(value = "SELECT parent_id FROM categories WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<UUID> lockParentId(@Param("id") UUID id);
 }
\ No newline at end of file
@@ -2,14 +2,13 @@ package com.ecommerce.product.repository;
 
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,10 +16,23 @@ import java.util.UUID;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, UUID> {
 
+    // Ürün detayı: kategori, üst kategori ve görseller tek sorguda
+    @EntityGraph(attributePaths = {"category", "category.parent", "images"})
+    Optional<Product> findWithDetailsById(UUID id);
+
+    @Query("SELECT p FROM Product p JOIN FETCH p.category WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<UUID> ids);
+
     Optional<Product> findBySku(String sku);
 
     Optional<Product> findBySlug(String slug);
 
+    @Query("SELECT p.id FROM Product p WHERE p.sku = :sku")
+    Optional<UUID> findIdBySku(@Param("sku") String sku);
+
+    @Query("SELECT p.id FROM Product p WHERE p.slug = :slug")
+    Optional<UUID> findIdBySlug(@Param("slug") String slug);
+
     boolean existsBySku(String sku);
 
     boolean existsBySlug(String slug);
@@ -29,22 +41,6 @@ public interface ProductRepository extends JpaRepository<Product, UUID> {
 
     List<Product> findByCategoryIdAndStatus(UUID categoryId, ProductStatus status);
 
-    Page<Product> findByStatus(ProductStatus status, Pageable pageable);
-
-    Page<Product> findByCategoryIdAndStatus(UUID categoryId, ProductStatus status, Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE p.status = :status AND " +
-            "(LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(p.description) LIKE LOWER(CONCAT('%', :keyword, '%')))")
-    Page<Product> searchByKeyword(@Param("keyword") String keyword,
-                                  @Param("status") ProductStatus status,
-                                  Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE p.status = 'ACTIVE' AND p.price BETWEEN :minPrice AND :maxPrice")
-    Page<Product> findByPriceRange(@Param("minPrice") BigDecimal minPrice,
-                                   @Param("maxPrice") BigDecimal maxPrice,
-                                   Pageable pageable);
-
     long countByStatus(ProductStatus status);
 
     long countByCategoryId(UUID categoryId);
@@ -0,0 +1,459 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.entity.ProductStatus;
+import com.ecommerce.product.event.ProductChangedEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.roaringbitmap.IntConsumer;
+import org.roaringbitmap.RoaringBitmap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Ürün aramasındaki filtreler ve facet sayıları için bellek içi bitmap index.
+ *
+ * Her ürüne sabit bir sıra numarası (ordinal) verilir; kategori, durum ve fiyat aralığı başına
+ * birer RoaringBitmap tutulur. Filtreler bitmap AND/OR'larıyla, facet sayıları kesişimlerin
+ * kardinalitesiyle hesaplanır; veritabanında GROUP BY taraması yapılmaz.
+ *
+ * Index açılışta products tablosundan bir kez doldurulur, sonrasında commit edilen ürün
+ * değişiklikleri (ProductChangedEvent; diğer node'lardakiler product-cache-invalidation ile gelir)
+ * tek IN sorgusuyla yeniden okunup uygulanır. Kaçan bir mesaja karşı periyodik olarak baştan kurulur.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductFacetIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    // Fiyat aralıklarının alt sınırları; son aralık üstten açıktır
+    @Value("${product.facets.price-buckets:0,500,1000,2500,5000,10000,25000,50000,100000}")
+    private BigDecimal[] priceBuckets;
+
+    @Value("${product.facets.load-timeout-ms:30000}")
+    private long loadTimeoutMs;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final CountDownLatch loaded = new CountDownLatch(1);
+    private final Set<UUID> changedDuringRebuild = ConcurrentHashMap.newKeySet();
+    private volatile boolean rebuilding;
+    private long[] bucketLowerCents;
+    private Bitmaps bitmaps;
+    private Timer queryTimer;
+
+    @PostConstruct
+    void init() {
+        bucketLowerCents = Arrays.stream(priceBuckets).mapToLong(ProductFacetIndex::toCents).sorted().toArray();
+        bitmaps = new Bitmaps(bucketLowerCents.length);
+        queryTimer = Timer.builder("product.facets.query")
+                .description("Filtre ve facet sayılarının bitmap index üzerinde hesaplanma süresi")
+                .register(meterRegistry);
+        Gauge.builder("product.facets.products", this, index -> index.size())
+                .description("Facet index'indeki ürün sayısı")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+        loaded.countDown();
+    }
+
+    @Scheduled(initialDelayString = "${product.facets.rebuild-interval-ms:600000}",
+            fixedDelayString = "${product.facets.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        long startedAt = System.nanoTime();
+        rebuilding = true;
+        try {
+            Bitmaps fresh = new Bitmaps(bucketLowerCents.length);
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(
+                        "SELECT id, category_id, status, price FROM products",
+                        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(10_000);
+                return statement;
+            }, rs -> {
+                Entry entry = toEntry(rs);
+                fresh.put(rs.getObject("id", UUID.class), entry, bucketOf(entry.priceCents()));
+            });
+
+            lock.writeLock().lock();
+            try {
+                bitmaps = fresh;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            rebuilding = false;
+        }
+
+        // Kurulum sürerken gelen değişiklikler eski index'e uygulandı; yenisine tekrar uygula
+        Set<UUID> missed = new HashSet<>();
+        for (UUID productId : changedDuringRebuild) {
+            changedDuringRebuild.remove(productId);
+            missed.add(productId);
+        }
+        refresh(missed);
+
+        log.info("Facet index kuruldu: {} ürün, {} ms", size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    @EventListener
+    public void onProductChanged(ProductChangedEvent event) {
+        if (rebuilding) {
+            changedDuringRebuild.addAll(event.productIds());
+        }
+        try {
+            refresh(event.productIds());
+        } catch (Exception e) {
+            // Sonraki periyodik kurulumda düzelir
+            log.warn("Facet index güncellenemedi: {} ürün, error={}", event.productIds().size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Filtreleri uygular ve facet sayılarını hesaplar. Her boyutun facet'i, o boyutun kendi
+     * filtresi hariç diğer filtrelerle hesaplanır; böylece seçili kategorideyken diğer
+     * kategorilerin ve fiyat aralıklarının sayıları da görünür.
+     *
+     * @param rankedIds kelimeyle aramada alaka sırasındaki eşleşmeler, değilse null
+     * @param offset    rankedIds verildiğinde dönecek sayfanın başlangıcı
+     * @param limit     rankedIds verildiğinde dönecek sayfanın boyutu
+     */
+    public FacetResult query(FacetQuery query, List<UUID> rankedIds, long offset, int limit, boolean withFacets) {
+        awaitLoaded();
+        Timer.Sample sample = Timer.start(meterRegistry);
+        lock.readLock().lock();
+        try {
+            RoaringBitmap keyword = rankedIds != null ? bitmaps.ordinalsOf(rankedIds) : null;
+            RoaringBitmap status = bitmaps.byStatus(query.status());
+            RoaringBitmap category = query.categoryIds() != null ? bitmaps.byCategories(query.categoryIds()) : null;
+            RoaringBitmap price = query.hasPriceRange()
+                    ? bitmaps.byPriceRange(toCentsOrNull(query.minPrice()), toCentsOrNull(query.maxPrice()), bucketLowerCents)
+                    : null;
+
+            RoaringBitmap matches = and(keyword, status, category, price);
+
+            List<UUID> page = List.of();
+            if (rankedIds != null) {
+                page = new ArrayList<>(limit);
+                long skipped = 0;
+                for (UUID id : rankedIds) {
+                    Integer ordinal = bitmaps.ordinals.get(id);
+                    if (ordinal == null || !matches.contains(ordinal)) {
+                        continue;
+                    }
+                    if (skipped++ < offset) {
+                        continue;
+                    }
+                    page.add(id);
+                    if (page.size() == limit) {
+                        break;
+                    }
+                }
+            }
+
+            Map<UUID, Long> categoryCounts = Map.of();
+            List<Long> priceCounts = List.of();
+            if (withFacets) {
+                RoaringBitmap withoutCategory = and(keyword, status, price);
+                categoryCounts = new LinkedHashMap<>();
+                for (Map.Entry<UUID, RoaringBitmap> entry : bitmaps.categories.entrySet()) {
+                    long count = RoaringBitmap.andCardinality(withoutCategory, entry.getValue());
+                    if (count > 0) {
+                        categoryCounts.put(entry.getKey(), count);
+                    }
+                }
+
+                RoaringBitmap withoutPrice = and(keyword, status, category);
+                priceCounts = new ArrayList<>(bucketLowerCents.length);
+                for (RoaringBitmap bucket : bitmaps.buckets) {
+                    priceCounts.add((long) RoaringBitmap.andCardinality(withoutPrice, bucket));
+                }
+            }
+
+            return new FacetResult(matches.getLongCardinality(), page, categoryCounts, priceCounts);
+        } finally {
+            lock.readLock().unlock();
+            sample.stop(queryTimer);
+        }
+    }
+
+    /**
+     * Filtreye uyan ürün sayısı, index yüklenmesi beklenmeden. Index commit sonrası güncellendiği
+     * için değer yaklaşıktır; liste sayfalarında COUNT(*) yerine kullanılır. Index henüz
+     * yüklenmediyse boş döner.
+     */
+    public OptionalLong count(FacetQuery query) {
+        if (loaded.getCount() > 0) {
+            return OptionalLong.empty();
+        }
+        lock.readLock().lock();
+        try {
+            RoaringBitmap category = query.categoryIds() != null ? bitmaps.byCategories(query.categoryIds()) : null;
+            RoaringBitmap price = query.hasPriceRange()
+                    ? bitmaps.byPriceRange(toCentsOrNull(query.minPrice()), toCentsOrNull(query.maxPrice()), bucketLowerCents)
+                    : null;
+            return OptionalLong.of(and(bitmaps.byStatus(query.status()), category, price).getLongCardinality());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Fiyat aralıklarının alt sınırları, facet sonuçlarındaki sırayla
+    public List<BigDecimal> priceBucketLowerBounds() {
+        return Arrays.stream(bucketLowerCents).mapToObj(cents -> BigDecimal.valueOf(cents, 2)).toList();
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return bitmaps.ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void refresh(Collection<UUID> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        Map<UUID, Entry> current = new HashMap<>();
+        namedParameterJdbcTemplate.query(
+                "SELECT id, category_id, status, price FROM products WHERE id IN (:ids)",
+                Map.of("ids", productIds),
+                rs -> {
+                    current.put(rs.getObject("id", UUID.class), toEntry(rs));
+                });
+
+        lock.writeLock().lock();
+        try {
+            for (UUID productId : productIds) {
+                Entry entry = current.get(productId);
+                if (entry == null) {
+                    bitmaps.remove(productId);
+                } else {
+                    bitmaps.put(productId, entry, bucketOf(entry.priceCents()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void awaitLoaded() {
+        try {
+            if (!loaded.await(loadTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Facet index henüz yüklenmedi");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Facet index beklenirken kesildi", e);
+        }
+    }
+
+    private int bucketOf(long priceCents) {
+        int bucket = Arrays.binarySearch(bucketLowerCents, priceCents);
+        // Tam sınırda değilse binarySearch -(ekleme noktası) - 1 döner
+        return bucket >= 0 ? bucket : Math.max(0, -bucket - 2);
+    }
+
+    private static Entry toEntry(ResultSet rs) throws SQLException {
+        return new Entry(
+                rs.getObject("category_id", UUID.class),
+                ProductStatus.valueOf(rs.getString("status")),
+                toCents(rs.getBigDecimal("price")));
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    private static Long toCentsOrNull(BigDecimal amount) {
+        return amount != null ? toCents(amount) : null;
+    }
+
+    // null olan filtreler atlanır; hepsi null ise boş bitmap döner
+    private static RoaringBitmap and(RoaringBitmap... filters) {
+        RoaringBitmap result = null;
+        for (RoaringBitmap filter : filters) {
+            if (filter == null) {
+                continue;
+            }
+            result = result == null ? filter.clone() : RoaringBitmap.and(result, filter);
+        }
+        return result != null ? result : new RoaringBitmap();
+    }
+
+    /**
+     * @param categoryIds kategori ve alt kategorileri, null ise kategori filtresi yok
+     * @param minPrice    null ise alt sınır yok
+     * @param maxPrice    null ise üst sınır yok
+     */
+    public record FacetQuery(Set<UUID> categoryIds, ProductStatus status, BigDecimal minPrice, BigDecimal maxPrice) {
+
+        boolean hasPriceRange() {
+            return minPrice != null || maxPrice != null;
+        }
+    }
+
+    /**
+     * @param total          tüm filtrelerle eşleşen ürün sayısı
+     * @param page           kelimeyle aramada filtrelenmiş sonuç sayfası, alaka sırasıyla
+     * @param categoryCounts kategori başına ürün sayısı (sadece o kategoriye doğrudan bağlı ürünler)
+     * @param priceCounts    priceBucketLowerBounds sırasıyla fiyat aralığı başına ürün sayısı
+     */
+    public record FacetResult(long total, List<UUID> page, Map<UUID, Long> categoryCounts, List<Long> priceCounts) {
+    }
+
+    private record Entry(UUID categoryId, ProductStatus status, long priceCents) {
+    }
+
+    // Tek bir index örneği; sadece lock altında okunur ve değiştirilir
+    private static final class Bitmaps {
+
+        private final Map<UUID, Integer> ordinals = new HashMap<>();
+        private final List<Entry> entries = new ArrayList<>();
+        private final RoaringBitmap freeOrdinals = new RoaringBitmap();
+        private final Map<UUID, RoaringBitmap> categories = new HashMap<>();
+        private final Map<ProductStatus, RoaringBitmap> statuses = new EnumMap<>(ProductStatus.class);
+        private final RoaringBitmap[] buckets;
+
+        Bitmaps(int bucketCount) {
+            buckets = new RoaringBitmap[bucketCount];
+            for (int i = 0; i < bucketCount; i++) {
+                buckets[i] = new RoaringBitmap();
+            }
+            for (ProductStatus status : ProductStatus.values()) {
+                statuses.put(status, new RoaringBitmap());
+            }
+        }
+
+        void put(UUID productId, Entry entry, int bucket) {
+            Integer ordinal = ordinals.get(productId);
+            if (ordinal != null) {
+                clear(ordinal);
+            } else if (!freeOrdinals.isEmpty()) {
+                ordinal = freeOrdinals.first();
+                freeOrdinals.remove(ordinal);
+                ordinals.put(productId, ordinal);
+            } else {
+                ordinal = entries.size();
+                entries.add(null);
+                ordinals.put(productId, ordinal);
+            }
+            entries.set(ordinal, entry);
+            categories.computeIfAbsent(entry.categoryId(), id -> new RoaringBitmap()).add(ordinal);
+            statuses.get(entry.status()).add(ordinal);
+            buckets[bucket].add(ordinal);
+        }
+
+        void remove(UUID productId) {
+            Integer ordinal = ordinals.remove(productId);
+            if (ordinal != null) {
+                clear(ordinal);
+                entries.set(ordinal, null);
+                freeOrdinals.add(ordinal);
+            }
+        }
+
+        private void clear(int ordinal) {
+            Entry previous = entries.get(ordinal);
+            RoaringBitmap category = categories.get(previous.categoryId());
+            category.remove(ordinal);
+            if (category.isEmpty()) {
+                categories.remove(previous.categoryId());
+            }
+            statuses.get(previous.status()).remove(ordinal);
+            for (RoaringBitmap bucket : buckets) {
+                bucket.remove(ordinal);
+            }
+        }
+
+        RoaringBitmap ordinalsOf(List<UUID> productIds) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (UUID productId : productIds) {
+                Integer ordinal = ordinals.get(productId);
+                if (ordinal != null) {
+                    result.add(ordinal);
+                }
+            }
+            return result;
+        }
+
+        RoaringBitmap byStatus(ProductStatus status) {
+            return statuses.get(status);
+        }
+
+        RoaringBitmap byCategories(Set<UUID> categoryIds) {
+            RoaringBitmap result = new RoaringBitmap();
+            for (UUID categoryId : categoryIds) {
+                RoaringBitmap category = categories.get(categoryId);
+                if (category != null) {
+                    result.or(category);
+                }
+            }
+            return result;
+        }
+
+        // Aralığın tamamen içinde kalan bucket'lar olduğu gibi alınır, sınırdakiler ürün ürün süzülür
+        RoaringBitmap byPriceRange(Long minCents, Long maxCents, long[] lowerBounds) {
+            long min = minCents != null ? minCents : Long.MIN_VALUE;
+            long max = maxCents != null ? maxCents : Long.MAX_VALUE;
+            RoaringBitmap result = new RoaringBitmap();
+            for (int i = 0; i < buckets.length; i++) {
+                long lower = i == 0 ? Long.MIN_VALUE : lowerBounds[i];
+                long upper = i + 1 < lowerBounds.length ? lowerBounds[i + 1] - 1 : Long.MAX_VALUE;
+                if (upper < min || lower > max) {
+                    continue;
+                }
+                if (lower >= min && upper <= max) {
+                    result.or(buckets[i]);
+                } else {
+                    buckets[i].forEach((IntConsumer) ordinal -> {
+                        long price = entries.get(ordinal).priceCents();
+                        if (price >= min && price <= max) {
+                            result.add(ordinal);
+                        }
+                    });
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.ecommerce.product.search;
+
+import com.ecommerce.product.entity.ProductStatus;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.regex.Pattern;
+
+/**
+ * products.search_vector (GIN) üzerinden tam metin arama.
+ *
+ * search_vector veritabanında üretilen bir kolondur; ürün yazıldığı anda güncellenir, ayrıca
+ * senkronize edilecek bir index yoktur. Arama metni kelimelere ayrılır; kelimeler AND ile bağlanır,
+ * son kelime yazılırken aranabilsin diye önek (:*) olarak eşleşir. Sorgu alanların index'lendiği
+ * sözlüklerle çalışır: ad ve açıklamalar 'turkish' (kökler), SKU 'simple'.
+ *
+ * Sıralama ts_rank_cd ile eşleşen tüm satırlar üzerinde yapılır ve ilk max-candidates satır döner;
+ * Postgres bunun için top-N sıralama kullanır, bellekte sadece o kadar satır tutar. Vurgulama
+ * (ts_headline) ayrı bir sorguyla sadece dönen sayfa için, HTML'i kaçırılmış metin üzerinde hesaplanır.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Locale TURKISH = Locale.forLanguageTag("tr");
+
+    private static final String HEADLINE_OPTIONS =
+            "StartSel=<mark>, StopSel=</mark>, MaxFragments=2, MaxWords=25, MinWords=10, FragmentDelimiter=\" … \"";
+
+    // search_vector'da SKU 'simple', diğer alanlar 'turkish' ile index'lenir
+    private static final String QUERY_SQL = "to_tsquery('turkish', :query) || to_tsquery('simple', :query)";
+
+    // Önce alaka sırası, sonra sınır: en alakalı max-candidates ürün döner
+    private static final String RANKED_IDS_SQL = """
+            SELECT p.id
+            FROM products p, (SELECT %s) AS q(query)
+            WHERE p.search_vector @@ q.query
+              AND p.status = CAST(:status AS product_status)
+            ORDER BY ts_rank_cd(p.search_vector, q.query, 32) DESC, p.id
+            LIMIT :maxCandidates
+            """.formatted(QUERY_SQL);
+
+    // ts_headline kaynağı olduğu gibi döndürür; <mark> dışındaki HTML çalışmasın diye metin önce kaçırılır
+    private static final String HIGHLIGHT_SQL = """
+            SELECT p.id,
+                   ts_headline('turkish', %s, q.query, 'StartSel=<mark>, StopSel=</mark>, HighlightAll=true') AS name_highlight,
+                   ts_headline('turkish', %s, q.query, :headlineOptions) AS snippet
+            FROM products p, (SELECT %s) AS q(query)
+            WHERE p.id IN (:ids)
+            """.formatted(htmlEscaped("p.name"),
+            htmlEscaped("coalesce(p.description, p.short_description, '')"), QUERY_SQL);
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${product.search.max-candidates:10000}")
+    private int maxCandidates;
+
+    @Value("${product.search.max-terms:8}")
+    private int maxTerms;
+
+    private Timer searchTimer;
+
+    @PostConstruct
+    void initMetrics() {
+        searchTimer = Timer.builder("product.search.query")
+                .description("Tam metin arama sorgusunun süresi")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Arama metnini tsquery ifadesine çevirir: "Akıllı telefon" -> "akıllı & telefon:*".
+     * Harf ve rakam dışındaki her şey ayırıcı sayıldığı için tsquery operatörleri
+     * kullanıcıdan gelemez. Kullanılabilir kelime yoksa boş döner.
+     */
+    public static Optional<String> toTsQuery(String keyword, int maxTerms) {
+        if (keyword == null) {
+            return Optional.empty();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : TOKEN_SEPARATOR.split(keyword.toLowerCase(TURKISH))) {
+            if (!token.isEmpty() && terms.size() < maxTerms) {
+                terms.add(token);
+            }
+        }
+        if (terms.isEmpty()) {
+            return Optional.empty();
+        }
+        int last = terms.size() - 1;
+        terms.set(last, terms.get(last) + ":*");
+        return Optional.of(String.join(" & ", terms));
+    }
+
+    /**
+     * Kelimeyle eşleşen ürünlerin id'leri, alaka sırasıyla. En fazla max-candidates kadar döner;
+     * kategori ve fiyat filtreleri ProductFacetIndex'te bu liste üzerine uygulanır.
+     */
+    public Optional<List<UUID>> rankedIds(String keyword, ProductStatus status) {
+        Optional<String> query = toTsQuery(keyword, maxTerms);
+        if (query.isEmpty()) {
+            return Optional.empty();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query.get())
+                .addValue("status", status.name())
+                .addValue("maxCandidates", maxCandidates);
+
+        List<UUID> ids = searchTimer.record(() -> namedParameterJdbcTemplate.query(RANKED_IDS_SQL, params,
+                (rs, rowNum) -> rs.getObject("id", UUID.class)));
+        log.debug("Ürün araması: '{}' -> {} sonuç", query.get(), ids.size());
+        return Optional.of(ids);
+    }
+
+    // Vurgulama pahalı olduğu için sadece dönen sayfadaki ürünler için hesaplanır
+    public Map<UUID, Highlight> highlights(String keyword, Collection<UUID> productIds) {
+        Optional<String> query = toTsQuery(keyword, maxTerms);
+        if (query.isEmpty() || productIds.isEmpty()) {
+            return Map.of();
+        }
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("query", query.get())
+                .addValue("ids", productIds)
+                .addValue("headlineOptions", HEADLINE_OPTIONS);
+
+        Map<UUID, Highlight> highlights = new HashMap<>();
+        namedParameterJdbcTemplate.query(HIGHLIGHT_SQL, params, rs -> {
+            highlights.put(rs.getObject("id", UUID.class),
+                    new Highlight(rs.getString("name_highlight"), rs.getString("snippet")));
+        });
+        return highlights;
+    }
+
+    /**
+     * @param name    HTML'i kaçırılmış, eşleşen kelimeleri &lt;mark&gt; ile işaretlenmiş ürün adı
+     * @param snippet açıklamadan eşleşmeyi içeren en fazla iki parça (HTML'i kaçırılmış)
+     */
+    public record Highlight(String name, String snippet) {
+    }
+
+    private static String htmlEscaped(String expression) {
+        return "replace(replace(replace(replace(replace(" + expression + ", '&', '&amp;'), '<', '&lt;'), "
+                + "'>', '&gt;'), '\"', '&quot;'), '''', '&#39;')";
+    }
+}
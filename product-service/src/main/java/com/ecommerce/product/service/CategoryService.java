@@ -15,4 +15,6 @@ public interface CategoryService {
     List<CategoryResponse> getRootCategories();
     List<CategoryResponse> getSubCategories(UUID parentId);
     List<CategoryResponse> getAllCategories();
+    List<CategoryResponse> getBreadcrumb(UUID id);
+    String getTreeETag();
 }
@@ -1,5 +1,7 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.category.CategoryTree;
+import com.ecommerce.product.category.CategoryTreeCache;
 import com.ecommerce.product.dto.request.CategoryRequest;
 import com.ecommerce.product.dto.response.CategoryResponse;
 import com.ecommerce.product.entity.Category;
@@ -11,11 +13,14 @@ import com.ecommerce.product.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -26,6 +31,7 @@ public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final ProductRepository productRepository;
     private final CategoryMapper categoryMapper;
+    private final CategoryTreeCache categoryTreeCache;
 
     public CategoryResponse create(CategoryRequest request) {
         // 1. Slug benzersiz mi?
@@ -60,6 +66,7 @@ public class CategoryServiceImpl implements CategoryService {
                 .build();
 
         category = categoryRepository.save(category);
+        categoryTreeCache.rebuildAfterCommit();
         return categoryMapper.toResponse(category);
     }
 
@@ -104,13 +111,26 @@ public class CategoryServiceImpl implements CategoryService {
         category.setSortOrder(request.getSortOrder());
 
         category = categoryRepository.save(category);
+        categoryTreeCache.rebuildAfterCommit();
         return categoryMapper.toResponse(category);
     }
-    // Yardımcı metod
+    // Yardımcı metod: yazma kararı ağaç görüntüsüyle değil veritabanıyla verilir (görüntü eski olabilir).
+    // Ata zinciri yürünürken satırlar kilitlenir; iki kategoriyi karşılıklı taşıyan eşzamanlı
+    // güncellemeler aynı satırlarda çakışır ve döngü oluşturamaz
     private boolean isChildCategory(Category parent, Category potentialChild) {
-        if (potentialChild.getParent() == null) return false;
-        if (potentialChild.getParent().getId().equals(parent.getId())) return true;
-        return isChildCategory(parent, potentialChild.getParent());
+        Set<UUID> visited = new HashSet<>();
+        UUID current = potentialChild.getId();
+        while (visited.add(current)) {
+            Optional<UUID> parentId = categoryRepository.lockParentId(current);
+            if (parentId.isEmpty()) {
+                return false;
+            }
+            if (parentId.get().equals(parent.getId())) {
+                return true;
+            }
+            current = parentId.get();
+        }
+        return false;
     }
 
     public void delete(UUID id) {
@@ -132,33 +152,61 @@ public class CategoryServiceImpl implements CategoryService {
 
         // 4. Sil
         categoryRepository.delete(category);
+        categoryTreeCache.rebuildAfterCommit();
     }
 
+    // Okumalar veritabanına gitmez; kategori ağacının o anki görüntüsünden cevaplanır.
+    // Transaction açılmaz, bağlantı havuzundan bağlantı da alınmaz.
+
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CategoryResponse getById(UUID id) {
-        return null;
+        return categoryTreeCache.get().get(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Kategori bulunamadı"));
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public CategoryResponse getBySlug(String slug) {
-        return null;
+        return categoryTreeCache.get().getBySlug(slug)
+                .orElseThrow(() -> new ResourceNotFoundException("Kategori bulunamadı"));
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getRootCategories() {
-        return List.of();
+        return categoryTreeCache.get().activeRoots();
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getSubCategories(UUID parentId) {
-        return List.of();
+        CategoryTree tree = categoryTreeCache.get();
+        if (!tree.contains(parentId)) {
+            throw new ResourceNotFoundException("Kategori bulunamadı");
+        }
+        return tree.activeChildren(parentId);
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public List<CategoryResponse> getAllCategories() {
-        List<Category> categories = categoryRepository.findByIsActiveTrueOrderByLevelAscSortOrderAsc();
-        return categories.stream()
-                .map(categoryMapper::toResponse)
-                .collect(Collectors.toList());
+        return categoryTreeCache.get().allActive();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<CategoryResponse> getBreadcrumb(UUID id) {
+        CategoryTree tree = categoryTreeCache.get();
+        if (!tree.contains(id)) {
+            throw new ResourceNotFoundException("Kategori bulunamadı");
+        }
+        return tree.breadcrumb(id);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public String getTreeETag() {
+        return categoryTreeCache.get().etag();
     }
 }
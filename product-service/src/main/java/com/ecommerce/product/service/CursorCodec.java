@@ -0,0 +1,37 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset sayfalama cursor'ları: son satırın sıralama anahtarları '|' ile birleştirilip
+ * base64url olarak dışarı verilir. İstemci için opak bir değerdir.
+ */
+final class CursorCodec {
+
+    private static final String SEPARATOR = "|";
+
+    private CursorCodec() {
+    }
+
+    static String encode(String... keys) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.join(SEPARATOR, keys).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decode(String cursor, int keyCount) {
+        try {
+            // Son anahtar ayırıcı içerebilir (ör. ürün adı), bu yüzden en fazla keyCount parçaya bölünür
+            String[] keys = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split("\\" + SEPARATOR, keyCount);
+            if (keys.length != keyCount) {
+                throw new BadRequestException("Geçersiz cursor");
+            }
+            return keys;
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Geçersiz cursor");
+        }
+    }
+}
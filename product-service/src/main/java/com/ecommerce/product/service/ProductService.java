@@ -3,11 +3,11 @@ package com.ecommerce.product.service;
 import com.ecommerce.product.dto.request.ProductImageRequest;
 import com.ecommerce.product.dto.request.ProductRequest;
 import com.ecommerce.product.dto.request.ProductSearchRequest;
+import com.ecommerce.product.dto.response.CursorPageResponse;
 import com.ecommerce.product.dto.response.ProductListResponse;
 import com.ecommerce.product.dto.response.ProductResponse;
+import com.ecommerce.product.dto.response.ProductSearchResponse;
 import com.ecommerce.product.entity.ProductStatus;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 
 import java.util.UUID;
 
@@ -18,9 +18,10 @@ public interface ProductService {
     ProductResponse getById(UUID id);
     ProductResponse getBySku(String sku);
     ProductResponse getBySlug(String slug);
-    Page<ProductListResponse> getAll(Pageable pageable);
-    Page<ProductListResponse> getByCategory(UUID categoryId, Pageable pageable);
-    Page<ProductListResponse> search(ProductSearchRequest request);
+    CursorPageResponse<ProductListResponse> getAll(String cursor, Integer size, String sortBy, String sortDirection);
+    CursorPageResponse<ProductListResponse> getByCategory(UUID categoryId, String cursor, Integer size,
+                                                          String sortBy, String sortDirection);
+    ProductSearchResponse search(ProductSearchRequest request);
     ProductResponse updateStatus(UUID id, ProductStatus status);
     ProductResponse addImage(UUID productId, ProductImageRequest request);
     void removeImage(UUID productId, UUID imageId);
@@ -1,14 +1,22 @@
 package com.ecommerce.product.service;
 
+import com.ecommerce.product.cache.ProductCache;
+import com.ecommerce.product.category.CategoryTree;
+import com.ecommerce.product.category.CategoryTreeCache;
 import com.ecommerce.product.dto.request.ProductImageRequest;
 import com.ecommerce.product.dto.request.ProductRequest;
 import com.ecommerce.product.dto.request.ProductSearchRequest;
+import com.ecommerce.product.dto.response.CategoryFacet;
+import com.ecommerce.product.dto.response.CursorPageResponse;
+import com.ecommerce.product.dto.response.PriceRangeFacet;
 import com.ecommerce.product.dto.response.ProductListResponse;
 import com.ecommerce.product.dto.response.ProductResponse;
+import com.ecommerce.product.dto.response.ProductSearchResponse;
 import com.ecommerce.product.entity.Category;
 import com.ecommerce.product.entity.Product;
 import com.ecommerce.product.entity.ProductImage;
 import com.ecommerce.product.entity.ProductStatus;
+import com.ecommerce.product.event.ProductChangeTracker;
 import com.ecommerce.product.exception.BadRequestException;
 import com.ecommerce.product.exception.ResourceNotFoundException;
 import com.ecommerce.product.mapper.CategoryMapper;
@@ -16,29 +24,58 @@ import com.ecommerce.product.mapper.ProductMapper;
 import com.ecommerce.product.repository.CategoryRepository;
 import com.ecommerce.product.repository.ProductImageRepository;
 import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductFacetIndex;
+import com.ecommerce.product.search.ProductSearchIndex;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 @Transactional
 public class ProductServiceImpl implements ProductService {
+
+    // Liste ve kelimesiz aramada izin verilen sıralama alanları (JPQL'e doğrudan eklenir)
+    // Her alan için (status, alan, id) ve (category_id, status, alan, id) index'i var; yeni alan index'siz eklenmez
+    private static final Set<String> SEARCH_SORT_FIELDS = Set.of("createdAt", "updatedAt", "price", "name");
+
+    // Kelimeyle aramada cursor, alaka sırasındaki konumu taşır
+    private static final String RANK_CURSOR = "rank";
+
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
     private final ProductMapper productMapper;
     private final ProductImageRepository productImageRepository;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductFacetIndex productFacetIndex;
+    private final ProductChangeTracker productChangeTracker;
+    private final ProductCache productCache;
+    private final CategoryTreeCache categoryTreeCache;
+    private final EntityManager entityManager;
+
+    @Value("${product.search.max-page-size:100}")
+    private int maxPageSize;
 
     public ProductResponse create(ProductRequest request) {
         // 1. SKU benzersiz mi?
@@ -87,6 +124,7 @@ public class ProductServiceImpl implements ProductService {
                 .build();
 
         product = productRepository.save(product);
+        productChangeTracker.markChanged(product.getId());
         return productMapper.toResponse(product);
     }
 
@@ -141,6 +179,7 @@ public class ProductServiceImpl implements ProductService {
         product.setMainImageUrl(request.getMainImageUrl());
 
         product = productRepository.save(product);
+        productChangeTracker.markChanged(product.getId());
         return productMapper.toResponse(product);
     }
 
@@ -152,60 +191,290 @@ public class ProductServiceImpl implements ProductService {
         // 2. Soft delete - durumu DISCONTINUED yap
         product.setStatus(ProductStatus.DISCONTINUED);
         productRepository.save(product);
+        productChangeTracker.markChanged(product.getId());
 
         // Veya hard delete:
         // productRepository.delete(product);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductResponse getById(UUID id) {
-        return null;
+        return productCache.get(id, this::loadProduct);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductResponse getBySku(String sku) {
-        return null;
+        return productCache.getBySku(sku,
+                key -> productRepository.findIdBySku(key)
+                        .orElseThrow(() -> new ResourceNotFoundException("Ürün bulunamadı")),
+                this::loadProduct);
     }
 
     @Override
+    @Transactional(readOnly = true)
     public ProductResponse getBySlug(String slug) {
-        return null;
+        return productCache.getBySlug(slug,
+                key -> productRepository.findIdBySlug(key)
+                        .orElseThrow(() -> new ResourceNotFoundException("Ürün bulunamadı")),
+                this::loadProduct);
+    }
+
+    // Cache'te olmayan ürün için; aynı ürüne eşzamanlı isteklerde tek kez çağrılır
+    private ProductResponse loadProduct(UUID id) {
+        return productRepository.findWithDetailsById(id)
+                .map(productMapper::toResponse)
+                .orElseThrow(() -> new ResourceNotFoundException("Ürün bulunamadı"));
     }
 
     @Override
-    public Page<ProductListResponse> getAll(Pageable pageable) {
-        return null;
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductListResponse> getAll(String cursor, Integer size, String sortBy, String sortDirection) {
+        ProductFacetIndex.FacetQuery query = new ProductFacetIndex.FacetQuery(null, ProductStatus.ACTIVE, null, null);
+        return findPage(query, sortBy, sortDirection, cursor, pageSize(size), approximateTotal(query));
     }
 
     @Override
-    public Page<ProductListResponse> getByCategory(UUID categoryId, Pageable pageable) {
-        return null;
+    @Transactional(readOnly = true)
+    public CursorPageResponse<ProductListResponse> getByCategory(UUID categoryId, String cursor, Integer size,
+                                                                 String sortBy, String sortDirection) {
+        if (!categoryTreeCache.get().contains(categoryId)) {
+            throw new ResourceNotFoundException("Kategori bulunamadı");
+        }
+        ProductFacetIndex.FacetQuery query = new ProductFacetIndex.FacetQuery(
+                Set.of(categoryId), ProductStatus.ACTIVE, null, null);
+        return findPage(query, sortBy, sortDirection, cursor, pageSize(size), approximateTotal(query));
     }
 
     @Override
-    public Page<ProductListResponse> search(ProductSearchRequest request) {
-        // 1. Pageable oluştur
-        Sort sort = Sort.by(
-                request.getSortDirection().equalsIgnoreCase("ASC") ? Sort.Direction.ASC : Sort.Direction.DESC,
-                request.getSortBy()
-        );
-        Pageable pageable = PageRequest.of(request.getPage(), request.getSize(), sort);
-
-        // 2. Arama yap
-        Page<Product> products;
-
-        if (request.getKeyword() != null && !request.getKeyword().isEmpty()) {
-            products = productRepository.searchByKeyword(request.getKeyword(), request.getStatus(), pageable);
-        } else if (request.getCategoryId() != null) {
-            products = productRepository.findByCategoryIdAndStatus(request.getCategoryId(), request.getStatus(), pageable);
-        } else if (request.getMinPrice() != null && request.getMaxPrice() != null) {
-            products = productRepository.findByPriceRange(request.getMinPrice(), request.getMaxPrice(), pageable);
+    @Transactional(readOnly = true)
+    public ProductSearchResponse search(ProductSearchRequest request) {
+        // 1. Parametreleri doğrula
+        ProductStatus status = request.getStatus() != null ? request.getStatus() : ProductStatus.ACTIVE;
+        int size = pageSize(request.getSize());
+        if (request.getMinPrice() != null && request.getMaxPrice() != null &&
+                request.getMinPrice().compareTo(request.getMaxPrice()) > 0) {
+            throw new BadRequestException("Minimum fiyat maksimum fiyattan büyük olamaz");
+        }
+
+        // 2. Kategori filtresi alt kategorileri de kapsar (kategori ağacından, sorgusuz)
+        Set<UUID> categoryIds = null;
+        if (request.getCategoryId() != null) {
+            categoryIds = categoryTreeCache.get().subtreeIds(request.getCategoryId());
+            if (categoryIds.isEmpty()) {
+                throw new ResourceNotFoundException("Kategori bulunamadı");
+            }
+        }
+
+        ProductFacetIndex.FacetQuery facetQuery = new ProductFacetIndex.FacetQuery(
+                categoryIds, status, request.getMinPrice(), request.getMaxPrice());
+        boolean withFacets = !Boolean.FALSE.equals(request.getIncludeFacets());
+
+        // 3. Kelime varsa alaka sırası tam metin index'inden, filtreler ve sayfa bitmap index'inden
+        Optional<List<UUID>> rankedIds = request.getKeyword() != null && !request.getKeyword().isBlank()
+                ? productSearchIndex.rankedIds(request.getKeyword(), status)
+                : Optional.empty();
+
+        ProductFacetIndex.FacetResult facets;
+        CursorPageResponse<ProductListResponse> results;
+        if (rankedIds.isPresent()) {
+            // Alaka sırası her istekte aynı sınırlı aday kümesinden hesaplanır; cursor bu sıradaki konumdur
+            int position = decodeRankCursor(request.getCursor());
+            facets = productFacetIndex.query(facetQuery, rankedIds.get(), position, size + 1, withFacets);
+            boolean hasMore = facets.page().size() > size;
+            List<UUID> pageIds = hasMore ? facets.page().subList(0, size) : facets.page();
+            results = CursorPageResponse.<ProductListResponse>builder()
+                    .items(toSearchResults(pageIds, productSearchIndex.highlights(request.getKeyword(), pageIds)))
+                    .hasMore(hasMore)
+                    .nextCursor(hasMore ? CursorCodec.encode(RANK_CURSOR, String.valueOf(position + size)) : null)
+                    .totalElements(facets.total())
+                    .build();
         } else {
-            products = productRepository.findByStatus(request.getStatus(), pageable);
+            // Kelime yoksa sayfa veritabanından keyset ile okunur; toplam bitmap index'inden gelir
+            facets = productFacetIndex.query(facetQuery, null, 0, 0, withFacets);
+            results = findPage(facetQuery, request.getSortBy(), request.getSortDirection(),
+                    request.getCursor(), size, facets.total());
+        }
+
+        // 4. Sonucu oluştur
+        return ProductSearchResponse.builder()
+                .results(results)
+                .categories(withFacets ? toCategoryFacets(facets.categoryCounts()) : null)
+                .priceRanges(withFacets ? toPriceRangeFacets(facets.priceCounts()) : null)
+                .build();
+    }
+
+    private int pageSize(Integer size) {
+        return size != null ? Math.min(Math.max(1, size), maxPageSize) : 20;
+    }
+
+    // Liste sayfalarında COUNT(*) çalıştırılmaz; toplam bitmap index'inden, index hazır değilse verilmez
+    private Long approximateTotal(ProductFacetIndex.FacetQuery query) {
+        OptionalLong total = productFacetIndex.count(query);
+        return total.isPresent() ? total.getAsLong() : null;
+    }
+
+    private int decodeRankCursor(String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        String[] keys = CursorCodec.decode(cursor, 2);
+        if (!RANK_CURSOR.equals(keys[0])) {
+            throw new BadRequestException("Cursor bu sorgu için geçerli değil");
+        }
+        try {
+            int position = Integer.parseInt(keys[1]);
+            if (position < 0) {
+                throw new BadRequestException("Geçersiz cursor");
+            }
+            return position;
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Geçersiz cursor");
+        }
+    }
+
+    /**
+     * Filtreye uyan ürünlerin (sıralama alanı, id) üzerinden keyset sayfası. Cursor son satırın
+     * sıralama değerini ve id'sini taşır; sonraki sayfa OFFSET yerine bu değerden devam ettiği
+     * için derin sayfalar ilk sayfa kadar ucuzdur. Cursor sıralama alanı ve yönüyle birlikte
+     * kodlanır, farklı bir sıralamayla kullanılamaz.
+     */
+    private CursorPageResponse<ProductListResponse> findPage(ProductFacetIndex.FacetQuery query, String sortBy,
+                                                             String sortDirection, String cursor, int size,
+                                                             Long total) {
+        String sortField = sortBy != null ? sortBy : "createdAt";
+        if (!SEARCH_SORT_FIELDS.contains(sortField)) {
+            throw new BadRequestException("Geçersiz sıralama alanı: " + sortField);
+        }
+        boolean ascending = "ASC".equalsIgnoreCase(sortDirection);
+        String direction = ascending ? "ASC" : "DESC";
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Product p JOIN FETCH p.category WHERE p.status = :status");
+        Map<String, Object> params = new HashMap<>();
+        params.put("status", query.status());
+        if (query.categoryIds() != null) {
+            jpql.append(" AND p.category.id IN :categoryIds");
+            params.put("categoryIds", query.categoryIds());
+        }
+        if (query.minPrice() != null) {
+            jpql.append(" AND p.price >= :minPrice");
+            params.put("minPrice", query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            jpql.append(" AND p.price <= :maxPrice");
+            params.put("maxPrice", query.maxPrice());
+        }
+
+        if (cursor != null) {
+            String[] keys = CursorCodec.decode(cursor, 4);
+            if (!sortField.equals(keys[0]) || !direction.equals(keys[1])) {
+                throw new BadRequestException("Cursor bu sorgu için geçerli değil");
+            }
+            try {
+                params.put("cursorId", UUID.fromString(keys[2]));
+                params.put("cursorValue", parseSortValue(sortField, keys[3]));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                throw new BadRequestException("Geçersiz cursor");
+            }
+            // İlk koşul index'in aralık taramasını sağlar, ikincisi eşit değerlerde id ile devam eder
+            String op = ascending ? ">" : "<";
+            jpql.append(" AND p.").append(sortField).append(' ').append(op).append("= :cursorValue")
+                    .append(" AND (p.").append(sortField).append(' ').append(op).append(" :cursorValue")
+                    .append(" OR p.id ").append(op).append(" :cursorId)");
+        }
+        // Eşit sıralama anahtarlarında sayfalar arası sırayı id sabitler
+        jpql.append(" ORDER BY p.").append(sortField).append(' ').append(direction)
+                .append(", p.id ").append(direction);
+
+        TypedQuery<Product> typedQuery = entityManager.createQuery(jpql.toString(), Product.class)
+                .setMaxResults(size + 1);
+        params.forEach(typedQuery::setParameter);
+        List<Product> rows = typedQuery.getResultList();
+
+        boolean hasMore = rows.size() > size;
+        List<Product> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            Product last = page.get(page.size() - 1);
+            nextCursor = CursorCodec.encode(sortField, direction, last.getId().toString(), sortValue(sortField, last));
+        }
+
+        return CursorPageResponse.<ProductListResponse>builder()
+                .items(page.stream().map(productMapper::toListResponse).collect(Collectors.toList()))
+                .hasMore(hasMore)
+                .nextCursor(nextCursor)
+                .totalElements(total)
+                .build();
+    }
+
+    private static String sortValue(String sortField, Product product) {
+        return switch (sortField) {
+            case "createdAt" -> product.getCreatedAt().toString();
+            case "updatedAt" -> product.getUpdatedAt().toString();
+            case "price" -> product.getPrice().toPlainString();
+            default -> product.getName();
+        };
+    }
+
+    private static Object parseSortValue(String sortField, String value) {
+        return switch (sortField) {
+            case "createdAt", "updatedAt" -> LocalDateTime.parse(value);
+            case "price" -> new BigDecimal(value);
+            default -> value;
+        };
+    }
+
+    // Index sadece id ve vurguları döner; ürünler tek sorguda yüklenip index sırasıyla eşlenir
+    private List<ProductListResponse> toSearchResults(List<UUID> productIds,
+                                                      Map<UUID, ProductSearchIndex.Highlight> highlights) {
+        Map<UUID, Product> products = productRepository.findAllWithCategoryByIdIn(productIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        List<ProductListResponse> content = new ArrayList<>(productIds.size());
+        for (UUID productId : productIds) {
+            Product product = products.get(productId);
+            if (product == null) {
+                continue;
+            }
+            ProductListResponse response = productMapper.toListResponse(product);
+            ProductSearchIndex.Highlight highlight = highlights.get(productId);
+            if (highlight != null) {
+                response.setHighlightedName(highlight.name());
+                response.setHighlightedSnippet(highlight.snippet());
+            }
+            content.add(response);
         }
+        return content;
+    }
+
+    private List<CategoryFacet> toCategoryFacets(Map<UUID, Long> counts) {
+        CategoryTree tree = categoryTreeCache.get();
+
+        return counts.entrySet().stream()
+                .filter(entry -> tree.contains(entry.getKey()))
+                .map(entry -> CategoryFacet.builder()
+                        .categoryId(entry.getKey())
+                        .name(tree.name(entry.getKey()).orElseThrow())
+                        .count(entry.getValue())
+                        .build())
+                .sorted(Comparator.comparing(CategoryFacet::getCount).reversed()
+                        .thenComparing(CategoryFacet::getName))
+                .collect(Collectors.toList());
+    }
 
-        // 3. Map ve dön
-        return products.map(productMapper::toListResponse);
+    private List<PriceRangeFacet> toPriceRangeFacets(List<Long> counts) {
+        List<BigDecimal> bounds = productFacetIndex.priceBucketLowerBounds();
+        List<PriceRangeFacet> facets = new ArrayList<>(counts.size());
+        for (int i = 0; i < counts.size(); i++) {
+            facets.add(PriceRangeFacet.builder()
+                    .minPrice(bounds.get(i))
+                    .maxPrice(i + 1 < bounds.size() ? bounds.get(i + 1) : null)
+                    .count(counts.get(i))
+                    .build());
+        }
+        return facets;
     }
 
     public ProductResponse updateStatus(UUID id, ProductStatus status) {
@@ -228,6 +497,7 @@ public class ProductServiceImpl implements ProductService {
 
         product.setStatus(status);
         product = productRepository.save(product);
+        productChangeTracker.markChanged(product.getId());
         return productMapper.toResponse(product);
     }
 
@@ -267,6 +537,7 @@ public class ProductServiceImpl implements ProductService {
             productRepository.save(product);
         }
 
+        productChangeTracker.markChanged(productId);
         return productMapper.toResponse(product);
     }
 
@@ -300,5 +571,7 @@ public class ProductServiceImpl implements ProductService {
             }
             productRepository.save(product);
         }
+
+        productChangeTracker.markChanged(productId);
     }
 }
@@ -0,0 +1,256 @@
+package com.ecommerce.product.service;
+
+import com.ecommerce.product.category.CategoryTreeCache;
+import com.ecommerce.product.dto.request.ProductSearchRequest;
+import com.ecommerce.product.dto.response.CursorPageResponse;
+import com.ecommerce.product.dto.response.ProductListResponse;
+import com.ecommerce.product.entity.Category;
+import com.ecommerce.product.entity.Product;
+import com.ecommerce.product.entity.ProductStatus;
+import com.ecommerce.product.repository.CategoryRepository;
+import com.ecommerce.product.repository.ProductRepository;
+import com.ecommerce.product.search.ProductFacetIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Liste ve detay okumalarının çalıştırdığı SQL sayısı sayfadaki satır sayısından bağımsız olmalı.
+ * Sayfa boyutu büyüdükçe sorgu sayısı artıyorsa bir mapper lazy ilişkiye satır satır gidiyordur.
+ *
+ * Sorgular DataSource seviyesinde sayılır: Hibernate'in yanında JdbcTemplate ile çalışan yollar
+ * (tam metin arama, kategori ağacı) da sayıma girer. Arka plan thread'lerinin sorguları sayılmaz.
+ */
+@SpringBootTest
+class ProductQueryCountTest {
+
+    private static final int PRODUCTS = 25;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CategoryService categoryService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductFacetIndex productFacetIndex;
+
+    @Autowired
+    private CategoryTreeCache categoryTreeCache;
+
+    private final List<Product> products = new ArrayList<>();
+    private Category parent;
+    private Category child;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString().substring(0, 8);
+        parent = categoryRepository.save(Category.builder()
+                .name("Sayım " + suffix)
+                .slug("sayim-" + suffix)
+                .build());
+        child = categoryRepository.save(Category.builder()
+                .name("Sayım Alt " + suffix)
+                .slug("sayim-alt-" + suffix)
+                .parent(parent)
+                .level(1)
+                .build());
+
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder()
+                    .sku("QC-" + suffix + "-" + i)
+                    .name("Sayım ürünü " + i)
+                    .slug("sayim-urunu-" + suffix + "-" + i)
+                    .price(new BigDecimal(100 + i))
+                    .status(ProductStatus.ACTIVE)
+                    .category(child)
+                    .build());
+        }
+        productRepository.saveAll(products);
+        productFacetIndex.rebuild();
+        categoryTreeCache.rebuild();
+    }
+
+    @AfterEach
+    void cleanup() {
+        productRepository.deleteAll(products);
+        categoryRepository.delete(child);
+        categoryRepository.delete(parent);
+    }
+
+    @Test
+    void productPagesRunFixedNumberOfQueries() {
+        // Sadece sayfa; toplam bitmap index'inden, kategori kontrolü ağaçtan
+        assertThat(countQueries(() -> productService.getAll(null, 5, "createdAt", "DESC"))).isEqualTo(1);
+        assertThat(countQueries(() -> productService.getAll(null, 20, "createdAt", "DESC"))).isEqualTo(1);
+
+        assertThat(countQueries(() -> productService.getByCategory(child.getId(), null, 5, "price", "ASC"))).isEqualTo(1);
+        assertThat(countQueries(() -> productService.getByCategory(child.getId(), null, 20, "price", "ASC"))).isEqualTo(1);
+    }
+
+    @Test
+    void cursorPagesVisitEveryProductOnceAtFixedCost() {
+        Set<UUID> seen = new HashSet<>();
+        String cursor = null;
+        do {
+            String current = cursor;
+            AtomicReference<CursorPageResponse<ProductListResponse>> page = new AtomicReference<>();
+            // Derin sayfalar da tek sorgu
+            assertThat(countQueries(() -> page.set(
+                    productService.getByCategory(child.getId(), current, 4, "name", "ASC")))).isEqualTo(1);
+            assertThat(page.get().getTotalElements()).isEqualTo((long) PRODUCTS);
+            page.get().getItems().forEach(item -> assertThat(seen.add(item.getId())).isTrue());
+            cursor = page.get().getNextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).hasSize(PRODUCTS);
+    }
+
+    @Test
+    void searchRunsFixedNumberOfQueries() {
+        // Sadece sayfa; alt ağaç ve facet adları kategori ağacından, toplam ve sayılar bitmap index'inden
+        assertThat(countQueries(() -> productService.search(searchRequest(5)))).isEqualTo(1);
+        assertThat(countQueries(() -> productService.search(searchRequest(20)))).isEqualTo(1);
+    }
+
+    @Test
+    void keywordSearchRunsFixedNumberOfQueries() {
+        // Alaka sırası (tam metin), sayfadaki ürünler ve vurgulama; filtreler ve facet'ler bitmap index'inden
+        ProductSearchRequest small = searchRequest(5);
+        small.setKeyword("sayım ürünü");
+        ProductSearchRequest large = searchRequest(20);
+        large.setKeyword("sayım ürünü");
+
+        assertThat(countQueries(() -> productService.search(small))).isEqualTo(3);
+        assertThat(countQueries(() -> productService.search(large))).isEqualTo(3);
+    }
+
+    @Test
+    void productDetailRunsFixedNumberOfQueries() {
+        // Ürün + kategori + üst kategori + görseller tek sorguda, alt kategori sayısı ağaçtan
+        assertThat(countQueries(() -> productService.getById(products.get(0).getId()))).isEqualTo(1);
+        // İkinci okuma cache'ten
+        assertThat(countQueries(() -> productService.getById(products.get(0).getId()))).isZero();
+    }
+
+    @Test
+    void categoryListRunsFixedNumberOfQueries() {
+        // Tamamen kategori ağacından
+        assertThat(countQueries(() -> categoryService.getAllCategories())).isZero();
+        assertThat(countQueries(() -> categoryService.getSubCategories(parent.getId()))).isZero();
+        assertThat(countQueries(() -> categoryService.getBreadcrumb(child.getId()))).isZero();
+    }
+
+    private ProductSearchRequest searchRequest(int size) {
+        ProductSearchRequest request = new ProductSearchRequest();
+        request.setCategoryId(parent.getId());
+        request.setSize(size);
+        return request;
+    }
+
+    private long countQueries(Runnable action) {
+        StatementCountingDataSource.start();
+        try {
+            action.run();
+        } finally {
+            StatementCountingDataSource.stop();
+        }
+        return StatementCountingDataSource.count();
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSourcePostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource && !(bean instanceof StatementCountingDataSource)
+                            ? new StatementCountingDataSource(dataSource)
+                            : bean;
+                }
+            };
+        }
+    }
+
+    /**
+     * Sayım açıkken test thread'inde hazırlanan her statement'ı sayar; Hibernate ve JdbcTemplate
+     * bağlantıları aynı DataSource'tan aldığı için ikisi de görünür.
+     */
+    static final class StatementCountingDataSource extends DelegatingDataSource {
+
+        private static final Set<String> STATEMENT_METHODS = Set.of("prepareStatement", "prepareCall", "createStatement");
+        private static final AtomicLong STATEMENTS = new AtomicLong();
+        private static volatile Thread countedThread;
+
+        StatementCountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        static void start() {
+            STATEMENTS.set(0);
+            countedThread = Thread.currentThread();
+        }
+
+        static void stop() {
+            countedThread = null;
+        }
+
+        static long count() {
+            return STATEMENTS.get();
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private static Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if (STATEMENT_METHODS.contains(method.getName()) && Thread.currentThread() == countedThread) {
+                            STATEMENTS.incrementAndGet();
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}